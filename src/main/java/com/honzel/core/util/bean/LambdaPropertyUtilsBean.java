@@ -228,7 +228,7 @@ public class LambdaPropertyUtilsBean extends BasePropertyUtilsBean<Function<Obje
 			}
 			Method readMethod = descriptor.getReadMethod();
 			MethodHandleUtils.trySetAccessible(readMethod);
-			readMethod.invoke(bean);
+			return readMethod.invoke(bean);
 		} catch (Throwable e) {
 			error(e, "Fail to get the property '" + descriptor.getName() + "' for the bean of the type '"
 					+ bean.getClass().getName() + "', reason: " + e.getMessage());
@@ -9,22 +9,35 @@ import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.time.*;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import static com.honzel.core.util.text.TextUtils.*;
 
@@ -56,13 +69,13 @@ public enum FormatTypeEnum implements TextFormatType {
                 String pattern = parameters[0];
                 try {
                     if (value instanceof TemporalAccessor) {
-                        return LocalDateTimeUtils.format((TemporalAccessor) value, pattern);
+                        return formatCachedTime(value, (TemporalAccessor) value, pattern, LocalDateTimeUtils.getFormatter(pattern));
                     } else if (value instanceof Number) {
-                        return new DecimalFormat(pattern).format(value);
+                        return getDecimalFormat(pattern).format(value);
                     } else if (value instanceof Date) {
-                        return new SimpleDateFormat(pattern).format((Date) value);
+                        return formatDate(value, ((Date) value).getTime(), pattern);
                     } else if (value instanceof Calendar) {
-                        return new SimpleDateFormat(pattern).format(((Calendar) value).getTime());
+                        return formatDate(value, ((Calendar) value).getTimeInMillis(), pattern);
                     } else {
                         // 不支持格式化
                         return null;
@@ -84,60 +97,29 @@ public enum FormatTypeEnum implements TextFormatType {
             return true;
         }
         public boolean preliminaryMatch(String format) {
-            return Objects.nonNull(format) && !EMPTY.equals(format = format.trim()) && (format.startsWith(BRACE_START) && format.endsWith(BRACE_END) || format.startsWith(BRACKET_START) && format.endsWith(BRACKET_END));
+            return matchesTrimmed(format);
+        }
+        @Override
+        String getLeadingChars() {
+            return BRACE_START + BRACKET_START;
+        }
+        @Override
+        boolean matches(String content, int start, int end) {
+            char first = content.charAt(start);
+            char last = content.charAt(end - 1);
+            return first == '{' && last == '}' || first == '[' && last == ']';
         }
         @Override
         public void appendValue(StringBuilder formattedContent, String formattedValue, boolean nonForce) {
-            if (nonForce && formattedContent.length() > 0
-                    && formattedContent.charAt(formattedContent.length() - 1) != '"' && preliminaryMatch(formattedValue)) {
-                formattedContent.append(formattedValue);
+            appendTo(this, formattedContent, formattedValue, nonForce);
+        }
+        @Override
+        public void appendValue(Appendable output, String formattedValue, boolean nonForce, int lastChar) throws IOException {
+            if (nonForce && lastChar >= 0 && lastChar != '"' && preliminaryMatch(formattedValue)) {
+                output.append(formattedValue);
                 return;
             }
-            int start = 0;
-            for (int i = 0, len = formattedValue.length(); i < len; i++) {
-                char ch = formattedValue.charAt(i);
-                if (ch >= ' ' && ch != '\"' && ch != '\\') {
-                    continue;
-                }
-                if (start < i) {
-                    formattedContent.append(formattedValue, start, i);
-                }
-                switch(ch) {
-                    case '\\':
-                        formattedContent.append("\\\\");
-                        break;
-                    case '\"':
-                        formattedContent.append("\\\"");
-                        break;
-                    case '\b':
-                        formattedContent.append("\\b");
-                        break;
-                    case '\t':
-                        formattedContent.append("\\t");
-                        break;
-                    case '\n':
-                        formattedContent.append("\\n");
-                        break;
-                    case '\r':
-                        formattedContent.append("\\r");
-                        break;
-                    case '\f':
-                        formattedContent.append("\\f");
-                        break;
-                    default:
-                        String hexString = Integer.toHexString(ch);
-                        formattedContent.append("\\u").append("0000", hexString.length(), 4).append(hexString);
-                        break;
-                }
-                start = i + 1;
-            }
-            if (start > 0) {
-                if (start != formattedValue.length()) {
-                    formattedContent.append(formattedValue, start, formattedValue.length());
-                }
-            } else {
-                formattedContent.append(formattedValue);
-            }
+            appendEscaped(output, formattedValue, JSON_ESCAPES);
         }
     },
     /**
@@ -149,32 +131,27 @@ public enum FormatTypeEnum implements TextFormatType {
             return true;
         }
         public boolean preliminaryMatch(String format) {
-            return Objects.nonNull(format) && !EMPTY.equals(format = format.trim()) && format.startsWith("<") && format.endsWith(">");
+            return matchesTrimmed(format);
+        }
+        @Override
+        String getLeadingChars() {
+            return "<";
+        }
+        @Override
+        boolean matches(String content, int start, int end) {
+            return content.charAt(start) == '<' && content.charAt(end - 1) == '>';
         }
         @Override
         public void appendValue(StringBuilder formattedContent, String formattedValue, boolean nonForce) {
+            appendTo(this, formattedContent, formattedValue, nonForce);
+        }
+        @Override
+        public void appendValue(Appendable output, String formattedValue, boolean nonForce, int lastChar) throws IOException {
             if (nonForce && preliminaryMatch(formattedValue)) {
-                formattedContent.append(formattedValue);
+                output.append(formattedValue);
                 return;
             }
-            for (int i = 0, len = formattedValue.length(); i < len; i++) {
-                char ch = formattedValue.charAt(i);
-                switch (ch) {
-                    case '&': formattedContent.append("&amp;");
-                        break;
-                    case '"': formattedContent.append("&quot;");
-                        break;
-                    case '<': formattedContent.append("&lt;");
-                        break;
-                    case '>': formattedContent.append("&gt;");
-                        break;
-                    case '\'': formattedContent.append("&apos;");
-                        break;
-                    default:
-                        formattedContent.append(ch);
-                        break;
-                }
-            }
+            appendEscaped(output, formattedValue, XML_ESCAPES);
         }
     },
     /**
@@ -186,14 +163,28 @@ public enum FormatTypeEnum implements TextFormatType {
             return true;
         }
         public boolean preliminaryMatch(String format) {
-            return Objects.nonNull(format) && !EMPTY.equals(format = format.trim()) && format.lastIndexOf("://", 20) > 0;
+            return matchesTrimmed(format);
+        }
+        @Override
+        boolean matches(String content, int start, int end) {
+            // 与 trimmed.lastIndexOf("://", 20) > 0 一致: "://" 出现在去除空白后的第1~20个字符位置
+            for (int i = start + 1, last = Math.min(start + 20, end - 3); i <= last; i++) {
+                if (content.charAt(i) == ':' && content.charAt(i + 1) == '/' && content.charAt(i + 2) == '/') {
+                    return true;
+                }
+            }
+            return false;
         }
         @Override
         public void appendValue(StringBuilder formattedContent, String formattedValue, boolean nonForce) {
-            if (nonForce && formattedContent.length() > 0 && "=&?".indexOf(formattedContent.charAt(formattedContent.length() - 1)) == -1) {
-                formattedContent.append(formattedValue);
+            appendTo(this, formattedContent, formattedValue, nonForce);
+        }
+        @Override
+        public void appendValue(Appendable output, String formattedValue, boolean nonForce, int lastChar) throws IOException {
+            if (nonForce && lastChar >= 0 && "=&?".indexOf(lastChar) == -1) {
+                output.append(formattedValue);
             } else {
-                formattedContent.append(WebUtils.encode(formattedValue));
+                WebUtils.encode(output, formattedValue);
             }
         }
     },
@@ -212,22 +203,36 @@ public enum FormatTypeEnum implements TextFormatType {
             if (parameters.length == 0) {
                 return stringValue;
             }
-            int valueLen = stringValue.length();
-            // 获取偏移量
             boolean existsLength = parameters.length > 1 && !EMPTY.equals(parameters[1]);
-            // 计算结束位置
-            int len = existsLength ? Integer.parseInt(parameters[1]) : valueLen;
+            int length = existsLength ? Integer.parseInt(parameters[1]) : 0;
+            boolean existsOffset = !EMPTY.equals(parameters[0]);
+            int offset = existsOffset ? Integer.parseInt(parameters[0]) : 0;
+            return subValues(stringValue, existsOffset, offset, existsLength, length, parameters.length > 2 ? parameters[2] : null);
+        }
+
+        @Override
+        public PreparedFormatter prepare(String... parameters) {
+            if (parameters.length == 0) {
+                return super.prepare(parameters);
+            }
+            boolean existsLength = parameters.length > 1 && !EMPTY.equals(parameters[1]);
+            boolean existsOffset = !EMPTY.equals(parameters[0]);
+            int length;
             int offset;
-            if (EMPTY.equals(parameters[0])) {
-                // 获取偏移量
-                offset = len < 0 && valueLen > 0 ?  -1 : 0;
-            } else {
-                // 获取偏移量
-                if ((offset = Integer.parseInt(parameters[0])) < 0 && !existsLength) {
-                    len -= offset;
-                }
+            try {
+                length = existsLength ? Integer.parseInt(parameters[1]) : 0;
+                offset = existsOffset ? Integer.parseInt(parameters[0]) : 0;
+            } catch (NumberFormatException e) {
+                // 参数不合法时渲染时再报错
+                return super.prepare(parameters);
             }
-            return getValues(stringValue, offset, len, parameters.length > 2 ? parameters[2] : null);
+            String separator = parameters.length > 2 ? parameters[2] : null;
+            return (value, output) -> {
+                String result = subValues(TextUtils.toString(value), existsOffset, offset, existsLength, length, separator);
+                if (result != null) {
+                    output.append(result);
+                }
+            };
         }
     },
     /**
@@ -247,47 +252,46 @@ public enum FormatTypeEnum implements TextFormatType {
             }
             // 计算结束位置
             int len = Integer.parseInt(parameters[0]);
-            if (len == 0) {
+            int pads = Math.abs(len) - stringValue.length();
+            if (pads <= 0) {
                 return stringValue;
             }
-            int valueLen = stringValue.length();
-            boolean backward;
-            if (len < 0) {
-                len = -len;
-                backward = false;
-            } else {
-                backward = true;
+            StringBuilder output = new StringBuilder(stringValue.length() + pads);
+            return pad(output, stringValue, pads, len > 0, getPadChar(parameters)).toString();
+        }
+
+        @Override
+        public PreparedFormatter prepare(String... parameters) {
+            if (parameters.length == 0 || EMPTY.equals(parameters[0])) {
+                return super.prepare(parameters);
             }
-            int pads = len - valueLen;
-            if (pads <= 0) {
-                return stringValue;
+            int len;
+            try {
+                len = Integer.parseInt(parameters[0]);
+            } catch (NumberFormatException e) {
+                // 参数不合法时渲染时再报错
+                return super.prepare(parameters);
             }
-            // 填充字符串
-            String padChar = parameters.length > 1 ? parameters[1] : EMPTY;
-            if (EMPTY.equals(padChar)) {
-                padChar = " ";
-            }
-            int padLen = padChar.length();
-            if (pads <= padLen) {
-                //  不超过填充字符长度
-                return backward ? padChar.substring(0, pads).concat(stringValue) : stringValue.concat(padChar.substring(0, pads));
-            }
-            char[] padding = new char[pads];
-            if (padLen == 1) {
-                // 单字符填充
-                Arrays.fill(padding, 0, pads, padChar.charAt(0));
-            } else {
-                // 多字符填充
-                char[] padChars = padChar.toCharArray();
-                int i = 0;
-                while (pads > padLen) {
-                    System.arraycopy(padChars, 0, padding, i, padLen);
-                    pads -= padLen;
-                    i += padLen;
+            int width = Math.abs(len);
+            boolean backward = len > 0;
+            String padChar = getPadChar(parameters);
+            return (value, output) -> {
+                String stringValue = TextUtils.toString(value);
+                int pads = width - stringValue.length();
+                if (pads <= 0) {
+                    output.append(stringValue);
+                } else {
+                    pad(output, stringValue, pads, backward, padChar);
                 }
-                System.arraycopy(padChars, 0, padding, i, pads);
-            }
-            return backward ? new String(padding).concat(stringValue) : stringValue.concat(new String(padding));
+            };
+        }
+
+        /**
+         * 填充字符串, 为空时使用空格
+         */
+        private String getPadChar(String[] parameters) {
+            String padChar = parameters.length > 1 ? parameters[1] : EMPTY;
+            return EMPTY.equals(padChar) ? " " : padChar;
         }
     },
     /**
@@ -313,161 +317,304 @@ public enum FormatTypeEnum implements TextFormatType {
             String otherValue = parameters.length > 1 ? parameters[1] : EMPTY;
             // 数字格式化
             String pattern = parameters.length > 2 ? parameters[2] : EMPTY;
-            //
+            value = toNumeric(value);
+            if (!EMPTY.equals(op) && value instanceof Number && (EMPTY.equals(otherValue) || NumberUtils.isNumber(otherValue))) {
+                // 数字运算
+                BigDecimal otherNumber = EMPTY.equals(otherValue) ? null : new BigDecimal(otherValue);
+                value = calculate((Number) value, op, otherNumber, otherNumber != null ? toExactLong(otherNumber) : null);
+            }
+            return formatNumber(value, pattern);
+        }
+
+        @Override
+        public PreparedFormatter prepare(String... parameters) {
+            if (parameters.length < 1) {
+                return super.prepare(parameters);
+            }
+            String op = parameters[0];
+            String otherValue = parameters.length > 1 ? parameters[1] : EMPTY;
+            String pattern = parameters.length > 2 ? parameters[2] : EMPTY;
+            boolean computable = !EMPTY.equals(op) && (EMPTY.equals(otherValue) || NumberUtils.isNumber(otherValue));
+            BigDecimal otherNumber;
+            try {
+                otherNumber = computable && !EMPTY.equals(otherValue) ? new BigDecimal(otherValue) : null;
+            } catch (NumberFormatException e) {
+                // 参数不合法时渲染时再报错
+                return super.prepare(parameters);
+            }
+            Long otherLong = otherNumber != null ? toExactLong(otherNumber) : null;
+            return (value, output) -> {
+                Object result = toNumeric(value);
+                if (computable && result instanceof Number) {
+                    result = calculate((Number) result, op, otherNumber, otherLong);
+                }
+                String formattedValue = formatNumber(result, pattern);
+                if (formattedValue != null) {
+                    output.append(formattedValue);
+                }
+            };
+        }
+
+        /**
+         * 字符串转换为数字
+         */
+        private Object toNumeric(Object value) {
             if (value instanceof CharSequence && NumberUtils.isNumber((String)(value = value.toString()))) {
                 // 字符串转换为数字
                 value = new BigDecimal((String) value);
             }
-            if (!EMPTY.equals(op) && value instanceof Number && (EMPTY.equals(otherValue) || NumberUtils.isNumber(otherValue))) {
-                // 数字运算
-                BigDecimal otherNumber = EMPTY.equals(otherValue) ? null : new BigDecimal(otherValue);
-                BigDecimal number;
-                if (value instanceof BigDecimal) {
-                    number = (BigDecimal) value;
-                } else if (value instanceof BigInteger) {
-                    number = new BigDecimal((BigInteger) value);
-                } else {
-                    long longValue = ((Number) value).longValue();
-                    double doubleValue = ((Number)value).doubleValue();
-                    if (doubleValue > Long.MIN_VALUE && doubleValue < Long.MAX_VALUE) {
-                        if (doubleValue < 0) {
-                            number = doubleValue >= longValue ? BigDecimal.valueOf(longValue) : BigDecimal.valueOf(doubleValue);
-                        } else {
-                            number = doubleValue <= longValue ? BigDecimal.valueOf(longValue) : BigDecimal.valueOf(doubleValue);
-                        }
+            return value;
+        }
+
+        /**
+         * 数字运算, 不支持的运算返回原值
+         * @param otherLong 另一值为整数且在long范围内时的值
+         */
+        private Object calculate(Number value, String op, BigDecimal otherNumber, Long otherLong) {
+            Long exactValue = toExactLong(value);
+            Object result;
+            if (exactValue != null && (otherNumber == null || otherLong != null)
+                    && (result = calculateExact(value, exactValue, op, otherLong)) != null) {
+                // 整数运算未溢出
+                return result;
+            }
+            BigDecimal number;
+            if (value instanceof BigDecimal) {
+                number = (BigDecimal) value;
+            } else if (value instanceof BigInteger) {
+                number = new BigDecimal((BigInteger) value);
+            } else if (exactValue != null) {
+                number = BigDecimal.valueOf(exactValue);
+            } else {
+                long longValue = value.longValue();
+                double doubleValue = value.doubleValue();
+                if (doubleValue > Long.MIN_VALUE && doubleValue < Long.MAX_VALUE) {
+                    if (doubleValue < 0) {
+                        number = doubleValue >= longValue ? BigDecimal.valueOf(longValue) : BigDecimal.valueOf(doubleValue);
                     } else {
-                        number =  BigDecimal.valueOf(doubleValue);
+                        number = doubleValue <= longValue ? BigDecimal.valueOf(longValue) : BigDecimal.valueOf(doubleValue);
+                    }
+                } else {
+                    number =  BigDecimal.valueOf(doubleValue);
+                }
+            }
+            result = value;
+            switch (op) {
+                case "+":
+                    result = Objects.nonNull(otherNumber) ? number.add(otherNumber) : number.plus();
+                    break;
+                case "-":
+                    result = Objects.nonNull(otherNumber) ? number.subtract(otherNumber) : number.negate();
+                    break;
+                case "*":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.multiply(otherNumber);
                     }
+                    break;
+                case "/":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.divide(otherNumber, new MathContext(20, RoundingMode.HALF_UP));
+                    }
+                    break;
+                case "%":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.remainder(otherNumber);
+                    }
+                    break;
+                case "<<":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.toBigInteger().shiftLeft(otherNumber.intValue());
+                    }
+                    break;
+                case ">>":
+                case ">>>":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.toBigInteger().shiftRight(otherNumber.intValue());
+                    }
+                    break;
+                case "|":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.toBigInteger().or(otherNumber.toBigInteger());
+                    }
+                    break;
+                case "&":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.toBigInteger().and(otherNumber.toBigInteger());
+                    }
+                    break;
+                case "^":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.toBigInteger().xor(otherNumber.toBigInteger());
+                    }
+                    break;
+                case "~":
+                    result = number.toBigInteger().not();
+                    break;
+                case "&~":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.toBigInteger().andNot(otherNumber.toBigInteger());
+                    }
+                    break;
+                case "abs":
+                    result = number.abs();
+                    break;
+                case "pow":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.pow(otherNumber.intValue());
+                    }
+                    break;
+                case "point":
+                    if (Objects.nonNull(otherNumber)) {
+                        result = number.movePointLeft(otherNumber.intValue());
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+
+        /**
+         * 整数运算, 结果与BigDecimal运算的文本一致
+         * @param value 原值
+         * @param number 原值对应的long值
+         * @param otherNumber 另一值, 为null时表示没有另一值
+         * @return 运算结果, 溢出或不能使用整数运算时返回null
+         */
+        private Object calculateExact(Number value, long number, String op, Long otherNumber) {
+            if (otherNumber == null) {
+                switch (op) {
+                    case "-":
+                        return number != Long.MIN_VALUE ? -number : null;
+                    case "~":
+                        return ~number;
+                    case "abs":
+                        return number != Long.MIN_VALUE ? Math.abs(number) : null;
+                    default:
+                        // 其他运算没有另一值时返回原值
+                        return value;
                 }
+            }
+            long other = otherNumber;
+            try {
                 switch (op) {
                     case "+":
-                        value = Objects.nonNull(otherNumber) ? number.add(otherNumber) : number.plus();
-                        break;
+                        return Math.addExact(number, other);
                     case "-":
-                        value = Objects.nonNull(otherNumber) ? number.subtract(otherNumber) : number.negate();
-                        break;
+                        return Math.subtractExact(number, other);
                     case "*":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.multiply(otherNumber);
-                        }
-                        break;
+                        return Math.multiplyExact(number, other);
                     case "/":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.divide(otherNumber, new MathContext(20, RoundingMode.HALF_UP));
-                        }
-                        break;
+                        // 整除时结果为整数
+                        return other != 0 && number % other == 0 && (number != Long.MIN_VALUE || other != -1) ? number / other : null;
                     case "%":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.remainder(otherNumber);
-                        }
-                        break;
-                    case "<<":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.toBigInteger().shiftLeft(otherNumber.intValue());
-                        }
-                        break;
+                        return other != 0 ? number % other : null;
+                    case "<<": {
+                        int bits = (int) other;
+                        long result;
+                        return bits >= 0 && bits < Long.SIZE && (result = number << bits) >> bits == number ? result : null;
+                    }
                     case ">>":
-                    case ">>>":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.toBigInteger().shiftRight(otherNumber.intValue());
-                        }
-                        break;
+                    case ">>>": {
+                        int bits = (int) other;
+                        return bits >= 0 ? number >> Math.min(bits, Long.SIZE - 1) : null;
+                    }
                     case "|":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.toBigInteger().or(otherNumber.toBigInteger());
-                        }
-                        break;
+                        return number | other;
                     case "&":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.toBigInteger().and(otherNumber.toBigInteger());
-                        }
-                        break;
+                        return number & other;
                     case "^":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.toBigInteger().xor(otherNumber.toBigInteger());
-                        }
-                        break;
+                        return number ^ other;
                     case "~":
-                        value = number.toBigInteger().not();
-                        break;
+                        return ~number;
                     case "&~":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.toBigInteger().andNot(otherNumber.toBigInteger());
-                        }
-                        break;
+                        return number & ~other;
                     case "abs":
-                        value = number.abs();
-                        break;
-                    case "pow":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.pow(otherNumber.intValue());
+                        return number != Long.MIN_VALUE ? Math.abs(number) : null;
+                    case "pow": {
+                        int exponent = (int) other;
+                        if (exponent < 0 || exponent > 999999999) {
+                            return null;
                         }
-                        break;
-                    case "point":
-                        if (Objects.nonNull(otherNumber)) {
-                            value = number.movePointLeft(otherNumber.intValue());
+                        if (number >= -1 && number <= 1) {
+                            return exponent == 0 ? 1L : number != -1 || (exponent & 1) != 0 ? number : 1L;
                         }
-                        break;
+                        long result = 1;
+                        for (int i = 0; i < exponent; i++) {
+                            // 超过63次方时必然溢出
+                            result = Math.multiplyExact(result, number);
+                        }
+                        return result;
+                    }
+                    case "point":
+                        // 小数点移动使用BigDecimal运算
+                        return null;
                     default:
-                        break;
+                        return value;
                 }
+            } catch (ArithmeticException e) {
+                // 溢出时使用BigDecimal运算
+                return null;
             }
-            // 如果是数字，则格式化
-            return StringUtils.isNotEmpty(pattern) && value instanceof Number ? new DecimalFormat(pattern).format(value) : TextUtils.toString(value);
+        }
+
+        /**
+         * 转换为long值
+         * @return 整数且在long范围内时返回long值, 否则返回null
+         */
+        private Long toExactLong(Number value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return value.longValue();
+            }
+            if (value instanceof BigDecimal) {
+                BigDecimal decimal = (BigDecimal) value;
+                // 不超过18位的整数一定在long范围内
+                return decimal.scale() == 0 && decimal.precision() < 19 ? decimal.longValue() : null;
+            }
+            if (value instanceof BigInteger) {
+                BigInteger integer = (BigInteger) value;
+                return integer.bitLength() < Long.SIZE ? integer.longValue() : null;
+            }
+            return null;
+        }
+
+        /**
+         * 如果是数字，则格式化
+         */
+        private String formatNumber(Object value, String pattern) {
+            return StringUtils.isNotEmpty(pattern) && value instanceof Number ? getDecimalFormat(pattern).format(value) : TextUtils.toString(value);
         }
     },
     /**
      * 摘要计算
      */
     DIGEST("digest") {
-        private static final String ENCODED_BASE64 = "base64";
-        private static final String ENCODED_HEX = "hex";
         /**
          * 格式化值
-         * @param value 值
-         * @param parameters 参数 (参数1:摘要算法 参数2:字符集 参数3:编码算法[hex/base64]),(参数1:编码算法[hex/base64] 参数2:字符集)
+         * @param value 值(字节数组、ByteBuffer、ByteArrayOutputStream、InputStream或其他转为字符串的值)
+         * @param parameters 参数 (参数1:摘要算法 参数2:字符集 参数3:编码算法[hex/base64] 参数4:HMAC密钥),(参数1:编码算法[hex/base64] 参数2:字符集)
          * @return 格式化后的值
          */
         public String formatValue(Object value, String... parameters) {
             if (parameters.length == 0) {
                 return TextUtils.toString(value);
             }
-            // 获取进制
-            String algorithm = parameters[0];
-            String encodeAlgorithm = parameters.length > 2 ? parameters[2] : null;
-            if (isEmpty(encodeAlgorithm)) {
-                if (ENCODED_HEX.equalsIgnoreCase(algorithm) || ENCODED_BASE64.equalsIgnoreCase(algorithm)) {
-                    encodeAlgorithm = algorithm;
-                    algorithm = EMPTY;
-                } else {
-                    encodeAlgorithm = ENCODED_HEX;
-                }
-            }
-            Charset charset = parameters.length > 1 && !EMPTY.equals(parameters[1]) ? Charset.forName(parameters[1]) : StandardCharsets.UTF_8;
+            return new DigestSpec(parameters).format(value);
+        }
 
-            byte[] dataBytes;
-            if (value instanceof byte[]) {
-                dataBytes = (byte[]) value;
-            } else if (value instanceof ByteBuffer) {
-                dataBytes = ((ByteBuffer) value).array();
-            } else if (value instanceof ByteArrayOutputStream) {
-                dataBytes = ((ByteArrayOutputStream) value).toByteArray();
-            } else {
-                dataBytes = TextUtils.toString(value).getBytes(charset);
-            }
-            if (!algorithm.isEmpty()) {
-                try {
-                    dataBytes = MessageDigest.getInstance(algorithm).digest(dataBytes);
-                } catch (NoSuchAlgorithmException e) {
-                    throw new IllegalArgumentException(e.getMessage(), e);
-                }
+        @Override
+        public PreparedFormatter prepare(String... parameters) {
+            if (parameters.length == 0) {
+                return super.prepare(parameters);
             }
-            if (ENCODED_BASE64.equalsIgnoreCase(encodeAlgorithm)) {
-                // Base64
-                return Base64.getEncoder().encodeToString(dataBytes);
+            DigestSpec spec;
+            try {
+                spec = new DigestSpec(parameters);
+            } catch (IllegalArgumentException e) {
+                // 字符集不合法时渲染时再报错
+                return super.prepare(parameters);
             }
-            // Hex
-            return HexFormat.of().formatHex(dataBytes);
+            return (value, output) -> output.append(spec.format(value));
         }
     },
     /**
@@ -490,24 +637,59 @@ public enum FormatTypeEnum implements TextFormatType {
             String toPattern = parameters.length > 0 ? parameters[0] : null;
             // 源时间格式
             String fromPattern = parameters.length > 1 ? parameters[1] : null;
+            return formatValue(value, toPattern, null, fromPattern, null);
+        }
+
+        @Override
+        public PreparedFormatter prepare(String... parameters) {
+            String toPattern = parameters.length > 0 && isNotEmpty(parameters[0]) ? parameters[0] : EPOCH_PATTERN;
+            String fromPattern = parameters.length > 1 ? parameters[1] : null;
+            DateTimeFormatter toFormatter;
+            DateTimeFormatter fromFormatter;
+            try {
+                // 预先获取时间格式对象
+                toFormatter = isEpochPattern(toPattern) ? null : LocalDateTimeUtils.getFormatter(toPattern);
+                fromFormatter = isEmpty(fromPattern) || isEpochPattern(fromPattern) ? null : LocalDateTimeUtils.getFormatter(fromPattern);
+            } catch (IllegalArgumentException e) {
+                // 格式不合法时渲染时再报错
+                return super.prepare(parameters);
+            }
+            return (value, output) -> {
+                String formattedValue = formatValue(value, toPattern, toFormatter, fromPattern, fromFormatter);
+                if (formattedValue != null) {
+                    output.append(formattedValue);
+                }
+            };
+        }
 
+        /**
+         * 格式化值
+         * @param toFormatter 目标时间格式对象, 为null时按目标时间格式获取
+         * @param fromFormatter 源时间格式对象, 为null时按源时间格式获取
+         */
+        private String formatValue(Object value, String toPattern, DateTimeFormatter toFormatter, String fromPattern, DateTimeFormatter fromFormatter) {
             if (value instanceof TemporalAccessor) {
                 // 时间格式化
-                return formatTime((TemporalAccessor) value, toPattern);
+                return formatTime((TemporalAccessor) value, toPattern, toFormatter);
             }
             LocalDateTime time;
             if (TextUtils.isNotEmpty(fromPattern) && value instanceof CharSequence) {
                 // 字符串解析成时间
-                time = parseTime(value.toString(), fromPattern);
+                time = parseTime(value.toString(), fromPattern, fromFormatter);
             } else {
                 // 其他类型转成时间
                 time = BeanHelper.convert(value, LocalDateTime.class);
             }
             // 时间格式化
-            return time == null ? null : formatTime(time, toPattern);
+            return time == null ? null : formatTime(time, toPattern, toFormatter);
         }
 
-        private LocalDateTime parseTime(String valueStr, String pattern) {
+        private boolean isEpochPattern(String pattern) {
+            return EPOCH_PATTERN.equals(pattern) || EPOCH_SECONDS_PATTERN.equals(pattern)
+                    || EPOCH_MILLISECONDS_PATTERN.equals(pattern) || EPOCH_DAYS_PATTERN.equals(pattern);
+        }
+
+        private LocalDateTime parseTime(String valueStr, String pattern, DateTimeFormatter formatter) {
             if (StringUtils.isEmpty(pattern)) {
                 pattern = EPOCH_PATTERN;
             }
@@ -547,11 +729,11 @@ public enum FormatTypeEnum implements TextFormatType {
                     }
                 default:
                     // 字符串转时间
-                    return LocalDateTimeUtils.parse(valueStr, LocalDateTimeUtils.getFormatter(pattern));
+                    return LocalDateTimeUtils.parse(valueStr, formatter != null ? formatter : LocalDateTimeUtils.getFormatter(pattern));
             }
         }
 
-        private String formatTime(TemporalAccessor value, String pattern) {
+        private String formatTime(TemporalAccessor value, String pattern, DateTimeFormatter formatter) {
             if (StringUtils.isEmpty(pattern)) {
                 pattern = EPOCH_PATTERN;
             }
@@ -589,7 +771,7 @@ public enum FormatTypeEnum implements TextFormatType {
                         return TextUtils.toString(value);
                     }
             }
-            return LocalDateTimeUtils.format(value, pattern);
+            return formatCachedTime(value, value, pattern, formatter != null ? formatter : LocalDateTimeUtils.getFormatter(pattern));
         }
         private long toEpochMilli(long seconds, int nanos) {
             if (seconds < 0 && nanos > 0) {
@@ -605,6 +787,75 @@ public enum FormatTypeEnum implements TextFormatType {
     ;
 
     private static final Logger log = LoggerFactory.getLogger(FormatTypeEnum.class);
+    /**
+     * 每个线程缓存的数字格式对象数量上限
+     */
+    private static final int MAX_CACHED_DECIMAL_FORMATS = 64;
+    /**
+     * 按模板缓存的数字格式对象(DecimalFormat非线程安全, 每个线程单独缓存)
+     */
+    private static final ThreadLocal<LocalizedFormats<DecimalFormat>> DECIMAL_FORMATS = ThreadLocal.withInitial(() -> new LocalizedFormats<>(MAX_CACHED_DECIMAL_FORMATS, DecimalFormat::new));
+    /**
+     * 每个线程缓存的摘要对象数量上限
+     */
+    private static final int MAX_CACHED_DIGESTS = 32;
+    /**
+     * 按算法(及HMAC密钥的摘要)缓存的摘要对象(MessageDigest/Mac非线程安全, 每个线程单独缓存), 超出上限时移除最久未使用的
+     */
+    private static final ThreadLocal<Map<String, DigestSink>> DIGESTS = ThreadLocal.withInitial(() -> new LinkedHashMap<String, DigestSink>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DigestSink> eldest) {
+            return size() > MAX_CACHED_DIGESTS;
+        }
+    });
+    /**
+     * 每个线程缓存的日期格式对象数量上限
+     */
+    private static final int MAX_CACHED_DATE_FORMATS = 32;
+    /**
+     * 日期(Date/Calendar)格式化使用的SimpleDateFormat(非线程安全, 每个线程单独缓存)
+     */
+    private static final ThreadLocal<LocalizedFormats<SimpleDateFormat>> DATE_FORMATS = ThreadLocal.withInitial(() -> new LocalizedFormats<>(MAX_CACHED_DATE_FORMATS, SimpleDateFormat::new));
+    /**
+     * 缓存的格式数量上限
+     */
+    private static final int MAX_CACHED_PATTERNS = 256;
+    /**
+     * 按时间格式缓存的最近格式化结果
+     */
+    private static final Map<String, TimeValueCache> TIME_VALUE_CACHES = new ConcurrentHashMap<>();
+    /**
+     * JSON字符串中需要转义的字符对应的转义串, 按字符下标(超出范围或为null时不需要转义)
+     */
+    private static final String[] JSON_ESCAPES = new String['\\' + 1];
+    /**
+     * XML中需要转义的字符对应的实体, 按字符下标(超出范围或为null时不需要转义)
+     */
+    private static final String[] XML_ESCAPES = new String['>' + 1];
+
+    static {
+        for (char ch = 0; ch < ' '; ch++) {
+            JSON_ESCAPES[ch] = String.format("\\u%04x", (int) ch);
+        }
+        JSON_ESCAPES['\\'] = "\\\\";
+        JSON_ESCAPES['"'] = "\\\"";
+        JSON_ESCAPES['\b'] = "\\b";
+        JSON_ESCAPES['\t'] = "\\t";
+        JSON_ESCAPES['\n'] = "\\n";
+        JSON_ESCAPES['\r'] = "\\r";
+        JSON_ESCAPES['\f'] = "\\f";
+        XML_ESCAPES['&'] = "&amp;";
+        XML_ESCAPES['"'] = "&quot;";
+        XML_ESCAPES['<'] = "&lt;";
+        XML_ESCAPES['>'] = "&gt;";
+        XML_ESCAPES['\''] = "&apos;";
+    }
+    /**
+     * 是否启用时间值缓存
+     */
+    private static volatile boolean timeValueCacheEnabled;
     private final String uniqueId;
 
      FormatTypeEnum(String uniqueId) {
@@ -616,6 +867,661 @@ public enum FormatTypeEnum implements TextFormatType {
         return uniqueId;
     }
 
+    /**
+     * 自动匹配时可能匹配的首个非空白字符
+     * @return 首个非空白字符集合, 为null时表示任意字符
+     */
+    String getLeadingChars() {
+        return null;
+    }
 
+    /**
+     * 按去除首尾空白后的范围匹配内容(自动匹配时使用, 不生成去除空白后的字符串)
+     * @param content 内容
+     * @param start 第一个非空白字符位置
+     * @param end 最后一个非空白字符的下一位置(大于start)
+     * @return 是否匹配
+     */
+    boolean matches(String content, int start, int end) {
+        return false;
+    }
+
+    /**
+     * 去除首尾空白后匹配内容
+     */
+    boolean matchesTrimmed(String format) {
+        if (format == null) {
+            return false;
+        }
+        int start = FormatTypeMatcher.trimStart(format);
+        int end = FormatTypeMatcher.trimEnd(format, start);
+        return start < end && matches(format, start, end);
+    }
+
+    /**
+     * 是否启用时间值缓存
+     * @return 是否启用时间值缓存
+     * @see #setTimeValueCacheEnabled(boolean)
+     */
+    public static boolean isTimeValueCacheEnabled() {
+        return timeValueCacheEnabled;
+    }
+
+    /**
+     * 设置是否启用时间值缓存(默认不启用)
+     * <p>
+     * 启用后 {@link #SIMPLE}/{@link #TIME} 按时间格式缓存最近一次的格式化结果,
+     * 同一格式连续格式化同一秒(格式中没有秒以下的字段时)的时间直接返回缓存结果, 适用于高频输出当前时间的场景。
+     * </p>
+     * @param enabled 是否启用
+     */
+    public static void setTimeValueCacheEnabled(boolean enabled) {
+        timeValueCacheEnabled = enabled;
+        if (!enabled) {
+            TIME_VALUE_CACHES.clear();
+        }
+    }
+
+    @Override
+    public void appendValue(Appendable output, String formattedValue, boolean nonForce, int lastChar) throws IOException {
+        output.append(formattedValue);
+    }
+
+    /**
+     * 按转义表输出值: 不需要转义的连续字符整段输出, 需要转义的字符输出转义表中的转义串
+     * <p>
+     * 先查找第一个需要转义的字符, 没有时原样输出值; 输出目标为StringBuilder时直接调用其方法(不经过Appendable接口)并预留转义后的容量。
+     * </p>
+     * @param output 输出目标
+     * @param value 值
+     * @param escapes 转义表
+     */
+    private static void appendEscaped(Appendable output, String value, String[] escapes) throws IOException {
+        int position = indexOfEscape(value, escapes);
+        if (position < 0) {
+            // 没有需要转义的字符
+            output.append(value);
+            return;
+        }
+        int len = value.length();
+        if (output instanceof StringBuilder) {
+            StringBuilder builder = (StringBuilder) output;
+            builder.ensureCapacity(builder.length() + len + (len >>> 3));
+            int start = 0;
+            for (int i = position; i < len; i++) {
+                char ch = value.charAt(i);
+                String escaped;
+                if (ch >= escapes.length || (escaped = escapes[ch]) == null) {
+                    continue;
+                }
+                builder.append(value, start, i).append(escaped);
+                start = i + 1;
+            }
+            builder.append(value, start, len);
+            return;
+        }
+        int start = 0;
+        for (int i = position; i < len; i++) {
+            char ch = value.charAt(i);
+            String escaped;
+            if (ch >= escapes.length || (escaped = escapes[ch]) == null) {
+                continue;
+            }
+            if (start < i) {
+                output.append(value, start, i);
+            }
+            output.append(escaped);
+            start = i + 1;
+        }
+        if (start < len) {
+            output.append(value, start, len);
+        }
+    }
+
+    /**
+     * 查找第一个需要转义的字符
+     * @param value 值
+     * @param escapes 转义表
+     * @return 字符位置, 没有需要转义的字符时返回-1
+     */
+    private static int indexOfEscape(String value, String[] escapes) {
+        int limit = escapes.length;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char ch = value.charAt(i);
+            if (ch < limit && escapes[ch] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 通过流式输出方法添加格式化值到StringBuilder
+     */
+    private static void appendTo(FormatTypeEnum formatType, StringBuilder formattedContent, String formattedValue, boolean nonForce) {
+        int length = formattedContent.length();
+        try {
+            formatType.appendValue(formattedContent, formattedValue, nonForce, length > 0 ? formattedContent.charAt(length - 1) : -1);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IO异常
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 获取当前线程缓存的数字格式对象
+     * @param pattern 数字格式
+     * @return 数字格式对象
+     */
+    private static DecimalFormat getDecimalFormat(String pattern) {
+        return DECIMAL_FORMATS.get().get(pattern);
+    }
+
+    /**
+     * 格式化日期(Date/Calendar), 使用每个线程缓存的SimpleDateFormat(与java.time的历法、本地化数字等不同, 不能改用java.time)
+     * @param value 原值
+     * @param epochMilli 时间戳(ms)
+     * @param pattern 日期格式
+     * @return 格式化后的值
+     */
+    private static String formatDate(Object value, long epochMilli, String pattern) {
+        TimeValueCache cache = getTimeValueCache(value, pattern);
+        String text = cache != null ? cache.get(value) : null;
+        if (text == null) {
+            SimpleDateFormat format = DATE_FORMATS.get().get(pattern);
+            // SimpleDateFormat会使用默认时区
+            format.setTimeZone(TimeZone.getDefault());
+            text = format.format(new Date(epochMilli));
+            if (cache != null) {
+                cache.put(value, text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * 格式化时间, 启用时间值缓存时同一格式连续格式化同一秒的时间只格式化一次
+     * @param value 原值(作为缓存键)
+     * @param temporal 要格式化的时间
+     * @param pattern 时间格式
+     * @param formatter 时间格式对应的格式化对象
+     * @return 格式化后的值
+     */
+    private static String formatCachedTime(Object value, TemporalAccessor temporal, String pattern, DateTimeFormatter formatter) {
+        TimeValueCache cache = getTimeValueCache(value, pattern);
+        if (cache == null) {
+            return formatter.format(temporal);
+        }
+        String text = cache.get(value);
+        if (text == null) {
+            text = formatter.format(temporal);
+            cache.put(value, text);
+        }
+        return text;
+    }
+
+    /**
+     * 获取时间格式的最近格式化结果缓存
+     * @param value 原值
+     * @param pattern 时间格式
+     * @return 未启用时间值缓存、值不支持或格式包含秒以下的字段时返回null
+     */
+    private static TimeValueCache getTimeValueCache(Object value, String pattern) {
+        if (!timeValueCacheEnabled || TimeValue.toEpochSecond(value) == Long.MIN_VALUE) {
+            return null;
+        }
+        TimeValueCache cache = TIME_VALUE_CACHES.get(pattern);
+        if (cache == null) {
+            if (TIME_VALUE_CACHES.size() >= MAX_CACHED_PATTERNS) {
+                TIME_VALUE_CACHES.clear();
+            }
+            cache = TIME_VALUE_CACHES.computeIfAbsent(pattern, TimeValueCache::new);
+        }
+        // 格式包含秒以下的字段时不缓存
+        return cache.secondResolution ? cache : null;
+    }
+
+    /**
+     * 按偏移量及长度截取值
+     */
+    private static String subValues(String stringValue, boolean existsOffset, int offset, boolean existsLength, int length, String separator) {
+        int valueLen = stringValue.length();
+        // 计算结束位置
+        int len = existsLength ? length : valueLen;
+        if (!existsOffset) {
+            // 获取偏移量
+            offset = len < 0 && valueLen > 0 ?  -1 : 0;
+        } else if (offset < 0 && !existsLength) {
+            len -= offset;
+        }
+        return getValues(stringValue, offset, len, separator);
+    }
+
+    /**
+     * 附加填充后的值
+     * @param pads 填充长度(大于0)
+     * @param backward 是否在值前面填充
+     * @param padChar 填充字符串(非空)
+     */
+    private static StringBuilder pad(StringBuilder output, String stringValue, int pads, boolean backward, String padChar) {
+        if (!backward) {
+            output.append(stringValue);
+        }
+        int padLen = padChar.length();
+        for (; pads > padLen; pads -= padLen) {
+            output.append(padChar);
+        }
+        output.append(padChar, 0, pads);
+        if (backward) {
+            output.append(stringValue);
+        }
+        return output;
+    }
+
+    /**
+     * 是否按转义规则附加格式化值(JSON/XML/URL), 否则格式化值原样附加
+     * @return 是否转义
+     */
+    boolean isEscaping() {
+        return this == JSON || this == XML || this == URL_ENCODING;
+    }
+
+    /**
+     * 摘要参数, 解析后不可变
+     */
+    private static final class DigestSpec {
+        private static final String ENCODED_BASE64 = "base64";
+        private static final String ENCODED_HEX = "hex";
+        /**
+         * HMAC密钥在缓存键中的摘要算法
+         */
+        private static final String KEY_FINGERPRINT_ALGORITHM = "SHA-256";
+        /**
+         * 字符串小于该长度时直接转换为字节数组, 否则分段编码
+         */
+        private static final int ENCODE_CHUNK_CHARS = 1024;
+        /**
+         * 摘要算法, 为空时不计算摘要
+         */
+        private final String algorithm;
+        private final Charset charset;
+        private final boolean base64;
+        /**
+         * HMAC密钥, 非HMAC算法时为null
+         */
+        private final byte[] key;
+        /**
+         * 摘要对象缓存键, HMAC算法时由算法及密钥的SHA-256摘要组成(不保存明文密钥)
+         */
+        private final String cacheKey;
 
+        DigestSpec(String[] parameters) {
+            String algorithm = parameters[0];
+            String encodeAlgorithm = parameters.length > 2 ? parameters[2] : null;
+            if (isEmpty(encodeAlgorithm)) {
+                if (ENCODED_HEX.equalsIgnoreCase(algorithm) || ENCODED_BASE64.equalsIgnoreCase(algorithm)) {
+                    encodeAlgorithm = algorithm;
+                    algorithm = EMPTY;
+                } else {
+                    encodeAlgorithm = ENCODED_HEX;
+                }
+            }
+            this.algorithm = algorithm;
+            this.charset = parameters.length > 1 && !EMPTY.equals(parameters[1]) ? Charset.forName(parameters[1]) : StandardCharsets.UTF_8;
+            this.base64 = ENCODED_BASE64.equalsIgnoreCase(encodeAlgorithm);
+            if (algorithm.regionMatches(true, 0, "Hmac", 0, 4)) {
+                // HMAC算法
+                String secret = parameters.length > 3 ? parameters[3] : EMPTY;
+                this.key = secret.getBytes(charset);
+                DigestSink fingerprint = DigestSink.get(KEY_FINGERPRINT_ALGORITHM, KEY_FINGERPRINT_ALGORITHM, null);
+                fingerprint.write(key, 0, key.length);
+                this.cacheKey = algorithm + '\n' + Base64.getEncoder().encodeToString(fingerprint.doFinal());
+            } else {
+                this.key = null;
+                this.cacheKey = algorithm;
+            }
+        }
+
+        String format(Object value) {
+            byte[] dataBytes;
+            if (algorithm.isEmpty()) {
+                dataBytes = toBytes(value);
+            } else {
+                DigestSink sink = DigestSink.get(cacheKey, algorithm, key);
+                update(sink, value);
+                dataBytes = sink.doFinal();
+            }
+            if (base64) {
+                // Base64
+                return Base64.getEncoder().encodeToString(dataBytes);
+            }
+            // Hex
+            return HexFormat.of().formatHex(dataBytes);
+        }
+
+        /**
+         * 读取值的全部字节
+         */
+        private byte[] toBytes(Object value) {
+            if (value instanceof byte[]) {
+                return (byte[]) value;
+            } else if (value instanceof ByteBuffer) {
+                ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+                byte[] dataBytes = new byte[buffer.remaining()];
+                buffer.get(dataBytes);
+                return dataBytes;
+            } else if (value instanceof ByteArrayOutputStream) {
+                return ((ByteArrayOutputStream) value).toByteArray();
+            } else if (value instanceof InputStream) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                try {
+                    int len;
+                    while ((len = ((InputStream) value).read(buffer)) > 0) {
+                        output.write(buffer, 0, len);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return output.toByteArray();
+            }
+            return TextUtils.toString(value).getBytes(charset);
+        }
+
+        /**
+         * 把值的字节写入摘要, 不复制整个字节内容
+         */
+        private void update(DigestSink sink, Object value) {
+            try {
+                if (value instanceof byte[]) {
+                    byte[] dataBytes = (byte[]) value;
+                    sink.write(dataBytes, 0, dataBytes.length);
+                } else if (value instanceof ByteBuffer) {
+                    // 不改变原缓冲的位置, 支持直接缓冲
+                    sink.update(((ByteBuffer) value).duplicate());
+                } else if (value instanceof ByteArrayOutputStream) {
+                    ((ByteArrayOutputStream) value).writeTo(sink);
+                } else if (value instanceof InputStream) {
+                    byte[] buffer = sink.buffer();
+                    int len;
+                    while ((len = ((InputStream) value).read(buffer)) > 0) {
+                        sink.write(buffer, 0, len);
+                    }
+                } else {
+                    String text = TextUtils.toString(value);
+                    if (text.length() < ENCODE_CHUNK_CHARS) {
+                        byte[] dataBytes = text.getBytes(charset);
+                        sink.write(dataBytes, 0, dataBytes.length);
+                    } else {
+                        encode(sink, text);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 分段编码字符串并写入摘要, 结果与 {@link String#getBytes(Charset)} 一致
+         */
+        private void encode(DigestSink sink, String text) {
+            CharsetEncoder encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer input = CharBuffer.wrap(text);
+            ByteBuffer output = ByteBuffer.wrap(sink.buffer());
+            boolean flushing = false;
+            while (true) {
+                CoderResult result = flushing ? encoder.flush(output) : encoder.encode(input, output, true);
+                sink.write(output.array(), 0, output.position());
+                output.clear();
+                if (result.isUnderflow()) {
+                    if (flushing) {
+                        break;
+                    }
+                    flushing = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 摘要计算对象(MessageDigest或已初始化密钥的Mac), 按线程缓存复用
+     */
+    private static final class DigestSink extends OutputStream {
+        private final MessageDigest digest;
+        private final Mac mac;
+        /**
+         * 读取输入流及分段编码使用的缓冲
+         */
+        private byte[] buffer;
+
+        private DigestSink(MessageDigest digest, Mac mac) {
+            this.digest = digest;
+            this.mac = mac;
+        }
+
+        /**
+         * 获取当前线程缓存的摘要对象
+         * @param cacheKey 缓存键
+         * @param algorithm 摘要算法
+         * @param key HMAC密钥, 非HMAC算法时为null
+         * @return 已重置的摘要对象
+         */
+        static DigestSink get(String cacheKey, String algorithm, byte[] key) {
+            Map<String, DigestSink> sinks = DIGESTS.get();
+            DigestSink sink = sinks.get(cacheKey);
+            if (sink == null) {
+                try {
+                    if (key != null) {
+                        Mac mac = Mac.getInstance(algorithm);
+                        mac.init(new SecretKeySpec(key, algorithm));
+                        sink = new DigestSink(null, mac);
+                    } else {
+                        sink = new DigestSink(MessageDigest.getInstance(algorithm), null);
+                    }
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalArgumentException(e.getMessage(), e);
+                }
+                sinks.put(cacheKey, sink);
+            } else {
+                // 清除上次异常中断时残留的内容
+                sink.reset();
+            }
+            return sink;
+        }
+
+        private void reset() {
+            if (mac != null) {
+                mac.reset();
+            } else {
+                digest.reset();
+            }
+        }
+
+        byte[] buffer() {
+            if (buffer == null) {
+                buffer = new byte[8192];
+            }
+            return buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            if (mac != null) {
+                mac.update((byte) b);
+            } else {
+                digest.update((byte) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (mac != null) {
+                mac.update(b, off, len);
+            } else {
+                digest.update(b, off, len);
+            }
+        }
+
+        void update(ByteBuffer input) {
+            if (mac != null) {
+                mac.update(input);
+            } else {
+                digest.update(input);
+            }
+        }
+
+        byte[] doFinal() {
+            return mac != null ? mac.doFinal() : digest.digest();
+        }
+    }
+
+    /**
+     * 当前线程按格式缓存的格式对象(按默认语言环境创建, 默认语言环境变化时重新缓存)
+     */
+    private static final class LocalizedFormats<F> {
+        private final Map<String, F> formats = new HashMap<>();
+        private final int maximumSize;
+        private final Function<String, F> factory;
+        /**
+         * 创建缓存的格式对象时的默认语言环境
+         */
+        private Locale locale;
+
+        LocalizedFormats(int maximumSize, Function<String, F> factory) {
+            this.maximumSize = maximumSize;
+            this.factory = factory;
+        }
+
+        /**
+         * 获取格式对象
+         * @param pattern 格式
+         * @return 按当前默认语言环境创建的格式对象
+         */
+        F get(String pattern) {
+            Locale current = Locale.getDefault(Locale.Category.FORMAT);
+            if (!current.equals(locale)) {
+                formats.clear();
+                locale = current;
+            }
+            F format = formats.get(pattern);
+            if (format == null) {
+                if (formats.size() >= maximumSize) {
+                    // 超出上限时重新缓存
+                    formats.clear();
+                }
+                format = factory.apply(pattern);
+                formats.put(pattern, format);
+            }
+            return format;
+        }
+    }
+
+    /**
+     * 时间格式的最近格式化结果
+     */
+    private static final class TimeValueCache {
+        /**
+         * 格式中是否没有秒以下的字段(即同一秒的时间格式化结果相同)
+         */
+        private final boolean secondResolution;
+
+        private volatile TimeValue last;
+
+        TimeValueCache(String pattern) {
+            boolean quoted = false;
+            boolean secondResolution = true;
+            for (int i = 0, len = pattern.length(); i < len && secondResolution; i++) {
+                char ch = pattern.charAt(i);
+                if (ch == '\'') {
+                    quoted = !quoted;
+                } else if (!quoted && "SnNA".indexOf(ch) >= 0) {
+                    // 毫秒、纳秒等字段
+                    secondResolution = false;
+                }
+            }
+            this.secondResolution = secondResolution;
+        }
+
+        /**
+         * 获取同一秒同一类型及时区的值的最近格式化结果
+         * @param value 原值
+         * @return 最近格式化结果, 不是同一秒的值时返回null
+         */
+        String get(Object value) {
+            TimeValue last = this.last;
+            if (last != null && last.epochSecond == TimeValue.toEpochSecond(value) && last.type == value.getClass()
+                    && Objects.equals(last.zone, TimeValue.toZone(value))) {
+                return last.text;
+            }
+            return null;
+        }
+
+        /**
+         * 记录最近格式化结果
+         * @param value 原值
+         * @param text 格式化结果
+         */
+        void put(Object value, String text) {
+            last = new TimeValue(value.getClass(), TimeValue.toEpochSecond(value), TimeValue.toZone(value), text);
+        }
+    }
+
+    /**
+     * 时间格式化结果, 不可变
+     */
+    private static final class TimeValue {
+        private final Class<?> type;
+        private final long epochSecond;
+        /**
+         * 格式化使用的时区, 本地时间时为null
+         */
+        private final ZoneId zone;
+        private final String text;
+
+        TimeValue(Class<?> type, long epochSecond, ZoneId zone, String text) {
+            this.type = type;
+            this.epochSecond = epochSecond;
+            this.zone = zone;
+            this.text = text;
+        }
+
+        /**
+         * 时间值对应的秒数
+         * @return 不支持缓存的类型返回 Long.MIN_VALUE
+         */
+        static long toEpochSecond(Object value) {
+            if (value instanceof LocalDateTime) {
+                return ((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC);
+            } else if (value instanceof Date) {
+                return Math.floorDiv(((Date) value).getTime(), 1000L);
+            } else if (value instanceof ZonedDateTime) {
+                return ((ZonedDateTime) value).toEpochSecond();
+            } else if (value instanceof OffsetDateTime) {
+                return ((OffsetDateTime) value).toEpochSecond();
+            } else if (value instanceof Calendar) {
+                return Math.floorDiv(((Calendar) value).getTimeInMillis(), 1000L);
+            } else if (value instanceof LocalDate) {
+                return ((LocalDate) value).toEpochDay() * 86400L;
+            } else if (value instanceof LocalTime) {
+                return ((LocalTime) value).toSecondOfDay();
+            }
+            return Long.MIN_VALUE;
+        }
+
+        /**
+         * 时间值格式化使用的时区
+         */
+        static ZoneId toZone(Object value) {
+            if (value instanceof Date || value instanceof Calendar) {
+                return ZoneId.systemDefault();
+            } else if (value instanceof ZonedDateTime) {
+                return ((ZonedDateTime) value).getZone();
+            } else if (value instanceof OffsetDateTime) {
+                return ((OffsetDateTime) value).getOffset();
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package com.honzel.core.util.text;
+
+import java.util.Collection;
+
+/**
+ * 格式类型自动匹配表
+ * <p>
+ * 注册格式类型时按自动匹配顺序预先生成, 以内容首个非空白字符查表得到可能匹配的格式类型,
+ * 内置格式类型直接按首尾非空白字符及 "://" 位置判断, 匹配过程不生成去除空白后的字符串;
+ * 自定义格式类型仍调用 {@link TextFormatType#preliminaryMatch(String)}。创建后不可变。
+ * </p>
+ *
+ * @author honzel
+ */
+final class FormatTypeMatcher {
+
+	private static final int TABLE_SIZE = 128;
+	/**
+	 * 位集可以表示的格式类型数量, 超出时逐个匹配
+	 */
+	private static final int MAX_TABLE_TYPES = Long.SIZE;
+	/**
+	 * 按匹配顺序排列的格式类型
+	 */
+	private final TextFormatType[] types;
+	/**
+	 * 首个非空白字符(ASCII)对应的可能匹配的格式类型位集, 第i位对应第i个格式类型
+	 */
+	private final long[] leadingTable;
+	/**
+	 * 首个非空白字符为非ASCII字符时可能匹配的格式类型位集
+	 */
+	private final long otherMask;
+
+	FormatTypeMatcher(Collection<TextFormatType> autoMatchTypes) {
+		this.types = autoMatchTypes.toArray(new TextFormatType[0]);
+		if (types.length > MAX_TABLE_TYPES) {
+			this.leadingTable = null;
+			this.otherMask = -1L;
+			return;
+		}
+		long[] table = new long[TABLE_SIZE];
+		long other = 0;
+		for (int i = 0; i < types.length; i++) {
+			long bit = 1L << i;
+			String leadingChars = types[i] instanceof FormatTypeEnum ? ((FormatTypeEnum) types[i]).getLeadingChars() : null;
+			if (leadingChars == null) {
+				// 任意首字符都可能匹配
+				for (int c = 0; c < TABLE_SIZE; c++) {
+					table[c] |= bit;
+				}
+				other |= bit;
+			} else {
+				for (int j = 0; j < leadingChars.length(); j++) {
+					table[leadingChars.charAt(j)] |= bit;
+				}
+			}
+		}
+		this.leadingTable = table;
+		this.otherMask = other;
+	}
+
+	/**
+	 * 匹配内容的格式类型, 与按注册顺序逐个调用 {@link TextFormatType#preliminaryMatch(String)} 的结果一致
+	 * @param content 内容
+	 * @return 匹配的格式类型, 未匹配时返回 {@link FormatTypeEnum#SIMPLE}
+	 */
+	TextFormatType match(String content) {
+		int start;
+		int end;
+		if (content == null || (start = trimStart(content)) >= (end = trimEnd(content, start))) {
+			return FormatTypeEnum.SIMPLE;
+		}
+		String trimmed = null;
+		if (leadingTable == null) {
+			for (TextFormatType type : types) {
+				if (type instanceof FormatTypeEnum ? ((FormatTypeEnum) type).matches(content, start, end)
+						: type.preliminaryMatch(trimmed != null ? trimmed : (trimmed = content.substring(start, end)))) {
+					return type;
+				}
+			}
+			return FormatTypeEnum.SIMPLE;
+		}
+		char leading = content.charAt(start);
+		long candidates = leading < TABLE_SIZE ? leadingTable[leading] : otherMask;
+		while (candidates != 0) {
+			TextFormatType type = types[Long.numberOfTrailingZeros(candidates)];
+			candidates &= candidates - 1;
+			if (type instanceof FormatTypeEnum ? ((FormatTypeEnum) type).matches(content, start, end)
+					: type.preliminaryMatch(trimmed != null ? trimmed : (trimmed = content.substring(start, end)))) {
+				return type;
+			}
+		}
+		return FormatTypeEnum.SIMPLE;
+	}
+
+	/**
+	 * 第一个非空白字符的位置(空白字符与 {@link String#trim()} 一致)
+	 */
+	static int trimStart(CharSequence content) {
+		int start = 0;
+		int len = content.length();
+		while (start < len && content.charAt(start) <= ' ') {
+			start ++;
+		}
+		return start;
+	}
+
+	/**
+	 * 最后一个非空白字符的下一位置
+	 */
+	static int trimEnd(CharSequence content, int start) {
+		int end = content.length();
+		while (end > start && content.charAt(end - 1) <= ' ') {
+			end --;
+		}
+		return end;
+	}
+}
@@ -0,0 +1,27 @@
+package com.honzel.core.util.text;
+
+/**
+ * 预处理的格式化器
+ * <p>
+ * 由 {@link TextFormatType#prepare(String...)} 在模板编译时创建, 格式化参数只解析一次,
+ * 渲染时直接把格式化结果写入输出缓冲。创建后不可变, 可被多个线程共享。
+ * </p>
+ * <pre>{@code
+ * PreparedFormatter formatter = FormatTypeEnum.PAD.prepare("8", "0");
+ * StringBuilder output = new StringBuilder();
+ * formatter.formatTo(123, output);    // 00000123
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextFormatType#prepare(String...)
+ */
+@FunctionalInterface
+public interface PreparedFormatter {
+
+	/**
+	 * 格式化值并附加到输出缓冲, 结果与 {@link TextFormatType#formatValue(Object, String...)} 一致(结果为null时不附加内容)
+	 * @param value 占位值
+	 * @param output 输出缓冲
+	 */
+	void formatTo(Object value, StringBuilder output);
+}
@@ -0,0 +1,59 @@
+package com.honzel.core.util.text;
+
+/**
+ * 渲染记录(注册渲染监听器时使用)
+ * <p>
+ * 每个线程一个记录, 按嵌套层数只在最外层渲染结束时回调监听器, 嵌套渲染的反射取值次数计入最外层。
+ * </p>
+ *
+ * @author honzel
+ * @see TextRenderListener
+ */
+final class RenderRecorder {
+
+	private static final ThreadLocal<RenderRecorder> RECORDERS = ThreadLocal.withInitial(RenderRecorder::new);
+	/**
+	 * 正在进行的渲染层数
+	 */
+	private int depth;
+	/**
+	 * 最外层渲染开始后通过反射等通用方式取值的次数
+	 */
+	private int slowPathCount;
+
+	private RenderRecorder() {
+	}
+
+	/**
+	 * 开始渲染
+	 * @return 当前线程的渲染记录
+	 */
+	static RenderRecorder enter() {
+		RenderRecorder recorder = RECORDERS.get();
+		if (recorder.depth ++ == 0) {
+			recorder.slowPathCount = 0;
+		}
+		return recorder;
+	}
+
+	/**
+	 * 记录一次通过反射等通用方式的取值
+	 */
+	static void recordSlowPath() {
+		RECORDERS.get().slowPathCount ++;
+	}
+
+	/**
+	 * 结束渲染, 最外层渲染结束时回调监听器
+	 * @param listener     渲染监听器
+	 * @param pattern      模板内容
+	 * @param compiled     是否使用已编译的模板渲染
+	 * @param startNanos   开始时间
+	 * @param outputLength 输出的字符数, 渲染异常时为-1
+	 */
+	void exit(TextRenderListener listener, String pattern, boolean compiled, long startNanos, long outputLength) {
+		if (-- depth == 0) {
+			listener.onRender(pattern, compiled, System.nanoTime() - startNanos, outputLength, slowPathCount);
+		}
+	}
+}
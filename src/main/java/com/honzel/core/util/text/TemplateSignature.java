@@ -0,0 +1,266 @@
+package com.honzel.core.util.text;
+
+import com.honzel.core.util.resolver.Resolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.honzel.core.util.text.TextUtils.*;
+
+/**
+ * 模板签名
+ * <p>
+ * 模板中引用的参数信息: 属性占位符的键、按位置取值的占位符数量、配置属性({@code ${$xxx}})及映射表达式中的嵌套模板,
+ * 解析一次后不可变, 可被多个线程共享。{@link TextUtils#parseParamMap} 等方法使用签名直接取值, 不再重复解析模板。
+ * </p>
+ * <pre>{@code
+ * TemplateSignature signature = TextUtils.getTemplateSignature("${name}, ${status[#1=$(reason)]}, ${$receiver}");
+ * signature.getRequiredKeys();    // [name, status, reason]
+ * signature.getConfigKeys();      // [receiver]
+ * signature.getNestedPatterns();  // [$(reason)]
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextTemplate#getSignature()
+ */
+public final class TemplateSignature {
+
+	private final String pattern;
+
+	private final boolean alternateHolderEnabled;
+
+	private final boolean simplified;
+	/**
+	 * 取值项(含嵌套模板的取值项), 按解析顺序排列
+	 */
+	private final Slot[] slots;
+
+	private final List<String> requiredKeys;
+
+	private final int positionalCount;
+
+	private final List<String> configKeys;
+
+	private final List<String> nestedPatterns;
+
+	private TemplateSignature(String pattern, boolean alternateHolderEnabled, boolean simplified, Collector collector, int positionalCount) {
+		this.pattern = pattern;
+		this.alternateHolderEnabled = alternateHolderEnabled;
+		this.simplified = simplified;
+		this.slots = collector.slots.toArray(new Slot[0]);
+		this.requiredKeys = Collections.unmodifiableList(new ArrayList<>(collector.requiredKeys));
+		this.positionalCount = positionalCount;
+		this.configKeys = Collections.unmodifiableList(new ArrayList<>(collector.configKeys));
+		this.nestedPatterns = Collections.unmodifiableList(collector.nestedPatterns);
+	}
+
+	/**
+	 * 解析模板签名, 解析过程与 TextUtils.parseParamMap0 一致
+	 *
+	 * @param pattern                模板内容
+	 * @param alternateHolderEnabled 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 * @param simplified             是否简化占位符（即占位符不带$)
+	 * @return 模板签名
+	 */
+	static TemplateSignature parse(String pattern, boolean alternateHolderEnabled, boolean simplified) {
+		Collector collector = new Collector();
+		int positionalCount = collect(collector, pattern, alternateHolderEnabled, simplified);
+		return new TemplateSignature(pattern, alternateHolderEnabled, simplified, collector, positionalCount);
+	}
+
+	/**
+	 * 收集模板的取值项
+	 * @return 返回模板按位置取值的占位符数量
+	 */
+	private static int collect(Collector collector, String pattern, boolean alternateHolderEnabled, boolean simplified) {
+		if (isNormalText(pattern, alternateHolderEnabled, simplified)) {
+			return 0;
+		}
+		Resolver resolver = createResolver(alternateHolderEnabled, simplified);
+		char holder = getHolderStartChar(alternateHolderEnabled, simplified);
+		resolver.reset(pattern).useTypes(HOLDER_FLAG_TYPE);
+		int offset = 0;
+		while (resolver.hasNext()) {
+			if (resolver.isInTokens()) {
+				if (!simplified && pattern.charAt(resolver.getStart()) != holder) {
+					// 跳过$符号
+					resolver.reset(resolver.getStart(false));
+					continue;
+				}
+				resolver.resetToCurrent(simplified ? 0 : 1).useTokens(BRACKET_START);
+				if (resolver.hasNext(BRACKET_START + SEMICOLON)) {
+					if (resolver.endsInTokens(SEMICOLON)) {
+						resolver.hasNext();
+					}
+					if (!resolver.isInTokens() && resolver.isEmpty() && !resolver.isLast()) {
+						// 忽略空串解析下一部分
+						resolver.hasNext();
+					}
+				}
+				if (resolver.isInTokens() && pattern.charAt(resolver.getStart()) != EXPR_FLAG) {
+					// 前置常量串
+					resolver.hasNext();
+				}
+				if (resolver.isInTokens()) {
+					// 空key
+					collector.slots.add(new Slot(null, null, -1, offset ++));
+				} else {
+					if (!pattern.startsWith(HOLDER_FLAG, resolver.getStart())) {
+						// 属性值占位符
+						String key = resolver.next();
+						int index = resolver.nextInt();
+						collector.slots.add(new Slot(key, resolver.next(false, true), index, offset ++));
+						if (index < 0) {
+							// 数字属性名为按位置取值
+							collector.requiredKeys.add(key);
+						}
+					} else {
+						// 配置属性
+						collector.configKeys.add(pattern.substring(resolver.getStart() + 1, resolver.getEnd()));
+					}
+					resolver.hasNext();
+				}
+				// 表达式
+				int outerTerminal = resolver.getTerminal();
+				while (resolver.isInTokens() && resolver.getInput().charAt(resolver.getStart()) == EXPR_FLAG) {
+					resolver.resetToCurrent(1).useTokens(EQUAL + SEMICOLON);
+					boolean first = true;
+					while (resolver.hasNext()) {
+						if (first) {
+							if (resolver.endsInTokens(SEMICOLON)) {
+								resolver.hasNext();
+							}
+							first = false;
+						}
+						if (resolver.isLast() || resolver.endsInTokens(EQUAL) && resolver.hasNext(SEMICOLON)) {
+							// 嵌套模板
+							String nestedPattern = resolver.next();
+							if (!isNormalText(nestedPattern, !alternateHolderEnabled, simplified)) {
+								collector.nestedPatterns.add(nestedPattern);
+							}
+							collect(collector, nestedPattern, !alternateHolderEnabled, simplified);
+						}
+					}
+					resolver.useTerminal(outerTerminal).useTokens(BRACKET_START).hasNext();
+				}
+				resolver.resetToBeyond(1).useTypes(HOLDER_FLAG_TYPE);
+			}
+		}
+		return offset;
+	}
+
+	/**
+	 * 获取每个参数占位符对应的值, 与 {@link TextUtils#parseParamMap(Map, String, Object)} 结果一致
+	 *
+	 * @param result 参数结果
+	 * @param params 占位符参数
+	 * @return 参数结果
+	 */
+	public Map<String, Object> parseParamMap(Map<String, Object> result, Object params) {
+		for (Slot slot : slots) {
+			if (slot.key == null) {
+				Object value = getItemValue(params, slot.offset);
+				result.putIfAbsent(value == params ? EMPTY : Integer.toString(slot.offset), value);
+			} else {
+				result.putIfAbsent(slot.key, getPropertyValue(slot.name, slot.index, params, slot.offset));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 模板内容
+	 * @return 模板内容
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * 是否使用备选占位符
+	 * @return 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 */
+	public boolean isAlternateHolderEnabled() {
+		return alternateHolderEnabled;
+	}
+
+	/**
+	 * 是否简化占位符
+	 * @return 是否简化占位符（即占位符不带$)
+	 */
+	public boolean isSimplified() {
+		return simplified;
+	}
+
+	/**
+	 * 属性占位符的键(含嵌套模板, 不含 ${0} 等数字索引), 按出现顺序去重
+	 * @return 不可修改的键列表
+	 */
+	public List<String> getRequiredKeys() {
+		return requiredKeys;
+	}
+
+	/**
+	 * 模板(不含嵌套模板)中按位置取值的占位符数量, 即使用数组或列表参数时用到的参数个数
+	 * @return 按位置取值的占位符数量
+	 */
+	public int getPositionalCount() {
+		return positionalCount;
+	}
+
+	/**
+	 * 配置属性名(不含$符号, 含嵌套模板), 按出现顺序去重
+	 * @return 不可修改的配置属性名列表
+	 */
+	public List<String> getConfigKeys() {
+		return configKeys;
+	}
+
+	/**
+	 * 映射表达式中包含占位符的嵌套模板, 按出现顺序排列
+	 * @return 不可修改的嵌套模板列表
+	 */
+	public List<String> getNestedPatterns() {
+		return nestedPatterns;
+	}
+
+	@Override
+	public String toString() {
+		return "TemplateSignature{requiredKeys=" + requiredKeys + ", positionalCount=" + positionalCount
+				+ ", configKeys=" + configKeys + ", nestedPatterns=" + nestedPatterns + '}';
+	}
+
+	/**
+	 * 解析时的收集结果
+	 */
+	private static final class Collector {
+		private final List<Slot> slots = new ArrayList<>();
+		private final Set<String> requiredKeys = new LinkedHashSet<>();
+		private final Set<String> configKeys = new LinkedHashSet<>();
+		private final List<String> nestedPatterns = new ArrayList<>();
+	}
+
+	/**
+	 * 取值项
+	 */
+	private static final class Slot {
+		/**
+		 * 结果键, 按位置取值时为null
+		 */
+		private final String key;
+		private final String name;
+		private final int index;
+		private final int offset;
+
+		Slot(String key, String name, int index, int offset) {
+			this.key = key;
+			this.name = name;
+			this.index = index;
+			this.offset = offset;
+		}
+	}
+}
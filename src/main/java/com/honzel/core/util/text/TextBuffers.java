@@ -0,0 +1,86 @@
+package com.honzel.core.util.text;
+
+/**
+ * 线程内复用的格式化缓冲
+ * <p>
+ * 每个线程按栈的方式缓存有限数量的 {@link StringBuilder}: 格式化开始时获取栈顶的空闲缓冲, 结束时归还,
+ * 映射表达式中的嵌套模板格式化时使用下一层的缓冲, 互不影响。嵌套层数超过缓存数量时使用新建的缓冲,
+ * 容量超过上限的缓冲归还时丢弃, 避免长期占用内存。
+ * </p>
+ * <pre>{@code
+ * StringBuilder content = TextBuffers.acquire(estimatedLength);
+ * try {
+ *     ...
+ *     return content.toString();
+ * } finally {
+ *     TextBuffers.release(content);
+ * }
+ * }</pre>
+ *
+ * @author honzel
+ */
+final class TextBuffers {
+
+	/**
+	 * 每个线程缓存的缓冲数量(即支持复用的嵌套层数)
+	 */
+	static final int MAX_POOLED_BUFFERS = 8;
+	/**
+	 * 归还时缓冲容量超过该值则丢弃
+	 */
+	static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+	/**
+	 * 新建缓冲的最小容量
+	 */
+	private static final int MIN_CAPACITY = 64;
+
+	private static final ThreadLocal<TextBuffers> BUFFERS = ThreadLocal.withInitial(TextBuffers::new);
+
+	private final StringBuilder[] buffers = new StringBuilder[MAX_POOLED_BUFFERS];
+	/**
+	 * 正在使用的缓冲数量(栈深度)
+	 */
+	private int depth;
+
+	private TextBuffers() {
+	}
+
+	/**
+	 * 获取空的格式化缓冲, 使用完毕后需调用 {@link #release(StringBuilder)} 归还
+	 * @param expectedLength 预计的内容长度
+	 * @return 格式化缓冲
+	 */
+	static StringBuilder acquire(int expectedLength) {
+		TextBuffers pool = BUFFERS.get();
+		int capacity = Math.max(expectedLength, MIN_CAPACITY);
+		if (pool.depth == MAX_POOLED_BUFFERS) {
+			// 嵌套过深时不复用
+			return new StringBuilder(capacity);
+		}
+		StringBuilder buffer = pool.buffers[pool.depth];
+		if (buffer == null) {
+			pool.buffers[pool.depth] = buffer = new StringBuilder(capacity);
+		} else {
+			buffer.setLength(0);
+			buffer.ensureCapacity(Math.min(capacity, MAX_RETAINED_CAPACITY));
+		}
+		pool.depth ++;
+		return buffer;
+	}
+
+	/**
+	 * 归还格式化缓冲, 需与 {@link #acquire(int)} 按后进先出的顺序成对调用
+	 * @param buffer 格式化缓冲
+	 */
+	static void release(StringBuilder buffer) {
+		TextBuffers pool = BUFFERS.get();
+		if (pool.depth == 0 || pool.buffers[pool.depth - 1] != buffer) {
+			// 嵌套过深时新建的缓冲
+			return;
+		}
+		pool.depth --;
+		if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+			pool.buffers[pool.depth] = null;
+		}
+	}
+}
@@ -0,0 +1,385 @@
+package com.honzel.core.util.text;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 字节输出缓冲
+ * <p>
+ * 追加的字符按指定字符集直接编码到内部可复用的字节数组, 不生成中间字符串及字符数组,
+ * 编码结果与 {@link String#getBytes(Charset)} 一致(无法编码的字符使用字符集的替换字节)。
+ * 作为 {@link TextTemplate#renderTo}/{@link TextUtils#formatTo} 的输出目标时, 模板中的常量文本直接写入预先编码的字节。
+ * </p>
+ * <pre>{@code
+ * TextByteSink body = new TextByteSink(StandardCharsets.UTF_8);
+ * template.renderTo(body, params);
+ * WebUtils.doRequest(conn, body);
+ * body.reset();    // 复用缓冲
+ * }</pre>
+ * 非线程安全。
+ *
+ * @author honzel
+ */
+public final class TextByteSink implements Appendable {
+
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private final Charset charset;
+	/**
+	 * 是否为UTF-8字符集(使用内置编码)
+	 */
+	private final boolean utf8;
+	/**
+	 * 非UTF-8字符集的编码器
+	 */
+	private final CharsetEncoder encoder;
+	/**
+	 * 分段编码与整体编码结果不一致的字符集(如带字节顺序标记的UTF-16)先缓存字符, 取字节时再整体编码
+	 */
+	private final StringBuilder deferred;
+
+	private byte[] bytes;
+
+	private int size;
+	/**
+	 * 尚未编码的高代理字符, 等待与下一个低代理字符组成完整的字符
+	 */
+	private char pendingHighSurrogate;
+
+	/**
+	 * 创建UTF-8字节输出缓冲
+	 */
+	public TextByteSink() {
+		this(StandardCharsets.UTF_8, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * 创建字节输出缓冲
+	 * @param charset 字符集
+	 */
+	public TextByteSink(Charset charset) {
+		this(charset, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * 创建字节输出缓冲
+	 * @param charset 字符集
+	 * @param initialCapacity 初始字节容量
+	 */
+	public TextByteSink(Charset charset, int initialCapacity) {
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("the initial capacity cannot be negative: " + initialCapacity);
+		}
+		this.charset = Objects.requireNonNull(charset, "charset");
+		this.utf8 = StandardCharsets.UTF_8.equals(charset);
+		this.encoder = utf8 ? null : charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.deferred = utf8 || isSegmentEncodable(charset) ? null : new StringBuilder();
+		this.bytes = new byte[initialCapacity];
+	}
+
+	private static boolean isSegmentEncodable(Charset charset) {
+		String segment = "a\u4e2d";
+		byte[] bytes = segment.getBytes(charset);
+		byte[] doubleBytes = (segment + segment).getBytes(charset);
+		return doubleBytes.length == bytes.length << 1
+				&& Arrays.equals(bytes, Arrays.copyOfRange(doubleBytes, 0, bytes.length))
+				&& Arrays.equals(bytes, Arrays.copyOfRange(doubleBytes, bytes.length, doubleBytes.length));
+	}
+
+	@Override
+	public TextByteSink append(CharSequence csq) {
+		if (csq == null) {
+			csq = "null";
+		}
+		return append(csq, 0, csq.length());
+	}
+
+	@Override
+	public TextByteSink append(CharSequence csq, int start, int end) {
+		if (csq == null) {
+			csq = "null";
+		}
+		if (start < 0 || start > end || end > csq.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + csq.length());
+		}
+		if (start == end) {
+			return this;
+		}
+		if (deferred != null) {
+			deferred.append(csq, start, end);
+			return this;
+		}
+		if (pendingHighSurrogate != 0) {
+			char high = pendingHighSurrogate;
+			pendingHighSurrogate = 0;
+			if (Character.isLowSurrogate(csq.charAt(start))) {
+				encode(new char[] {high, csq.charAt(start)}, 0, 2);
+				start ++;
+			} else {
+				encodeMalformed(high);
+			}
+		}
+		if (start < end && Character.isHighSurrogate(csq.charAt(end - 1))) {
+			// 最后一个高代理字符等待下一次追加
+			pendingHighSurrogate = csq.charAt(-- end);
+		}
+		if (start < end) {
+			if (utf8) {
+				encodeUtf8(csq, start, end);
+			} else {
+				encode(CharBuffer.wrap(csq, start, end));
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public TextByteSink append(char c) {
+		if (deferred != null) {
+			deferred.append(c);
+			return this;
+		}
+		if (pendingHighSurrogate != 0) {
+			char high = pendingHighSurrogate;
+			pendingHighSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				encode(new char[] {high, c}, 0, 2);
+				return this;
+			}
+			encodeMalformed(high);
+		}
+		if (Character.isHighSurrogate(c)) {
+			pendingHighSurrogate = c;
+		} else if (utf8 && c < 0x80) {
+			ensureCapacity(size + 1);
+			bytes[size ++] = (byte) c;
+		} else {
+			encode(new char[] {c}, 0, 1);
+		}
+		return this;
+	}
+
+	/**
+	 * 常量文本预先编码使用的字符集
+	 * @return 字符集, 不支持分段编码时返回null
+	 */
+	Charset literalCharset() {
+		return deferred == null ? charset : null;
+	}
+
+	/**
+	 * 追加已编码的常量文本
+	 * @param encoded 按当前字符集编码后的字节
+	 * @param text 原文本, 与未完成的代理字符组合时使用
+	 */
+	void appendEncoded(byte[] encoded, CharSequence text) {
+		if (pendingHighSurrogate != 0) {
+			// 需要与前面的字符一起编码
+			append(text);
+			return;
+		}
+		int length = encoded.length;
+		ensureCapacity(size + length);
+		System.arraycopy(encoded, 0, bytes, size, length);
+		size += length;
+	}
+
+	/**
+	 * 追加字节
+	 * @param src 字节数组
+	 * @param offset 开始位置
+	 * @param length 字节长度
+	 * @return 当前对象
+	 */
+	public TextByteSink write(byte[] src, int offset, int length) {
+		flushPending();
+		ensureCapacity(size + length);
+		System.arraycopy(src, offset, bytes, size, length);
+		size += length;
+		return this;
+	}
+
+	/**
+	 * 字符集
+	 * @return 字符集
+	 */
+	public Charset charset() {
+		return charset;
+	}
+
+	/**
+	 * 已编码的字节数
+	 * @return 字节数
+	 */
+	public int size() {
+		flushPending();
+		return size;
+	}
+
+	/**
+	 * 内部字节数组(有效内容为 [0, {@link #size()}) ), 缓冲复用或扩容后内容会改变
+	 * @return 内部字节数组
+	 */
+	public byte[] array() {
+		flushPending();
+		return bytes;
+	}
+
+	/**
+	 * 复制已编码的字节
+	 * @return 字节数组
+	 */
+	public byte[] toByteArray() {
+		flushPending();
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * 包装已编码内容的只读字节缓冲(共享内部字节数组, 不复制)
+	 * @return 字节缓冲, position为0, limit为字节数
+	 */
+	public ByteBuffer toByteBuffer() {
+		flushPending();
+		return ByteBuffer.wrap(bytes, 0, size).asReadOnlyBuffer();
+	}
+
+	/**
+	 * 把已编码的字节写入字节缓冲
+	 * @param target 目标字节缓冲
+	 * @return 目标字节缓冲
+	 * @throws java.nio.BufferOverflowException 剩余空间不足
+	 */
+	public ByteBuffer writeTo(ByteBuffer target) {
+		flushPending();
+		return target.put(bytes, 0, size);
+	}
+
+	/**
+	 * 把已编码的字节写入输出流
+	 * @param out 输出流
+	 * @throws IOException 输出异常
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		flushPending();
+		out.write(bytes, 0, size);
+	}
+
+	/**
+	 * 清空内容以便复用缓冲
+	 * @return 当前对象
+	 */
+	public TextByteSink reset() {
+		size = 0;
+		pendingHighSurrogate = 0;
+		if (deferred != null) {
+			deferred.setLength(0);
+		}
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		flushPending();
+		return new String(bytes, 0, size, charset);
+	}
+
+	private void flushPending() {
+		if (deferred != null && deferred.length() > 0) {
+			byte[] encoded = deferred.toString().getBytes(charset);
+			deferred.setLength(0);
+			ensureCapacity(size + encoded.length);
+			System.arraycopy(encoded, 0, bytes, size, encoded.length);
+			size += encoded.length;
+		}
+		if (pendingHighSurrogate != 0) {
+			char high = pendingHighSurrogate;
+			pendingHighSurrogate = 0;
+			encodeMalformed(high);
+		}
+	}
+
+	private void encodeMalformed(char c) {
+		encode(new char[] {c}, 0, 1);
+	}
+
+	private void encode(char[] chars, int offset, int length) {
+		if (utf8) {
+			encodeUtf8(CharBuffer.wrap(chars), offset, offset + length);
+		} else {
+			encode(CharBuffer.wrap(chars, offset, length));
+		}
+	}
+
+	/**
+	 * UTF-8编码, 孤立的代理字符编码为'?'(与String.getBytes一致)
+	 */
+	private void encodeUtf8(CharSequence csq, int start, int end) {
+		// 每个字符最多3个字节(代理对2个字符4个字节)
+		ensureCapacity(size + (end - start) * 3);
+		byte[] buf = bytes;
+		int pos = size;
+		for (int i = start; i < end; i++) {
+			char c = csq.charAt(i);
+			if (c < 0x80) {
+				buf[pos ++] = (byte) c;
+			} else if (c < 0x800) {
+				buf[pos ++] = (byte) (0xc0 | (c >> 6));
+				buf[pos ++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				char low;
+				if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(low = csq.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, low);
+					buf[pos ++] = (byte) (0xf0 | (codePoint >> 18));
+					buf[pos ++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					buf[pos ++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					buf[pos ++] = (byte) (0x80 | (codePoint & 0x3f));
+					i ++;
+				} else {
+					buf[pos ++] = '?';
+				}
+			} else {
+				buf[pos ++] = (byte) (0xe0 | (c >> 12));
+				buf[pos ++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buf[pos ++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		size = pos;
+	}
+
+	/**
+	 * 使用字符集编码器编码
+	 */
+	private void encode(CharBuffer input) {
+		ensureCapacity(size + (int) Math.ceil(input.remaining() * (double) encoder.averageBytesPerChar()));
+		encoder.reset();
+		while (true) {
+			ByteBuffer output = ByteBuffer.wrap(bytes, size, bytes.length - size);
+			CoderResult result = encoder.encode(input, output, true);
+			if (!result.isOverflow()) {
+				result = encoder.flush(output);
+			}
+			size = output.position();
+			if (!result.isOverflow()) {
+				break;
+			}
+			ensureCapacity(bytes.length + Math.max(16, (int) Math.ceil(input.remaining() * (double) encoder.maxBytesPerChar())));
+		}
+	}
+
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(minCapacity, bytes.length << 1));
+		}
+	}
+}
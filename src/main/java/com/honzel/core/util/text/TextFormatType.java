@@ -1,5 +1,6 @@
 package com.honzel.core.util.text;
 
+import java.io.IOException;
 
 /**
  * 文本格式化类型
@@ -39,6 +40,25 @@ public interface TextFormatType {
         return TextUtils.toString(value);
     }
 
+    /**
+     * 预处理格式化参数(模板编译时调用一次)
+     * <p>
+     * 默认实现每次渲染时调用 {@link #formatValue(Object, String...)}, 自定义格式化类型可重写该方法预先解析参数。
+     * 参数不合法时应返回延迟到渲染时报错的格式化器, 以保证与未编译的模板行为一致。
+     * </p>
+     *
+     * @param parameters 参数
+     * @return 格式化器
+     */
+    default PreparedFormatter prepare(String... parameters) {
+        return (value, output) -> {
+            String formattedValue = formatValue(value, parameters);
+            if (formattedValue != null) {
+                output.append(formattedValue);
+            }
+        };
+    }
+
     /**
      * 添加格式化值
      *
@@ -50,5 +70,26 @@ public interface TextFormatType {
         formattedContent.append(formattedValue);
     }
 
+    /**
+     * 添加格式化值到输出目标(流式输出时使用)
+     * <p>
+     * 默认实现委托给 {@link #appendValue(StringBuilder, String, boolean)}, 自定义格式化类型可重写该方法直接写入输出目标。
+     * </p>
+     *
+     * @param output         输出目标
+     * @param formattedValue 格式化后的值
+     * @param nonForce       非强制
+     * @param lastChar       输出目标中最后一个字符, 尚未输出内容时为-1
+     * @throws IOException 输出异常
+     */
+    default void appendValue(Appendable output, String formattedValue, boolean nonForce, int lastChar) throws IOException {
+        StringBuilder formattedContent = new StringBuilder(formattedValue.length() + 1);
+        if (lastChar >= 0) {
+            formattedContent.append((char) lastChar);
+        }
+        appendValue(formattedContent, formattedValue, nonForce);
+        output.append(formattedContent, lastChar >= 0 ? 1 : 0, formattedContent.length());
+    }
+
 
 }
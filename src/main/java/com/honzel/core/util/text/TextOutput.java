@@ -0,0 +1,128 @@
+package com.honzel.core.util.text;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * 模板渲染输出
+ * <p>
+ * 包装调用方提供的输出目标, 记录已输出的字符数及最后一个字符,
+ * 供前缀取舍、默认分隔符及格式化类型的前置字符判断使用。
+ * </p>
+ *
+ * @author honzel
+ */
+final class TextOutput implements Appendable {
+
+	private final Appendable out;
+	/**
+	 * 输出目标为Writer时直接写入字符串区间, 避免 {@link Writer#append(CharSequence, int, int)} 创建子串
+	 */
+	private final Writer writer;
+	/**
+	 * 输出目标为字节输出缓冲时常量文本直接写入预先编码的字节
+	 */
+	private final TextByteSink byteSink;
+
+	private int lastChar = -1;
+
+	private long count;
+	/**
+	 * 渲染时复用的格式化缓冲
+	 */
+	private StringBuilder scratch;
+
+	TextOutput(Appendable out) {
+		this.out = out;
+		this.writer = out instanceof Writer ? (Writer) out : null;
+		this.byteSink = out instanceof TextByteSink ? (TextByteSink) out : null;
+	}
+
+	/**
+	 * 字节输出的字符集
+	 * @return 输出目标为支持常量文本预先编码的字节输出缓冲时返回其字符集, 否则返回null
+	 */
+	Charset byteCharset() {
+		return byteSink != null ? byteSink.literalCharset() : null;
+	}
+
+	/**
+	 * 附加已编码的常量文本(仅输出目标为字节输出缓冲时使用)
+	 * @param literal 常量文本(非空)
+	 * @param encoded 按字节输出字符集编码后的字节
+	 */
+	void appendEncoded(String literal, byte[] encoded) {
+		byteSink.appendEncoded(encoded, literal);
+		count += literal.length();
+		lastChar = literal.charAt(literal.length() - 1);
+	}
+
+	@Override
+	public TextOutput append(CharSequence csq) throws IOException {
+		if (csq == null) {
+			csq = "null";
+		}
+		int len = csq.length();
+		if (len > 0) {
+			out.append(csq);
+			count += len;
+			lastChar = csq.charAt(len - 1);
+		}
+		return this;
+	}
+
+	@Override
+	public TextOutput append(CharSequence csq, int start, int end) throws IOException {
+		if (csq == null) {
+			csq = "null";
+		}
+		if (end > start) {
+			if (writer != null && csq instanceof String) {
+				writer.write((String) csq, start, end - start);
+			} else {
+				out.append(csq, start, end);
+			}
+			count += end - start;
+			lastChar = csq.charAt(end - 1);
+		}
+		return this;
+	}
+
+	@Override
+	public TextOutput append(char c) throws IOException {
+		out.append(c);
+		count ++;
+		lastChar = c;
+		return this;
+	}
+
+	/**
+	 * 获取清空后的格式化缓冲, 下次获取前需使用完毕
+	 * @return 格式化缓冲
+	 */
+	StringBuilder scratch() {
+		if (scratch == null) {
+			scratch = new StringBuilder();
+		} else {
+			scratch.setLength(0);
+		}
+		return scratch;
+	}
+
+	/**
+	 * 最后输出的字符
+	 * @return 最后输出的字符, 尚未输出时返回-1
+	 */
+	int lastChar() {
+		return lastChar;
+	}
+
+	/**
+	 * 已输出的字符数
+	 * @return 已输出的字符数
+	 */
+	long count() {
+		return count;
+	}
+}
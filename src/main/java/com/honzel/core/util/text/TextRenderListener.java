@@ -0,0 +1,33 @@
+package com.honzel.core.util.text;
+
+/**
+ * 模板渲染监听器
+ * <p>
+ * 通过 {@link TextUtils#setRenderListener(TextRenderListener)} 注册后, 每次最外层的格式化或模板渲染完成时回调,
+ * 映射表达式中嵌套模板的渲染计入外层模板。未注册监听器时不做任何记录。
+ * 监听器在渲染线程中同步调用, 实现需线程安全并尽量轻量。
+ * </p>
+ * <pre>{@code
+ * TextRenderStatistics statistics = new TextRenderStatistics();
+ * TextUtils.setRenderListener(statistics);
+ * ...
+ * statistics.getTopTemplates(20);    // 总耗时最多的模板
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextRenderStatistics
+ */
+@FunctionalInterface
+public interface TextRenderListener {
+
+	/**
+	 * 渲染完成
+	 *
+	 * @param pattern       模板内容
+	 * @param compiled      是否使用已编译的模板渲染(模板缓存命中或直接使用 {@link TextTemplate} 渲染)
+	 * @param elapsedNanos  渲染耗时(纳秒)
+	 * @param outputLength  输出的字符数, 渲染异常时为-1
+	 * @param slowPathCount 通过反射等通用方式(非绑定的getter)取值的次数
+	 */
+	void onRender(String pattern, boolean compiled, long elapsedNanos, long outputLength, int slowPathCount);
+}
@@ -0,0 +1,247 @@
+package com.honzel.core.util.text;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按模板汇总的渲染统计
+ * <p>
+ * 记录每个模板的渲染次数、总耗时、耗时分位数、输出字符数、反射取值次数及编译模板使用比例(模板缓存命中率),
+ * 耗时分位数按2的幂次分桶近似计算。模板数量达到上限后不再记录新的模板, 以避免动态拼接的模板占用内存。
+ * </p>
+ * <pre>{@code
+ * TextRenderStatistics statistics = new TextRenderStatistics();
+ * TextUtils.setRenderListener(statistics);
+ * ...
+ * for (TextRenderStatistics.TemplateStatistics item : statistics.getTopTemplates(20)) {
+ *     log.info("{} count={} total={}ms p99={}us", item.getPattern(), item.getRenderCount(),
+ *             item.getTotalNanos() / 1000000, item.getPercentileNanos(0.99) / 1000);
+ * }
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextRenderListener
+ */
+public final class TextRenderStatistics implements TextRenderListener {
+
+	/**
+	 * 默认最多记录的模板数量
+	 */
+	public static final int DEFAULT_MAXIMUM_TEMPLATES = 4096;
+
+	private final Map<String, TemplateStatistics> templates = new ConcurrentHashMap<>();
+
+	private final int maximumTemplates;
+	/**
+	 * 模板数量达到上限后未记录的渲染次数
+	 */
+	private final LongAdder droppedCount = new LongAdder();
+
+	public TextRenderStatistics() {
+		this(DEFAULT_MAXIMUM_TEMPLATES);
+	}
+
+	/**
+	 * @param maximumTemplates 最多记录的模板数量
+	 */
+	public TextRenderStatistics(int maximumTemplates) {
+		if (maximumTemplates < 0) {
+			throw new IllegalArgumentException("the maximum templates cannot be negative: " + maximumTemplates);
+		}
+		this.maximumTemplates = maximumTemplates;
+	}
+
+	@Override
+	public void onRender(String pattern, boolean compiled, long elapsedNanos, long outputLength, int slowPathCount) {
+		if (pattern == null) {
+			return;
+		}
+		TemplateStatistics statistics = templates.get(pattern);
+		if (statistics == null) {
+			if (templates.size() >= maximumTemplates) {
+				droppedCount.increment();
+				return;
+			}
+			statistics = templates.computeIfAbsent(pattern, TemplateStatistics::new);
+		}
+		statistics.record(compiled, elapsedNanos, outputLength, slowPathCount);
+	}
+
+	/**
+	 * 获取模板的统计
+	 * @param pattern 模板内容
+	 * @return 模板的统计, 没有记录时返回null
+	 */
+	public TemplateStatistics getTemplate(String pattern) {
+		return templates.get(pattern);
+	}
+
+	/**
+	 * 总耗时最多的模板
+	 * @param limit 最多返回的数量
+	 * @return 按总耗时倒序排列的模板统计
+	 */
+	public List<TemplateStatistics> getTopTemplates(int limit) {
+		List<TemplateStatistics> result = new ArrayList<>(templates.values());
+		result.sort(Comparator.comparingLong(TemplateStatistics::getTotalNanos).reversed());
+		return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+	}
+
+	/**
+	 * 模板数量达到上限后未记录的渲染次数
+	 * @return 未记录的渲染次数
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	/**
+	 * 清空统计
+	 */
+	public void reset() {
+		templates.clear();
+		droppedCount.reset();
+	}
+
+	/**
+	 * 单个模板的渲染统计
+	 */
+	public static final class TemplateStatistics {
+		/**
+		 * 耗时分桶数量: 第i个桶记录耗时小于2^i纳秒(且不小于2^(i-1)纳秒)的渲染次数
+		 */
+		private static final int BUCKETS = 64;
+
+		private final String pattern;
+		private final LongAdder renderCount = new LongAdder();
+		private final LongAdder compiledCount = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder outputLength = new LongAdder();
+		private final LongAdder slowPathCount = new LongAdder();
+		private final LongAdder failureCount = new LongAdder();
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		TemplateStatistics(String pattern) {
+			this.pattern = pattern;
+		}
+
+		void record(boolean compiled, long elapsedNanos, long length, int slowPaths) {
+			renderCount.increment();
+			if (compiled) {
+				compiledCount.increment();
+			}
+			elapsedNanos = Math.max(elapsedNanos, 0);
+			totalNanos.add(elapsedNanos);
+			if (length >= 0) {
+				outputLength.add(length);
+			} else {
+				failureCount.increment();
+			}
+			if (slowPaths > 0) {
+				slowPathCount.add(slowPaths);
+			}
+			histogram.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(elapsedNanos)));
+		}
+
+		/**
+		 * 模板内容
+		 * @return 模板内容
+		 */
+		public String getPattern() {
+			return pattern;
+		}
+
+		/**
+		 * 渲染次数
+		 * @return 渲染次数
+		 */
+		public long getRenderCount() {
+			return renderCount.sum();
+		}
+
+		/**
+		 * 总耗时
+		 * @return 总耗时(纳秒)
+		 */
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		/**
+		 * 平均耗时
+		 * @return 平均耗时(纳秒), 没有渲染时为0
+		 */
+		public long getAverageNanos() {
+			long count = getRenderCount();
+			return count > 0 ? getTotalNanos() / count : 0;
+		}
+
+		/**
+		 * 耗时分位数(近似值, 为所在分桶的上限)
+		 * @param percentile 分位, 如0.99
+		 * @return 耗时分位数(纳秒), 没有渲染时为0
+		 */
+		public long getPercentileNanos(double percentile) {
+			long[] counts = new long[BUCKETS];
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				count += counts[i] = histogram.get(i);
+			}
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 1)));
+			for (int i = 0; i < BUCKETS; i++) {
+				if ((rank -= counts[i]) <= 0) {
+					return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+
+		/**
+		 * 输出的总字符数
+		 * @return 输出的总字符数
+		 */
+		public long getOutputLength() {
+			return outputLength.sum();
+		}
+
+		/**
+		 * 通过反射等通用方式取值的总次数
+		 * @return 通过反射等通用方式取值的总次数
+		 */
+		public long getSlowPathCount() {
+			return slowPathCount.sum();
+		}
+
+		/**
+		 * 渲染异常的次数
+		 * @return 渲染异常的次数
+		 */
+		public long getFailureCount() {
+			return failureCount.sum();
+		}
+
+		/**
+		 * 使用已编译模板渲染的比例(即模板缓存命中率)
+		 * @return 使用已编译模板渲染的比例, 没有渲染时为0
+		 */
+		public double getCompiledRatio() {
+			long count = getRenderCount();
+			return count > 0 ? (double) compiledCount.sum() / count : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "TemplateStatistics{pattern=" + pattern + ", renderCount=" + getRenderCount() + ", totalNanos=" + getTotalNanos()
+					+ ", p99Nanos=" + getPercentileNanos(0.99) + ", outputLength=" + getOutputLength()
+					+ ", slowPathCount=" + getSlowPathCount() + ", compiledRatio=" + getCompiledRatio() + '}';
+		}
+	}
+}
@@ -0,0 +1,1571 @@
+package com.honzel.core.util.text;
+
+import com.honzel.core.constant.ArrayConstants;
+import com.honzel.core.util.bean.BeanHelper;
+import com.honzel.core.util.bean.LambdaPropertyUtilsBean;
+import com.honzel.core.util.resolver.Resolver;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import static com.honzel.core.util.text.TextUtils.*;
+
+/**
+ * 预编译的文本模板
+ * <p>
+ * 将 {@link TextUtils#format}/{@link TextUtils#alternateFormat}/{@link TextUtils#simplifiedFormat}/
+ * {@link TextUtils#alternateSimplifiedFormat} 所使用的模板一次性解析成不可变的节点树
+ * (常量文本、占位符、格式化类型、映射表达式及前后缀片段), 渲染时只需遍历节点树,
+ * 不再重复创建解析器及解析模板, 渲染结果与对应的格式化方法完全一致。
+ * </p>
+ * <p>
+ * 模板中的格式化类型(如 {@code ${json;xxx}})在编译时确定, 编译后再注册的同名格式化类型不影响已编译的模板。
+ * 编译后的模板是线程安全的, 可以被多个线程共享使用。
+ * </p>
+ * <p>
+ * 渲染次数达到 {@link TextUtils#getSpecializeThreshold()} 时, 节点树组合成该模板专用的 {@link MethodHandle} 渲染器,
+ * 各节点的调用为绑定接收者的直接调用, 便于JIT内联整个渲染过程; 生成失败时继续遍历节点树渲染。
+ * </p>
+ * <pre>{@code
+ * TextTemplate template = TextTemplate.compile("您的订单${orderNo}已${status[#1=支付;2=退款]}", false, false);
+ * String content = template.render(order);
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextUtils#format(TextFormatType, String, Object, Object)
+ */
+public final class TextTemplate {
+
+	/**
+	 * 并行批量渲染时每个任务的最小参数数量
+	 */
+	private static final int MIN_BATCH_SIZE = 64;
+	/**
+	 * 映射表达式的常量键达到该数量时使用哈希定位
+	 */
+	private static final int HASH_DISPATCH_THRESHOLD = 4;
+
+	/**
+	 * 模板内容
+	 */
+	private final String pattern;
+	/**
+	 * 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 */
+	private final boolean alternateHolderEnabled;
+	/**
+	 * 是否简化占位符（即占位符不带$)
+	 */
+	private final boolean simplified;
+	/**
+	 * 按模板内容自动匹配的格式化类型
+	 */
+	private final TextFormatType defaultFormatType;
+	/**
+	 * 解析后的节点, 普通文本时为null
+	 */
+	private final Node[] nodes;
+	/**
+	 * 是否已绑定配置参数
+	 */
+	private final boolean configBound;
+	/**
+	 * 绑定的配置参数
+	 */
+	private final Object configParams;
+	/**
+	 * 模板签名, 首次使用时解析
+	 */
+	private volatile TemplateSignature signature;
+	/**
+	 * 渲染结果长度的估计值, 用于预设格式化缓冲的容量(多线程下只需近似值)
+	 */
+	private int estimatedLength;
+	/**
+	 * 遍历节点树渲染的次数(多线程下只需近似值)
+	 */
+	private int renderCount;
+	/**
+	 * 专用渲染器, 尚未生成时为null
+	 */
+	private volatile MethodHandle renderer;
+
+	private TextTemplate(String pattern, boolean alternateHolderEnabled, boolean simplified, Node[] nodes) {
+		this.pattern = pattern;
+		this.alternateHolderEnabled = alternateHolderEnabled;
+		this.simplified = simplified;
+		this.nodes = nodes;
+		this.defaultFormatType = lookupFormatType(pattern);
+		this.configBound = false;
+		this.configParams = null;
+		this.estimatedLength = pattern != null ? pattern.length() + (pattern.length() >> 1) : 0;
+	}
+
+	private TextTemplate(TextTemplate template, Node[] nodes, Object configParams) {
+		this.pattern = template.pattern;
+		this.alternateHolderEnabled = template.alternateHolderEnabled;
+		this.simplified = template.simplified;
+		this.nodes = nodes;
+		this.defaultFormatType = template.defaultFormatType;
+		this.configBound = true;
+		this.configParams = configParams;
+		this.signature = template.signature;
+		this.estimatedLength = template.estimatedLength;
+	}
+
+	/**
+	 * 编译模板
+	 *
+	 * @param pattern                模板内容
+	 * @param alternateHolderEnabled 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 * @param simplified             是否简化占位符（即占位符不带$)
+	 * @return 编译后的模板
+	 * @example
+	 * <pre>{@code
+	 * TextTemplate.compile("Hello, ${name}!", false, false);   // 同 TextUtils.format
+	 * TextTemplate.compile("Hello, $(name)!", true, false);    // 同 TextUtils.alternateFormat
+	 * TextTemplate.compile("Hello, {name}!", false, true);     // 同 TextUtils.simplifiedFormat
+	 * TextTemplate.compile("Hello, (name)!", true, true);      // 同 TextUtils.alternateSimplifiedFormat
+	 * }</pre>
+	 */
+	public static TextTemplate compile(String pattern, boolean alternateHolderEnabled, boolean simplified) {
+		if (isNormalText(pattern, alternateHolderEnabled, simplified)) {
+			// 普通文本
+			return new TextTemplate(pattern, alternateHolderEnabled, simplified, null);
+		}
+		List<Node> nodes = new ArrayList<>();
+		// 常量文本
+		StringBuilder literal = new StringBuilder();
+		// 使用解析器
+		Resolver resolver = createResolver(alternateHolderEnabled, simplified);
+		char holder = getHolderStartChar(alternateHolderEnabled, simplified);
+		// 使用$符号进行初步搜索定位解析
+		resolver.reset(pattern).useTypes(HOLDER_FLAG_TYPE);
+		// 参数偏移量, 使用数组参数进行格式化是使用到
+		int offset = 0;
+		while (resolver.hasNext()) {
+			if (resolver.isInTokens()) {
+				if (simplified || pattern.charAt(resolver.getStart()) == holder) {
+					if (literal.length() > 0) {
+						nodes.add(new LiteralNode(literal.toString()));
+						literal.setLength(0);
+					}
+					// 占位符
+					PlaceholderNode placeholder = compilePlaceholder(resolver, offset, alternateHolderEnabled, simplified);
+					if (placeholder.config == null) {
+						offset ++;
+					}
+					nodes.add(placeholder);
+				} else {
+					// 添加$符号
+					literal.append(HOLDER_FLAG);
+					resolver.reset(resolver.getStart(false));
+				}
+			} else {
+				// 非占位符时文本原样添加
+				resolver.appendTo(literal, false);
+			}
+		}
+		if (literal.length() > 0) {
+			nodes.add(new LiteralNode(literal.toString()));
+		}
+		return new TextTemplate(pattern, alternateHolderEnabled, simplified, nodes.toArray(new Node[0]));
+	}
+
+	/**
+	 * 获取模板内容
+	 * @return 模板内容
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * 是否使用备选占位符
+	 * @return 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 */
+	public boolean isAlternateHolderEnabled() {
+		return alternateHolderEnabled;
+	}
+
+	/**
+	 * 是否简化占位符
+	 * @return 是否简化占位符（即占位符不带$)
+	 */
+	public boolean isSimplified() {
+		return simplified;
+	}
+
+	/**
+	 * 获取模板签名(模板中引用的参数信息)
+	 * @return 模板签名
+	 */
+	public TemplateSignature getSignature() {
+		TemplateSignature current = signature;
+		if (current == null) {
+			signature = current = TemplateSignature.parse(pattern, alternateHolderEnabled, simplified);
+		}
+		return current;
+	}
+
+	/**
+	 * 绑定配置参数
+	 * <p>
+	 * 只引用配置属性({@code $$xxx})的占位符(映射表达式中的嵌套模板也不引用占位符参数)预先渲染为常量文本,
+	 * 之后每次渲染只处理引用占位符参数的部分, 适用于配置参数很少变化的场景, 配置参数变化后需要重新绑定。
+	 * 绑定后的模板渲染时总是使用绑定的配置参数, 忽略渲染方法传入的配置参数。
+	 * </p>
+	 * <p>
+	 * 没有指定格式化类型的占位符按模板自动匹配的格式化类型预先渲染, 使用其他格式化类型渲染时仍然逐次取值。
+	 * </p>
+	 * <pre>{@code
+	 * TextTemplate template = TextTemplate.compile("${$$tenant.name}: ${orderNo}", false, false).bindConfig(settings);
+	 * String content = template.render(order);
+	 * }</pre>
+	 *
+	 * @param configParams 配置参数对象
+	 * @return 绑定配置参数后的新模板
+	 */
+	public TextTemplate bindConfig(Object configParams) {
+		if (nodes == null) {
+			return new TextTemplate(this, null, configParams);
+		}
+		List<Node> boundNodes = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		for (Node node : nodes) {
+			if (node instanceof LiteralNode) {
+				literal.append(((LiteralNode) node).text);
+				continue;
+			}
+			PlaceholderNode placeholder = (PlaceholderNode) node;
+			// 指定格式化类型时渲染结果与传入的格式化类型无关
+			boolean typeIndependent = placeholder.formatType != null;
+			TextFormatType textFormatType = typeIndependent ? placeholder.formatType.type : defaultFormatType;
+			if (placeholder.isConfigConstant(textFormatType)) {
+				String text = format(new StringBuilder(), placeholder, textFormatType, configParams);
+				if (typeIndependent) {
+					literal.append(text);
+					continue;
+				}
+				node = new BoundNode(placeholder, textFormatType, text);
+			}
+			if (literal.length() > 0) {
+				boundNodes.add(new LiteralNode(literal.toString()));
+				literal.setLength(0);
+			}
+			boundNodes.add(node);
+		}
+		if (literal.length() > 0) {
+			boundNodes.add(new LiteralNode(literal.toString()));
+		}
+		return new TextTemplate(this, boundNodes.toArray(new Node[0]), configParams);
+	}
+
+	/**
+	 * 是否已绑定配置参数
+	 * @return 是否已绑定配置参数
+	 * @see #bindConfig(Object)
+	 */
+	public boolean isConfigBound() {
+		return configBound;
+	}
+
+	/**
+	 * 渲染模板, 自动检测数据格式类型
+	 *
+	 * @param params 占位符参数（可以是 Map、List、数组或普通对象）
+	 * @return 渲染后的内容
+	 */
+	public String render(Object params) {
+		return render(defaultFormatType, params, null);
+	}
+
+	/**
+	 * 渲染模板, 自动检测数据格式类型
+	 *
+	 * @param params       占位符参数（可以是 Map、List、数组或普通对象）
+	 * @param configParams 配置参数对象, 用于访问 {@code $$xxx} 配置属性
+	 * @return 渲染后的内容
+	 */
+	public String render(Object params, Object configParams) {
+		return render(defaultFormatType, params, configParams);
+	}
+
+	/**
+	 * 渲染模板
+	 *
+	 * @param textFormatType 数据格式类型
+	 * @param params         占位符参数（可以是 Map、List、数组或普通对象）
+	 * @param configParams   配置参数对象, 用于访问 {@code $$xxx} 配置属性
+	 * @return 渲染后的内容
+	 */
+	public String render(TextFormatType textFormatType, Object params, Object configParams) {
+		return format(textFormatType, configParams, params, null, null);
+	}
+
+	/**
+	 * 渲染模板到输出目标, 自动检测数据格式类型
+	 *
+	 * @param out    输出目标(如 Writer、StringBuilder)
+	 * @param params 占位符参数（可以是 Map、List、数组或普通对象）
+	 * @param <A>    输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public <A extends Appendable> A renderTo(A out, Object params) throws IOException {
+		return renderTo(out, defaultFormatType, params, null);
+	}
+
+	/**
+	 * 渲染模板到输出目标, 自动检测数据格式类型
+	 *
+	 * @param out          输出目标(如 Writer、StringBuilder)
+	 * @param params       占位符参数（可以是 Map、List、数组或普通对象）
+	 * @param configParams 配置参数对象, 用于访问 {@code $$xxx} 配置属性
+	 * @param <A>          输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public <A extends Appendable> A renderTo(A out, Object params, Object configParams) throws IOException {
+		return renderTo(out, defaultFormatType, params, configParams);
+	}
+
+	/**
+	 * 渲染模板到输出目标
+	 * <p>
+	 * 常量文本及格式化值(含JSON、XML等转义)直接写入输出目标, 不生成完整的中间字符串。
+	 * </p>
+	 *
+	 * @param out            输出目标(如 Writer、StringBuilder)
+	 * @param textFormatType 数据格式类型
+	 * @param params         占位符参数（可以是 Map、List、数组或普通对象）
+	 * @param configParams   配置参数对象, 用于访问 {@code $$xxx} 配置属性
+	 * @param <A>            输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public <A extends Appendable> A renderTo(A out, TextFormatType textFormatType, Object params, Object configParams) throws IOException {
+		TextRenderListener listener = TextUtils.getRenderListener();
+		if (listener == null) {
+			writeTo(out, textFormatType, params, configParams);
+			return out;
+		}
+		// 记录渲染
+		long startNanos = System.nanoTime();
+		RenderRecorder recorder = RenderRecorder.enter();
+		long outputLength = -1;
+		try {
+			outputLength = writeTo(out, textFormatType, params, configParams);
+			return out;
+		} finally {
+			recorder.exit(listener, pattern, true, startNanos, outputLength);
+		}
+	}
+
+	/**
+	 * 渲染模板并写入输出目标
+	 * @return 写入的字符数
+	 */
+	long writeTo(Appendable out, TextFormatType textFormatType, Object params, Object configParams) throws IOException {
+		TextOutput output = new TextOutput(out);
+		appendTo(output, textFormatType, configParams, params, null, null);
+		return output.count();
+	}
+
+	/**
+	 * 批量渲染模板, 自动检测数据格式类型
+	 *
+	 * @param paramsList 各项的占位符参数
+	 * @return 与参数顺序一致的渲染结果
+	 * @see #renderAll(TextFormatType, List, Object)
+	 */
+	public List<String> renderAll(List<?> paramsList) {
+		return renderAll(defaultFormatType, paramsList, null);
+	}
+
+	/**
+	 * 批量渲染模板
+	 * <p>
+	 * 参数数量达到 {@link TextUtils#getParallelFormatThreshold()} 时拆分到 ForkJoin 公共线程池并行渲染,
+	 * 每个拆分任务复用同一个输出缓冲, 结果按参数顺序返回。
+	 * </p>
+	 *
+	 * @param textFormatType 数据格式类型
+	 * @param paramsList     各项的占位符参数
+	 * @param configParams   配置参数对象, 用于访问 {@code $$xxx} 配置属性
+	 * @return 与参数顺序一致的渲染结果
+	 */
+	public List<String> renderAll(TextFormatType textFormatType, List<?> paramsList, Object configParams) {
+		Object[] items = paramsList.toArray();
+		String[] results = new String[items.length];
+		if (items.length >= Math.max(2, TextUtils.getParallelFormatThreshold())) {
+			int parallelism = ForkJoinPool.getCommonPoolParallelism();
+			int batchSize = Math.max(MIN_BATCH_SIZE, items.length / (parallelism << 3));
+			ForkJoinPool.commonPool().invoke(new RenderTask(this, textFormatType, configParams, items, results, 0, items.length, batchSize));
+		} else {
+			renderRange(textFormatType, configParams, items, results, 0, items.length);
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * 渲染指定范围的参数, 复用同一个输出缓冲
+	 */
+	private void renderRange(TextFormatType textFormatType, Object configParams, Object[] items, String[] results, int from, int to) {
+		if (nodes == null) {
+			// 普通文本
+			Arrays.fill(results, from, to, pattern);
+			return;
+		}
+		StringBuilder content = new StringBuilder(estimatedLength);
+		for (int i = from; i < to; i++) {
+			content.setLength(0);
+			TextRenderListener listener = TextUtils.getRenderListener();
+			if (listener == null) {
+				results[i] = format(content, textFormatType, configParams, items[i], null, null);
+				continue;
+			}
+			// 记录渲染
+			long startNanos = System.nanoTime();
+			RenderRecorder recorder = RenderRecorder.enter();
+			try {
+				results[i] = format(content, textFormatType, configParams, items[i], null, null);
+			} finally {
+				recorder.exit(listener, pattern, true, startNanos, results[i] != null ? results[i].length() : -1);
+			}
+		}
+	}
+
+	/**
+	 * 格式化, 与 TextUtils.format0 对应
+	 */
+	String format(TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) {
+		if (nodes == null) {
+			// 普通文本
+			return pattern;
+		}
+		TextRenderListener listener = TextUtils.getRenderListener();
+		if (listener == null) {
+			return formatBuffered(textFormatType, configParams, params, thisValue, thisIndex);
+		}
+		// 记录渲染(嵌套渲染及 TextUtils 中已记录的渲染只计入最外层)
+		long startNanos = System.nanoTime();
+		RenderRecorder recorder = RenderRecorder.enter();
+		String result = null;
+		try {
+			return result = formatBuffered(textFormatType, configParams, params, thisValue, thisIndex);
+		} finally {
+			recorder.exit(listener, pattern, true, startNanos, result != null ? result.length() : -1);
+		}
+	}
+
+	private String formatBuffered(TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) {
+		// 复用当前线程的格式化缓冲
+		StringBuilder content = TextBuffers.acquire(estimatedLength);
+		try {
+			return format(content, textFormatType, configParams, params, thisValue, thisIndex);
+		} finally {
+			TextBuffers.release(content);
+		}
+	}
+
+	private String format(StringBuilder content, TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) {
+		try {
+			appendTo(new TextOutput(content), textFormatType, configParams, params, thisValue, thisIndex);
+		} catch (IOException e) {
+			// StringBuilder不会抛出IO异常
+			throw new UncheckedIOException(e);
+		}
+		updateEstimatedLength(content.length());
+		return content.toString();
+	}
+
+	/**
+	 * 更新渲染结果长度的估计值: 结果更长时直接使用, 否则缓慢回落
+	 */
+	private void updateEstimatedLength(int length) {
+		int estimated = estimatedLength;
+		if (length > estimated) {
+			estimatedLength = length;
+		} else if (length < estimated) {
+			estimatedLength = estimated - ((estimated - length) >> 3);
+		}
+	}
+
+	/**
+	 * 单个节点渲染为字符串
+	 */
+	private static String format(StringBuilder content, Node node, TextFormatType textFormatType, Object configParams) {
+		try {
+			node.appendTo(new TextOutput(content), textFormatType, configParams, null, null, null);
+		} catch (IOException e) {
+			// StringBuilder不会抛出IO异常
+			throw new UncheckedIOException(e);
+		}
+		return content.toString();
+	}
+
+	/**
+	 * 附加渲染内容
+	 */
+	void appendTo(TextOutput out, TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) throws IOException {
+		if (nodes == null) {
+			if (pattern != null) {
+				out.append(pattern);
+			}
+			return;
+		}
+		if (configBound) {
+			// 使用绑定的配置参数
+			configParams = this.configParams;
+		}
+		MethodHandle current = renderer;
+		if (current == null && renderCount >= 0) {
+			int threshold = TextUtils.getSpecializeThreshold();
+			// 未启用(默认)时不计数
+			if (threshold != Integer.MAX_VALUE && ++ renderCount >= threshold) {
+				current = specialize();
+			}
+		}
+		if (current != null) {
+			try {
+				current.invokeExact(out, textFormatType, configParams, params, thisValue, thisIndex);
+			} catch (IOException | RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+			return;
+		}
+		for (Node node : nodes) {
+			node.appendTo(out, textFormatType, configParams, params, thisValue, thisIndex);
+		}
+	}
+
+	/**
+	 * 生成专用渲染器: 依次调用绑定各节点的渲染方法, 生成失败时不再尝试
+	 * @return 专用渲染器, 生成失败时返回null
+	 */
+	private MethodHandle specialize() {
+		try {
+			MethodHandle handle = Specializer.NO_OPERATION;
+			for (int i = nodes.length - 1; i >= 0; i--) {
+				handle = MethodHandles.foldArguments(handle, Specializer.bind(nodes[i]));
+			}
+			renderer = handle;
+			return handle;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// 继续遍历节点树渲染
+			renderCount = -1;
+			return null;
+		}
+	}
+
+	/**
+	 * 是否引用占位符参数(含映射表达式中的嵌套模板)
+	 */
+	private boolean referencesParams() {
+		if (nodes != null) {
+			for (Node node : nodes) {
+				if (node instanceof PlaceholderNode && ((PlaceholderNode) node).referencesParams()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+
+	/**
+	 * 编译占位符, 解析过程与 TextUtils.appendValue 一致
+	 */
+	private static PlaceholderNode compilePlaceholder(Resolver resolver, int offset, boolean alternateHolderEnabled, boolean simplified) {
+		resolver.resetToCurrent(simplified ? 0 : 1).useTokens(BRACKET_START);
+		// 参数标记
+		String pFlag = alternateHolderEnabled ? BRACE_START : PARENTHESES_START;
+		// 输入数据
+		String format = (String) resolver.getInput();
+		FormatTypeNode formatType = null;
+		boolean nonForce = true;
+		if (resolver.hasNext(BRACKET_START + SEMICOLON)) {
+			if (resolver.endsInTokens(SEMICOLON)) {
+				// 带格式化类型
+				int terminal = resolver.getTerminal();
+				resolver.resetToCurrent().hasNext(pFlag);
+				TextFormatType localDataType = getFormatType(resolver.isInTokens() ? EMPTY : resolver.next(false));
+				if (Objects.nonNull(localDataType)) {
+					formatType = new FormatTypeNode(localDataType, parseParameters(resolver, pFlag, BRACKET_START));
+					nonForce = false;
+				}
+				resolver.resetToBeyond(1).useTerminal(terminal).hasNext();
+			}
+			if (!resolver.isInTokens() && resolver.isEmpty() && !resolver.isLast()) {
+				// 忽略空串解析下一部分
+				resolver.hasNext();
+			}
+		}
+		// 前置常量串
+		FragmentNode prefix = null;
+		int start = resolver.getStart();
+		if (resolver.isInTokens() && format.charAt(start) != EXPR_FLAG && format.charAt(start) != JOIN_FLAG) {
+			boolean forEmpty = format.charAt(start) == FOR_EMPTY_FLAG;
+			StringBuilder text = new StringBuilder();
+			resolver.appendTo(text, forEmpty ? 1 : 0);
+			prefix = new FragmentNode(text.toString(), false, forEmpty);
+			resolver.hasNext();
+			start = resolver.getStart();
+		}
+		// 参数值
+		ConfigReference config = null;
+		String name = null;
+		int index = -1;
+		if (!resolver.isInTokens() && format.startsWith(HOLDER_FLAG, start)) {
+			// 配置属性
+			config = new ConfigReference(format.substring(resolver.getStart() + 1, resolver.getEnd()));
+			resolver.hasNext();
+		} else if (!resolver.isInTokens()) {
+			// 属性值占位符
+			name = resolver.next(false, true);
+			index = resolver.nextInt();
+			resolver.hasNext();
+		}
+		if (nonForce && !(resolver.isInTokens() && format.charAt(resolver.getStart()) == EXPR_FLAG)) {
+			// 非表达式，需要强制格式化
+			nonForce = false;
+		}
+		// 映射表达式
+		List<MappingNode> mappings = new ArrayList<>();
+		int outerTerminal = resolver.getTerminal();
+		while (resolver.isInTokens() && format.charAt(resolver.getStart()) == EXPR_FLAG) {
+			resolver.resetToCurrent(1);
+			mappings.add(compileMapping(resolver, alternateHolderEnabled, simplified));
+			resolver.resetToBeyond(1).useTerminal(outerTerminal).useTokens(BRACKET_START).hasNext();
+		}
+		// 后置内容
+		List<FragmentNode> suffixes = new ArrayList<>();
+		boolean next = true;
+		while (next && resolver.isInTokens()) {
+			start = resolver.getStart();
+			int textOffset = 0;
+			boolean join = false;
+			if (format.charAt(start) == JOIN_FLAG) {
+				join = true;
+				textOffset = 1;
+				start += textOffset;
+			}
+			boolean forEmpty = format.charAt(start) == FOR_EMPTY_FLAG;
+			StringBuilder text = new StringBuilder();
+			resolver.appendTo(text, forEmpty ? textOffset + 1 : textOffset);
+			suffixes.add(new FragmentNode(text.toString(), join, forEmpty));
+			next = resolver.hasNext();
+		}
+		// 该段解析结束，准备解析后一段的内容
+		resolver.resetToBeyond(1).useTypes(HOLDER_FLAG_TYPE);
+		return new PlaceholderNode(formatType, nonForce, prefix, config, name, index, offset,
+				mappings.toArray(new MappingNode[0]), suffixes.toArray(new FragmentNode[0]));
+	}
+
+	/**
+	 * 编译映射表达式, 解析过程与 TextUtils.getMappingValue 一致
+	 */
+	private static MappingNode compileMapping(Resolver resolver, boolean alternateHolderEnabled, boolean simplified) {
+		FormatTypeNode formatType = null;
+		// 参数标记
+		String pFlag = alternateHolderEnabled ? BRACE_START : PARENTHESES_START;
+		resolver.useTokens(EQUAL + SEMICOLON);
+		List<MappingEntry> entries = new ArrayList<>();
+		boolean first = true;
+		while (resolver.hasNext()) {
+			if (first && resolver.endsInTokens(SEMICOLON)) {
+				// 带格式化类型
+				int terminal = resolver.getTerminal();
+				resolver.resetToCurrent().hasNext(pFlag);
+				TextFormatType textFormatType = getFormatType(resolver.isInTokens() ? EMPTY : resolver.next(false));
+				if (Objects.nonNull(textFormatType)) {
+					formatType = new FormatTypeNode(textFormatType, parseParameters(resolver, pFlag, EQUAL + SEMICOLON));
+				}
+				resolver.resetToBeyond(1).useTerminal(terminal).hasNext();
+			}
+			first = false;
+			int start = resolver.getStart();
+			int end = resolver.getEnd();
+			char flag = '\0';
+			if (end == start + 1) {
+				char ch = resolver.getInput().charAt(start);
+				if (ch == FOR_EMPTY_FLAG || ch == '*') {
+					flag = ch;
+				}
+			}
+			if (resolver.isLast()) {
+				String text = resolver.next();
+				entries.add(new MappingEntry(flag, text, false, end > start, true,
+						flag == '\0' ? compile(text, !alternateHolderEnabled, simplified) : null));
+			} else {
+				String key = resolver.next();
+				boolean nullKey = !resolver.containsEscape() && resolver.nextEquals("null");
+				TextTemplate valueTemplate = null;
+				if (resolver.endsInTokens(EQUAL)) {
+					resolver.hasNext(SEMICOLON);
+					valueTemplate = compile(resolver.next(), !alternateHolderEnabled, simplified);
+				}
+				entries.add(new MappingEntry(flag, key, nullKey, end > start, false, valueTemplate));
+			}
+		}
+		return new MappingNode(formatType, entries.toArray(new MappingEntry[0]));
+	}
+
+
+	/**
+	 * 批量渲染任务: 按范围二分拆分, 范围不超过批量大小时顺序渲染
+	 */
+	private static final class RenderTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final transient TextTemplate template;
+		private final transient TextFormatType textFormatType;
+		private final transient Object configParams;
+		private final transient Object[] items;
+		private final String[] results;
+		private final int from;
+		private final int to;
+		private final int batchSize;
+
+		RenderTask(TextTemplate template, TextFormatType textFormatType, Object configParams, Object[] items, String[] results, int from, int to, int batchSize) {
+			this.template = template;
+			this.textFormatType = textFormatType;
+			this.configParams = configParams;
+			this.items = items;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= batchSize) {
+				template.renderRange(textFormatType, configParams, items, results, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new RenderTask(template, textFormatType, configParams, items, results, from, middle, batchSize),
+					new RenderTask(template, textFormatType, configParams, items, results, middle, to, batchSize));
+		}
+	}
+
+	/**
+	 * 专用渲染器的组合方法
+	 */
+	private static final class Specializer {
+		/**
+		 * 节点渲染方法的参数类型: (输出, 格式化类型, 配置参数, 占位符参数, 当前项值, 当前项索引)
+		 */
+		private static final MethodType RENDER_TYPE = MethodType.methodType(void.class,
+				TextOutput.class, TextFormatType.class, Object.class, Object.class, Object.class, Integer.class);
+		private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+		/**
+		 * 不输出内容的渲染器
+		 */
+		private static final MethodHandle NO_OPERATION;
+
+		static {
+			try {
+				MethodHandle noOperation = LOOKUP.findStatic(Specializer.class, "noOperation", MethodType.methodType(void.class));
+				NO_OPERATION = MethodHandles.dropArguments(noOperation, 0, RENDER_TYPE.parameterList());
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		private static void noOperation() {
+			// 没有内容
+		}
+
+		/**
+		 * 绑定节点的渲染方法, 按节点的具体类型查找, 调用时不需要虚方法分派
+		 */
+		static MethodHandle bind(Node node) throws ReflectiveOperationException {
+			return LOOKUP.findVirtual(node.getClass(), "appendTo", RENDER_TYPE).bindTo(node);
+		}
+	}
+
+	/**
+	 * 模板节点
+	 */
+	private abstract static class Node {
+		/**
+		 * 附加节点内容
+		 */
+		abstract void appendTo(TextOutput out, TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) throws IOException;
+	}
+
+	/**
+	 * 常量文本节点
+	 */
+	private static final class LiteralNode extends Node {
+		private final String text;
+		/**
+		 * 预先编码的UTF-8字节
+		 */
+		private final byte[] utf8Bytes;
+		/**
+		 * 最近使用的其他字符集编码
+		 */
+		private volatile EncodedBytes encoded;
+
+		LiteralNode(String text) {
+			this.text = text;
+			this.utf8Bytes = text.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		void appendTo(TextOutput out, TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) throws IOException {
+			Charset charset = out.byteCharset();
+			if (charset != null) {
+				out.appendEncoded(text, getBytes(charset));
+			} else {
+				out.append(text);
+			}
+		}
+
+		private byte[] getBytes(Charset charset) {
+			if (StandardCharsets.UTF_8.equals(charset)) {
+				return utf8Bytes;
+			}
+			EncodedBytes cached = encoded;
+			if (cached == null || !charset.equals(cached.charset)) {
+				encoded = cached = new EncodedBytes(charset, text.getBytes(charset));
+			}
+			return cached.bytes;
+		}
+	}
+
+	/**
+	 * 绑定配置参数时预先渲染的占位符节点, 使用预先渲染时的格式化类型渲染时直接输出常量文本
+	 */
+	private static final class BoundNode extends Node {
+		private final PlaceholderNode placeholder;
+		/**
+		 * 预先渲染时使用的格式化类型
+		 */
+		private final TextFormatType textFormatType;
+		private final LiteralNode literal;
+
+		BoundNode(PlaceholderNode placeholder, TextFormatType textFormatType, String text) {
+			this.placeholder = placeholder;
+			this.textFormatType = textFormatType;
+			this.literal = new LiteralNode(text);
+		}
+
+		@Override
+		void appendTo(TextOutput out, TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) throws IOException {
+			if (textFormatType == this.textFormatType) {
+				literal.appendTo(out, textFormatType, configParams, params, thisValue, thisIndex);
+			} else {
+				placeholder.appendTo(out, textFormatType, configParams, params, thisValue, thisIndex);
+			}
+		}
+	}
+
+	/**
+	 * 属性访问器: 参数类型及其属性路径对应的getter链
+	 */
+	private static final class PropertyAccessor {
+		/**
+		 * 不能通过getter链取值
+		 */
+		static final Object UNRESOLVED = new Object();
+
+		private final Class<?> beanClass;
+		/**
+		 * 属性路径各级的getter, 不能直接取值时为null
+		 */
+		private final Function<Object, Object>[] getters;
+		/**
+		 * 属性路径各级的属性名
+		 */
+		private final String[] path;
+
+		PropertyAccessor(Class<?> beanClass, Function<Object, Object>[] getters, String[] path) {
+			this.beanClass = beanClass;
+			this.getters = getters;
+			this.path = path;
+		}
+
+		/**
+		 * 解析简单属性路径
+		 * @param name 属性名
+		 * @return 各级属性名, 包含索引、映射或转义等非简单属性时返回null
+		 */
+		static String[] parsePath(String name) {
+			String[] path = name.split("\\.", -1);
+			for (String property : path) {
+				if (property.isEmpty() || !Character.isJavaIdentifierStart(property.charAt(0)) || "class".equals(property)) {
+					return null;
+				}
+				for (int i = 1; i < property.length(); i++) {
+					if (!Character.isJavaIdentifierPart(property.charAt(i))) {
+						return null;
+					}
+				}
+			}
+			return path;
+		}
+
+		/**
+		 * 绑定参数类型的getter链, 中间属性的getter按属性声明类型绑定
+		 */
+		@SuppressWarnings("unchecked")
+		static PropertyAccessor bind(Class<?> beanClass, String[] path) {
+			if (beanClass.isArray() || List.class.isAssignableFrom(beanClass) || Map.class.isAssignableFrom(beanClass)) {
+				// 列表、数组及Map参数按项取值
+				return new PropertyAccessor(beanClass, null, path);
+			}
+			Function<Object, Object>[] getters = (Function<Object, Object>[]) new Function<?, ?>[path.length];
+			Class<?> type = beanClass;
+			for (int i = 0; i < path.length; i++) {
+				PropertyDescriptor descriptor = BeanHelper.getPropertyDescriptor(type, path[i]);
+				if (descriptor == null || descriptor.getReadMethod() == null) {
+					return new PropertyAccessor(beanClass, null, path);
+				}
+				getters[i] = BeanHelper.getPropertyGetter((Class<Object>) type, path[i]);
+				type = descriptor.getPropertyType();
+			}
+			return new PropertyAccessor(beanClass, getters, path);
+		}
+
+		/**
+		 * 通过getter链取值
+		 * @param bean 参数对象(类型与绑定类型一致)
+		 * @return 属性值, 不能直接取值时返回 {@link #UNRESOLVED}
+		 */
+		Object getValue(Object bean) {
+			if (getters == null) {
+				return UNRESOLVED;
+			}
+			Object value = bean;
+			for (int i = 0; i < getters.length && value != null; i++) {
+				Object target = value;
+				try {
+					value = getters[i].apply(target);
+				} catch (ClassCastException e) {
+					// 取值对象与绑定的类型不一致, 由通用方式取值
+					return UNRESOLVED;
+				} catch (RuntimeException e) {
+					// getter本身的异常与通用方式一样处理, 不再重复调用getter
+					LambdaPropertyUtilsBean.getInstance().error(e, "Fail to get the property '" + path[i] + "' for the bean of the type '"
+							+ target.getClass().getName() + "', reason: " + e.getMessage());
+					return null;
+				}
+			}
+			if (value != null || getters.length == 1) {
+				// 单个属性存在getter时空值即为结果
+				return value;
+			}
+			return UNRESOLVED;
+		}
+	}
+
+	/**
+	 * 配置属性引用, 如 {@code $$tenant.name}、{@code $this.name}、{@code $idx}, 编译时确定取值对象及属性路径
+	 */
+	private static final class ConfigReference {
+		private static final int CONFIG = 0;
+		private static final int THIS = 1;
+		private static final int INDEX = 2;
+		/**
+		 * 取值对象: 配置参数、当前项值或当前项索引
+		 */
+		private final int source;
+		/**
+		 * 属性名, 直接取值对象本身时为null
+		 */
+		private final String property;
+		/**
+		 * 简单属性路径, 非简单属性路径时为null
+		 */
+		private final String[] propertyPath;
+		/**
+		 * 按取值对象类型绑定的属性访问器
+		 */
+		private volatile PropertyAccessor accessor;
+
+		/**
+		 * @param name 配置属性名(不含$符号), 解析与 TextUtils.getConfigValue 一致
+		 */
+		ConfigReference(String name) {
+			int valueSource = CONFIG;
+			String valueProperty = name;
+			if (name.startsWith("this")) {
+				// $this.xxx
+				if (name.length() == 4 || name.charAt(4) == '.') {
+					valueSource = THIS;
+					valueProperty = name.length() == 4 ? null : name.substring(5);
+				}
+			} else if (name.startsWith("idx")) {
+				// $idx
+				if (name.length() == 3 || name.charAt(3) == '.') {
+					valueSource = INDEX;
+					valueProperty = name.length() == 3 ? null : name.substring(4);
+				}
+			}
+			this.source = valueSource;
+			this.property = valueProperty;
+			this.propertyPath = valueProperty != null ? PropertyAccessor.parsePath(valueProperty) : null;
+		}
+
+		/**
+		 * 获取配置值, 与 TextUtils.getConfigValue 一致
+		 */
+		Object getValue(Object thisValue, Integer thisIndex, Object configParams) {
+			Object bean = source == THIS ? thisValue : source == INDEX ? thisIndex : configParams;
+			if (property == null) {
+				return bean;
+			}
+			if (propertyPath != null && bean != null) {
+				PropertyAccessor current = accessor;
+				if (current == null || current.beanClass != bean.getClass()) {
+					accessor = current = PropertyAccessor.bind(bean.getClass(), propertyPath);
+				}
+				Object value = current.getValue(bean);
+				if (value != PropertyAccessor.UNRESOLVED) {
+					return value;
+				}
+			}
+			if (!(bean instanceof Map)) {
+				TextUtils.recordSlowPath();
+			}
+			return BeanHelper.getProperty(bean, property);
+		}
+	}
+
+	/**
+	 * 按字符集编码的常量文本
+	 */
+	private static final class EncodedBytes {
+		private final Charset charset;
+		private final byte[] bytes;
+
+		EncodedBytes(Charset charset, byte[] bytes) {
+			this.charset = charset;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * 格式化类型节点, 如 {@code json;} 或 {@code str(0,10);}
+	 */
+	private static final class FormatTypeNode {
+		private final TextFormatType type;
+		/**
+		 * 格式化参数, 没有参数部分时为null
+		 */
+		private final String[] parameters;
+		/**
+		 * 编译时预处理参数的格式化器
+		 */
+		private final PreparedFormatter formatter;
+		/**
+		 * 格式化值是否原样附加(不需要调用 {@link TextFormatType#appendValue})
+		 */
+		private final boolean verbatim;
+
+		FormatTypeNode(TextFormatType type, String[] parameters) {
+			this.type = type;
+			this.parameters = parameters;
+			this.formatter = type.prepare(parameters != null ? parameters : ArrayConstants.EMPTY_STRING_ARRAY);
+			this.verbatim = type instanceof FormatTypeEnum && !((FormatTypeEnum) type).isEscaping();
+		}
+	}
+
+	/**
+	 * 前后缀片段节点, 如 {@code [前缀]}、{@code [^为空时]}、{@code [+分隔符]}
+	 */
+	private static final class FragmentNode {
+		private final String text;
+		/**
+		 * 是否为列表项之间的连接符
+		 */
+		private final boolean join;
+		/**
+		 * 是否仅在值为空时附加
+		 */
+		private final boolean forEmpty;
+
+		FragmentNode(String text, boolean join, boolean forEmpty) {
+			this.text = text;
+			this.join = join;
+			this.forEmpty = forEmpty;
+		}
+	}
+
+	/**
+	 * 映射表达式项, 如 {@code 1=支付}、{@code *}、{@code ^=空}
+	 */
+	private static final class MappingEntry {
+		/**
+		 * 通配标记: '*' 或 '^', 否则为'\0'
+		 */
+		private final char flag;
+		/**
+		 * 匹配的键(非最后一项)或默认模板内容(最后一项)
+		 */
+		private final String text;
+		/**
+		 * 是否匹配null值
+		 */
+		private final boolean nullKey;
+		/**
+		 * 内容是否非空
+		 */
+		private final boolean notBlank;
+		/**
+		 * 是否为最后一项
+		 */
+		private final boolean last;
+		/**
+		 * 匹配后的值模板, 没有值模板时为null
+		 */
+		private final TextTemplate valueTemplate;
+
+		MappingEntry(char flag, String text, boolean nullKey, boolean notBlank, boolean last, TextTemplate valueTemplate) {
+			this.flag = flag;
+			this.text = text;
+			this.nullKey = nullKey;
+			this.notBlank = notBlank;
+			this.last = last;
+			this.valueTemplate = valueTemplate;
+		}
+	}
+
+	/**
+	 * 映射表达式节点, 如 {@code [#1=支付;2=退款;*]}
+	 */
+	private static final class MappingNode {
+		private final FormatTypeNode formatType;
+		private final MappingEntry[] entries;
+		/**
+		 * 常量键对应的第一个映射项位置, 常量键较少时为null(顺序匹配)
+		 */
+		private final Map<String, Integer> keyIndexes;
+		/**
+		 * 第一个匹配null值的映射项位置, 没有时为映射项数量
+		 */
+		private final int nullKeyIndex;
+		/**
+		 * 每个位置之后的第一个非常量键映射项('*'、'^'及最后一项)位置, 下标0对应第一项之前
+		 */
+		private final int[] nextSpecialIndexes;
+		/**
+		 * 各映射项之前是否存在常量键映射项
+		 */
+		private final boolean[] literalBefore;
+
+		MappingNode(FormatTypeNode formatType, MappingEntry[] entries) {
+			this.formatType = formatType;
+			this.entries = entries;
+			int length = entries.length;
+			Map<String, Integer> indexes = new HashMap<>();
+			int nullIndex = length;
+			int[] nextSpecials = new int[length + 1];
+			boolean[] literals = new boolean[length];
+			int nextSpecial = length;
+			for (int i = length - 1; i >= 0; i--) {
+				nextSpecials[i + 1] = nextSpecial;
+				if (entries[i].flag != '\0' || entries[i].last) {
+					nextSpecial = i;
+				}
+			}
+			nextSpecials[0] = nextSpecial;
+			boolean literal = false;
+			for (int i = 0; i < length; i++) {
+				MappingEntry entry = entries[i];
+				literals[i] = literal;
+				if (entry.flag == '\0' && !entry.last) {
+					literal = true;
+					indexes.putIfAbsent(entry.text, i);
+					if (entry.nullKey && nullIndex == length) {
+						nullIndex = i;
+					}
+				}
+			}
+			this.keyIndexes = indexes.size() >= HASH_DISPATCH_THRESHOLD ? indexes : null;
+			this.nullKeyIndex = nullIndex;
+			this.nextSpecialIndexes = nextSpecials;
+			this.literalBefore = literals;
+		}
+
+		/**
+		 * 获取映射值, 与 TextUtils.getMappingValue 一致
+		 */
+		Object getMappingValue(Object filterValue, Object value, Integer valueIndex, Object configParams, Object params) {
+			String stringValue = null;
+			TextFormatType textFormatType = formatType != null ? formatType.type : null;
+			String[] parameters = formatType != null ? formatType.parameters : null;
+			// 按常量键直接定位的映射项, 顺序匹配时不使用
+			int candidate = entries.length;
+			String keyValue = null;
+			if (keyIndexes != null) {
+				if (filterValue == null) {
+					candidate = nullKeyIndex;
+				} else {
+					if ((keyValue = TextUtils.toString(filterValue)) == null) {
+						keyValue = "null";
+					}
+					candidate = keyIndexes.getOrDefault(keyValue, entries.length);
+				}
+			}
+			for (int i = keyIndexes != null ? nextIndex(-1, candidate) : 0; i < entries.length; i = keyIndexes != null ? nextIndex(i, candidate) : i + 1) {
+				MappingEntry entry = entries[i];
+				if (keyValue != null && stringValue == null && literalBefore[i]) {
+					// 与顺序匹配时前面常量键比较所得的值一致
+					stringValue = keyValue;
+				}
+				boolean match = false;
+				boolean matchResult = entry.flag != '\0';
+				if (entry.flag == FOR_EMPTY_FLAG) {
+					match = isEmpty(filterValue);
+				} else if (matchResult) {
+					match = true;
+				}
+				boolean nestPattern = true;
+				if (entry.last) {
+					if (matchResult) {
+						if (Objects.isNull(parameters)) {
+							return filterValue;
+						}
+						nestPattern = false;
+					} else {
+						if (isEmpty(filterValue)) {
+							return filterValue;
+						}
+						if (i == 0 && Objects.nonNull(textFormatType) && EMPTY.equals(textFormatType.getUniqueId())
+								&& entry.notBlank && (stringValue = textFormatType.formatValue(filterValue, entry.text)) != null) {
+							// 基本类型或日期格式转化
+							return stringValue;
+						}
+						match = true;
+					}
+				} else {
+					if (!matchResult) {
+						if (filterValue == null) {
+							match = entry.nullKey;
+						} else {
+							if (stringValue == null && (stringValue = TextUtils.toString(filterValue)) == null) {
+								stringValue = "null";
+							}
+							match = stringValue.equals(entry.text);
+						}
+					}
+					if (match && entry.valueTemplate == null) {
+						// 返回原值
+						if (Objects.isNull(parameters)) {
+							return filterValue;
+						}
+						nestPattern = false;
+					}
+				}
+				if (match) {
+					if (nestPattern) {
+						TextFormatType defaultFormatType = Objects.nonNull(textFormatType) && Objects.isNull(parameters) ? textFormatType : FormatTypeEnum.SIMPLE;
+						stringValue = entry.valueTemplate.format(defaultFormatType, configParams, params, value, valueIndex);
+					}
+					if ("null".equals(stringValue)) {
+						// null 做为空值
+						stringValue = null;
+					}
+					if (Objects.nonNull(parameters)) {
+						// 如果有带参数, 作为结果值的截取
+						Object valuePattern = stringValue == null && !nestPattern ? filterValue : stringValue;
+						if (isNotEmpty(valuePattern) && isNotEmpty(stringValue = textFormatType.formatValue(valuePattern, parameters)) && parameters.length == 0) {
+							// 非空并且没有参数时，转化结果
+							StringBuilder textBuilder = new StringBuilder(stringValue.length());
+							textFormatType.appendValue(textBuilder, stringValue, false);
+							stringValue = textBuilder.toString();
+						}
+					}
+					return stringValue;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * 哈希定位时下一个需要匹配的映射项: 非常量键映射项及常量键定位的映射项
+		 */
+		private int nextIndex(int index, int candidate) {
+			int next = nextSpecialIndexes[index + 1];
+			return candidate > index && candidate < next ? candidate : next;
+		}
+	}
+
+	/**
+	 * 占位符节点
+	 */
+	private static final class PlaceholderNode extends Node {
+		private final FormatTypeNode formatType;
+		private final boolean nonForce;
+		private final FragmentNode prefix;
+		/**
+		 * 配置属性引用, 非配置属性时为null
+		 */
+		private final ConfigReference config;
+		/**
+		 * 参数属性名, 直接取参数项时为null
+		 */
+		private final String name;
+		private final int index;
+		/**
+		 * 参数偏移量
+		 */
+		private final int offset;
+		private final MappingNode[] mappings;
+		private final FragmentNode[] suffixes;
+		/**
+		 * 简单属性路径(如 user.name 拆分为 user、name), 非简单属性路径时为null
+		 */
+		private final String[] propertyPath;
+		/**
+		 * 按参数类型绑定的属性访问器
+		 */
+		private volatile PropertyAccessor accessor;
+
+		PlaceholderNode(FormatTypeNode formatType, boolean nonForce, FragmentNode prefix, ConfigReference config, String name, int index, int offset, MappingNode[] mappings, FragmentNode[] suffixes) {
+			this.formatType = formatType;
+			this.nonForce = nonForce;
+			this.prefix = prefix;
+			this.config = config;
+			this.name = name;
+			this.index = index;
+			this.offset = offset;
+			this.mappings = mappings;
+			this.suffixes = suffixes;
+			this.propertyPath = name != null && index < 0 ? PropertyAccessor.parsePath(name) : null;
+		}
+
+		/**
+		 * 附加占位符内容, 与 TextUtils.appendValue 一致
+		 * <p>
+		 * TextUtils.appendValue 先附加前缀再按值是否为空回退, 这里等到值确定后才决定是否输出前缀, 以便直接写入输出目标。
+		 * </p>
+		 */
+		@Override
+		void appendTo(TextOutput out, TextFormatType textFormatType, Object configParams, Object params, Object thisValue, Integer thisIndex) throws IOException {
+			String[] parameters = null;
+			if (formatType != null) {
+				textFormatType = formatType.type;
+				parameters = formatType.parameters;
+			}
+			// 参数值
+			Object value;
+			if (config != null) {
+				value = config.getValue(thisValue, thisIndex, configParams);
+			} else if (name != null) {
+				value = getPropertyValue(params);
+			} else {
+				value = getItemValue(params, offset);
+			}
+			boolean parsed = false;
+			if (parameters == null || parameters.length > 0) {
+				Iterator<?> iterator = TextUtils.repeatedIterator(value);
+				if (iterator != null) {
+					boolean hasNext = (parsed = iterator.hasNext());
+					if (hasNext && iterator instanceof PrimitiveIterator && appendsPrimitiveDirectly(textFormatType)) {
+						// 基本类型数组或流直接输出, 不装箱
+						appendPrimitives(out, (PrimitiveIterator<?, ?>) iterator);
+						return;
+					}
+					int i = 0;
+					while (hasNext) {
+						Object itemValue = formatValue(iterator.next(), i++, configParams, params);
+						hasNext = iterator.hasNext();
+						appendFormatValue(out, textFormatType, parameters, itemValue, !hasNext);
+					}
+					// 没有项时作为空串处理
+					value = EMPTY;
+				} else if (value instanceof Object[]) {
+					Object[] array = (Object[]) value;
+					for (int i = 0, len = array.length; i < len; ++i) {
+						Object itemValue = formatValue(array[i], i, configParams, params);
+						appendFormatValue(out, textFormatType, parameters, itemValue, i + 1 == len);
+					}
+					parsed = array.length > 0;
+					value = EMPTY;
+				}
+			}
+			if (!parsed) {
+				value = formatValue(value, null, configParams, params);
+				appendFormatValue(out, textFormatType, parameters, value, true);
+			}
+		}
+
+		/**
+		 * 获取属性值, 与 TextUtils.getPropertyValue 一致
+		 * <p>
+		 * 参数为普通对象时使用按参数类型绑定的getter链直接取值, 参数类型变化时重新绑定, 无法直接取值时使用 TextUtils.getPropertyValue。
+		 * </p>
+		 */
+		private Object getPropertyValue(Object params) {
+			if (propertyPath != null && params != null) {
+				PropertyAccessor current = accessor;
+				if (current == null || current.beanClass != params.getClass()) {
+					accessor = current = PropertyAccessor.bind(params.getClass(), propertyPath);
+				}
+				Object value = current.getValue(params);
+				if (value != PropertyAccessor.UNRESOLVED) {
+					return value;
+				}
+			}
+			return TextUtils.getPropertyValue(name, index, params, offset);
+		}
+
+		/**
+		 * 是否引用占位符参数(含映射表达式中的嵌套模板)
+		 */
+		boolean referencesParams() {
+			if (config == null) {
+				return true;
+			}
+			for (MappingNode mapping : mappings) {
+				for (MappingEntry entry : mapping.entries) {
+					if (entry.valueTemplate != null && entry.valueTemplate.referencesParams()) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * 渲染结果是否只由配置参数决定(绑定配置参数时可预先渲染为常量文本)
+		 * <p>
+		 * 只处理配置参数的属性({@code $this}/{@code $idx}随当前项变化); 带映射表达式时JSON/URL格式化类型按前面输出的字符决定是否转义, 不能预先渲染。
+		 * </p>
+		 * @param textFormatType 渲染使用的格式化类型
+		 */
+		boolean isConfigConstant(TextFormatType textFormatType) {
+			if (config == null || config.source != ConfigReference.CONFIG || referencesParams()) {
+				return false;
+			}
+			return textFormatType instanceof FormatTypeEnum
+					&& !(nonForce && (textFormatType == FormatTypeEnum.JSON || textFormatType == FormatTypeEnum.URL_ENCODING));
+		}
+
+		private Object formatValue(Object value, Integer valueIndex, Object configParams, Object params) {
+			Object valueHolder = value;
+			for (MappingNode mapping : mappings) {
+				value = mapping.getMappingValue(value, valueHolder, valueIndex, configParams, params);
+			}
+			return value;
+		}
+
+		/**
+		 * 基本类型值是否可以直接输出: 没有映射表达式及格式化参数, 格式化类型按字符串输出数字且不改变数字字符
+		 */
+		private boolean appendsPrimitiveDirectly(TextFormatType textFormatType) {
+			return formatType == null && mappings.length == 0 && textFormatType instanceof FormatTypeEnum
+					&& (textFormatType == FormatTypeEnum.SIMPLE || ((FormatTypeEnum) textFormatType).isEscaping())
+					&& TextUtils.isDefaultObjectToString();
+		}
+
+		/**
+		 * 逐项输出基本类型值(非空)
+		 */
+		private void appendPrimitives(TextOutput out, PrimitiveIterator<?, ?> iterator) throws IOException {
+			boolean hasNext = true;
+			while (hasNext) {
+				StringBuilder buffer = out.scratch();
+				if (iterator instanceof PrimitiveIterator.OfInt) {
+					buffer.append(((PrimitiveIterator.OfInt) iterator).nextInt());
+				} else if (iterator instanceof PrimitiveIterator.OfLong) {
+					buffer.append(((PrimitiveIterator.OfLong) iterator).nextLong());
+				} else if (iterator instanceof PrimitiveIterator.OfDouble) {
+					buffer.append(((PrimitiveIterator.OfDouble) iterator).nextDouble());
+				} else {
+					buffer.append(iterator.next());
+				}
+				hasNext = iterator.hasNext();
+				appendFormatted(out, FormatTypeEnum.SIMPLE, buffer, !hasNext);
+			}
+		}
+
+		/**
+		 * 附加格式化值, 与 TextUtils.appendFormatValue 一致
+		 */
+		private void appendFormatValue(TextOutput out, TextFormatType textFormatType, String[] parameters, Object value, boolean isLastValue) throws IOException {
+			CharSequence formattedValue;
+			if (isEmpty(value)) {
+				formattedValue = TextUtils.toString(value);
+			} else if (formatType != null) {
+				// 使用预处理的格式化器写入渲染缓冲
+				StringBuilder buffer = out.scratch();
+				formatType.formatter.formatTo(value, buffer);
+				formattedValue = formatType.verbatim ? buffer : buffer.toString();
+			} else {
+				formattedValue = textFormatType.formatValue(value, Objects.nonNull(parameters) ? parameters : ArrayConstants.EMPTY_STRING_ARRAY);
+			}
+			appendFormatted(out, textFormatType, formattedValue, isLastValue);
+		}
+
+		/**
+		 * 附加前缀、格式化值、后缀及分隔符
+		 * @param formattedValue 格式化值, 为String时按格式化类型附加, 否则原样附加
+		 */
+		private void appendFormatted(TextOutput out, TextFormatType textFormatType, CharSequence formattedValue, boolean isLastValue) throws IOException {
+			boolean emptyValue = formattedValue == null || formattedValue.length() == 0;
+			long originPosition = out.count();
+			if (prefix != null && prefix.forEmpty == emptyValue) {
+				// 前缀与值是否为空匹配时才附加
+				out.append(prefix.text);
+			}
+			if (!emptyValue) {
+				if (formattedValue instanceof String) {
+					textFormatType.appendValue(out, (String) formattedValue, nonForce, out.lastChar());
+				} else {
+					// 原样附加的格式化值
+					out.append(formattedValue);
+				}
+			}
+			boolean nonSeparator = true;
+			for (FragmentNode suffix : suffixes) {
+				if (suffix.join) {
+					if (isLastValue) {
+						// 最后一个元素时不添加该值
+						break;
+					}
+					nonSeparator = false;
+				}
+				if (suffix.forEmpty == emptyValue) {
+					out.append(suffix.text);
+				}
+			}
+			if (!isLastValue && nonSeparator && originPosition != out.count()) {
+				// 没有指定分隔符时默认使用英文逗号
+				out.append(SEPARATOR);
+			}
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package com.honzel.core.util.text;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 编译模板缓存
+ * <p>
+ * {@link TextUtils} 的静态格式化方法通过该缓存查找已编译的 {@link TextTemplate}, 缓存键为(模板内容, 是否备选占位符, 是否简化占位符)。
+ * 缓存按数量淘汰(二次机会/CLOCK算法), 并采用准入策略: 模板第一次出现时只做记录而不编译缓存,
+ * 第二次出现时才编译放入缓存, 以避免动态拼接的一次性模板占用内存。
+ * </p>
+ * <pre>{@code
+ * TextTemplateCache cache = TextUtils.getTemplateCache();
+ * cache.setMaximumSize(2048);
+ * cache.setEnabled(false);    // 关闭缓存
+ * cache.getHitCount();        // 命中次数
+ * cache.getMissCount();       // 未命中次数
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextTemplate
+ * @see TextUtils#getTemplateCache()
+ */
+public final class TextTemplateCache {
+
+	/**
+	 * 默认最大缓存数量
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	/**
+	 * 按(备选占位符, 简化占位符)区分的缓存
+	 */
+	private final Map<String, CachedTemplate>[] templateMaps;
+	/**
+	 * 准入记录: 只出现过一次的模板
+	 */
+	private final Set<String>[] doorkeepers;
+
+	private final AtomicInteger doorkeeperSize = new AtomicInteger();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	/**
+	 * 时钟指针: 当前遍历的缓存及其迭代器(只在持有淘汰锁时访问)
+	 */
+	private int handKind;
+
+	private Iterator<CachedTemplate> hand;
+
+	private volatile boolean enabled = true;
+
+	private volatile int maximumSize;
+
+	@SuppressWarnings("unchecked")
+	TextTemplateCache(int maximumSize) {
+		this.maximumSize = maximumSize;
+		this.templateMaps = (Map<String, CachedTemplate>[]) new Map<?, ?>[4];
+		this.doorkeepers = (Set<String>[]) new Set<?>[4];
+		for (int i = 0; i < templateMaps.length; i++) {
+			templateMaps[i] = new ConcurrentHashMap<>();
+			doorkeepers[i] = ConcurrentHashMap.newKeySet();
+		}
+	}
+
+	/**
+	 * 查找已缓存的模板, 未命中时按准入策略决定是否编译并缓存
+	 *
+	 * @param pattern                模板内容
+	 * @param alternateHolderEnabled 是否使用备选占位符
+	 * @param simplified             是否简化占位符
+	 * @return 已缓存的模板, 缓存关闭或未准入时返回null
+	 */
+	TextTemplate lookup(String pattern, boolean alternateHolderEnabled, boolean simplified) {
+		if (!enabled) {
+			return null;
+		}
+		int kind = kindOf(alternateHolderEnabled, simplified);
+		CachedTemplate cached = templateMaps[kind].get(pattern);
+		if (cached != null) {
+			hitCount.increment();
+			if (!cached.referenced) {
+				cached.referenced = true;
+			}
+			return cached.template;
+		}
+		missCount.increment();
+		if (!admit(kind, pattern)) {
+			// 第一次出现, 不缓存
+			return null;
+		}
+		TextTemplate template = TextTemplate.compile(pattern, alternateHolderEnabled, simplified);
+		cached = templateMaps[kind].putIfAbsent(pattern, new CachedTemplate(template));
+		if (cached != null) {
+			return cached.template;
+		}
+		if (size() > maximumSize) {
+			evict();
+		}
+		return template;
+	}
+
+	/**
+	 * 获取编译后的模板, 未缓存时编译模板并按准入策略决定是否缓存
+	 *
+	 * @param pattern                模板内容
+	 * @param alternateHolderEnabled 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 * @param simplified             是否简化占位符（即占位符不带$)
+	 * @return 编译后的模板
+	 */
+	public TextTemplate getTemplate(String pattern, boolean alternateHolderEnabled, boolean simplified) {
+		TextTemplate template = lookup(pattern, alternateHolderEnabled, simplified);
+		return template != null ? template : TextTemplate.compile(pattern, alternateHolderEnabled, simplified);
+	}
+
+	private boolean admit(int kind, String pattern) {
+		if (doorkeepers[kind].remove(pattern)) {
+			doorkeeperSize.decrementAndGet();
+			return true;
+		}
+		if (doorkeeperSize.incrementAndGet() > maximumSize) {
+			// 记录已满时重置准入记录
+			for (Set<String> doorkeeper : doorkeepers) {
+				doorkeeper.clear();
+			}
+			doorkeeperSize.set(1);
+		}
+		doorkeepers[kind].add(pattern);
+		return false;
+	}
+
+	/**
+	 * 淘汰缓存项: 时钟指针从上次停下的位置逐项前进, 最近被使用的缓存项清除使用标记后保留一轮,
+	 * 未被使用的缓存项被淘汰, 数量不超过最大缓存数量时立即停止
+	 */
+	private void evict() {
+		if (!evictionLock.tryLock()) {
+			// 其他线程正在淘汰
+			return;
+		}
+		try {
+			while (size() > maximumSize) {
+				if (hand == null || !hand.hasNext()) {
+					// 转到下一个缓存
+					if (hand != null) {
+						handKind = (handKind + 1) % templateMaps.length;
+					}
+					hand = templateMaps[handKind].values().iterator();
+					if (!hand.hasNext()) {
+						hand = null;
+						handKind = (handKind + 1) % templateMaps.length;
+					}
+					continue;
+				}
+				CachedTemplate cached = hand.next();
+				if (cached.referenced) {
+					cached.referenced = false;
+				} else {
+					hand.remove();
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	private static int kindOf(boolean alternateHolderEnabled, boolean simplified) {
+		return (alternateHolderEnabled ? 2 : 0) | (simplified ? 1 : 0);
+	}
+
+	/**
+	 * 清空缓存及准入记录(不重置命中统计)
+	 */
+	public void clear() {
+		for (int i = 0; i < templateMaps.length; i++) {
+			templateMaps[i].clear();
+			doorkeepers[i].clear();
+		}
+		doorkeeperSize.set(0);
+	}
+
+	/**
+	 * 重置命中统计
+	 */
+	public void resetStatistics() {
+		hitCount.reset();
+		missCount.reset();
+	}
+
+	/**
+	 * 当前缓存数量
+	 * @return 当前缓存数量
+	 */
+	public int size() {
+		int size = 0;
+		for (Map<String, CachedTemplate> templateMap : templateMaps) {
+			size += templateMap.size();
+		}
+		return size;
+	}
+
+	/**
+	 * 命中次数
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 未命中次数(含未准入)
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 是否启用缓存
+	 * @return 是否启用缓存
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 设置是否启用缓存, 关闭时同时清空缓存
+	 * @param enabled 是否启用缓存
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * 最大缓存数量
+	 * @return 最大缓存数量
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * 设置最大缓存数量
+	 * @param maximumSize 最大缓存数量
+	 */
+	public void setMaximumSize(int maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("the maximum size cannot be negative: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		if (size() > maximumSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * 缓存项
+	 */
+	private static final class CachedTemplate {
+		private final TextTemplate template;
+		/**
+		 * 最近是否被使用(允许并发下的丢失更新)
+		 */
+		private boolean referenced;
+
+		CachedTemplate(TextTemplate template) {
+			this.template = template;
+		}
+	}
+}
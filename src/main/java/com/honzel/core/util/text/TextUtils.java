@@ -6,13 +6,18 @@ import com.honzel.core.util.resolver.Resolver;
 import com.honzel.core.util.resolver.ResolverUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.BaseStream;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -228,12 +233,54 @@ public class TextUtils {
 
 	public static final char FOR_EMPTY_FLAG = '^';
 
-	private static final int HOLDER_FLAG_TYPE = 1;
+	static final int HOLDER_FLAG_TYPE = 1;
 
 
 	private static final Map<String, TextFormatType> FORMAT_TYPE_MAP = new ConcurrentHashMap<>();
 
 	private static final Queue<TextFormatType> AUTO_MATCH_FORMAT_TYPE_QUEUE = new ConcurrentLinkedQueue<>();
+	/**
+	 * 按自动匹配队列生成的匹配表, 注册格式类型时重新生成
+	 */
+	private static volatile FormatTypeMatcher formatTypeMatcher = new FormatTypeMatcher(Collections.emptyList());
+
+	private static final TextTemplateCache TEMPLATE_CACHE = new TextTemplateCache(TextTemplateCache.DEFAULT_MAXIMUM_SIZE);
+
+	/**
+	 * 批量格式化默认的并行阈值
+	 */
+	public static final int DEFAULT_PARALLEL_FORMAT_THRESHOLD = 512;
+
+	private static volatile int parallelFormatThreshold = DEFAULT_PARALLEL_FORMAT_THRESHOLD;
+
+	/**
+	 * 已编译模板默认的专用渲染器生成阈值(默认不生成)
+	 */
+	public static final int DEFAULT_SPECIALIZE_THRESHOLD = Integer.MAX_VALUE;
+
+	private static volatile int specializeThreshold = DEFAULT_SPECIALIZE_THRESHOLD;
+
+	/**
+	 * 值列表默认的解析缓存阈值(字符数)
+	 */
+	public static final int DEFAULT_VALUE_LIST_CACHE_THRESHOLD = 64;
+
+	private static volatile int valueListCacheThreshold = DEFAULT_VALUE_LIST_CACHE_THRESHOLD;
+
+	/**
+	 * 批量值操作默认的散列阈值(项数)
+	 */
+	public static final int DEFAULT_VALUE_SET_THRESHOLD = 8;
+
+	private static volatile int valueSetThreshold = DEFAULT_VALUE_SET_THRESHOLD;
+	/**
+	 * 解析结果写入Writer时每段复制的字符数
+	 */
+	private static final int WRITE_CHUNK_CHARS = 1024;
+	/**
+	 * 渲染监听器(为null时不做任何记录)
+	 */
+	private static volatile TextRenderListener renderListener;
 
 	private static volatile TextUtils utils;
 
@@ -286,16 +333,183 @@ public class TextUtils {
 	 */
 	public static boolean registerFormatType(TextFormatType textFormatType) {
 		TextFormatType oldFormatType = FORMAT_TYPE_MAP.put(textFormatType.getUniqueId(), textFormatType);
+		if (!textFormatType.equals(oldFormatType)) {
+			// 已编译的模板绑定了旧的格式类型
+			TEMPLATE_CACHE.clear();
+		}
 		if (textFormatType.supportsAutoMatch() && !textFormatType.equals(oldFormatType)) {
-			if (Objects.nonNull(oldFormatType) && oldFormatType.supportsAutoMatch()) {
-				AUTO_MATCH_FORMAT_TYPE_QUEUE.remove(oldFormatType);
+			synchronized (AUTO_MATCH_FORMAT_TYPE_QUEUE) {
+				if (Objects.nonNull(oldFormatType) && oldFormatType.supportsAutoMatch()) {
+					AUTO_MATCH_FORMAT_TYPE_QUEUE.remove(oldFormatType);
+				}
+				AUTO_MATCH_FORMAT_TYPE_QUEUE.add(textFormatType);
+				formatTypeMatcher = new FormatTypeMatcher(AUTO_MATCH_FORMAT_TYPE_QUEUE);
 			}
-			AUTO_MATCH_FORMAT_TYPE_QUEUE.add(textFormatType);
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * 获取编译模板缓存
+	 * <p>
+	 * 静态格式化方法(format/alternateFormat/simplifiedFormat/alternateSimplifiedFormat)通过该缓存复用已编译的模板,
+	 * 可通过该缓存对象调整最大缓存数量、关闭缓存及查看命中统计。
+	 * </p>
+	 *
+	 * @return 编译模板缓存
+	 * @see TextTemplateCache
+	 */
+	public static TextTemplateCache getTemplateCache() {
+		return TEMPLATE_CACHE;
+	}
+
+	/**
+	 * 获取模板签名（使用 ${xxx} 语法）
+	 * <p>
+	 * 模板签名包含模板引用的属性键、按位置取值的占位符数量、配置属性及嵌套模板, 随编译模板一起缓存。
+	 * </p>
+	 *
+	 * @param pattern 模板字符串
+	 * @return 模板签名
+	 * @see TemplateSignature
+	 */
+	public static TemplateSignature getTemplateSignature(String pattern) {
+		return getTemplateSignature(pattern, false, false);
+	}
+
+	/**
+	 * 获取模板签名
+	 *
+	 * @param pattern 模板字符串
+	 * @param alternateHolderEnabled 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 * @param simplified 是否简化占位符（即占位符不带$)
+	 * @return 模板签名
+	 * @see TemplateSignature
+	 */
+	public static TemplateSignature getTemplateSignature(String pattern, boolean alternateHolderEnabled, boolean simplified) {
+		return TEMPLATE_CACHE.getTemplate(pattern, alternateHolderEnabled, simplified).getSignature();
+	}
+
+	/**
+	 * 批量格式化的并行阈值
+	 * @return 参数数量达到该值时并行格式化
+	 * @see #formatAll(String, List)
+	 */
+	public static int getParallelFormatThreshold() {
+		return parallelFormatThreshold;
+	}
+
+	/**
+	 * 设置批量格式化的并行阈值
+	 * @param threshold 参数数量达到该值时并行格式化, {@link Integer#MAX_VALUE} 表示不并行
+	 */
+	public static void setParallelFormatThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("the parallel format threshold cannot be negative: " + threshold);
+		}
+		parallelFormatThreshold = threshold;
+	}
+
+	/**
+	 * 已编译模板的专用渲染器生成阈值
+	 * @return 已编译模板的渲染次数达到该值时生成专用渲染器
+	 * @see TextTemplate
+	 */
+	public static int getSpecializeThreshold() {
+		return specializeThreshold;
+	}
+
+	/**
+	 * 设置已编译模板的专用渲染器生成阈值
+	 * @param threshold 已编译模板的渲染次数达到该值时生成专用渲染器, {@link Integer#MAX_VALUE} 表示不生成
+	 */
+	public static void setSpecializeThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("the specialize threshold cannot be negative: " + threshold);
+		}
+		specializeThreshold = threshold;
+	}
+
+	/**
+	 * 值列表及 map 格式字符串的解析缓存阈值
+	 * @return 长度达到该值的值列表及 map 格式字符串按字符串实例缓存解析结果
+	 * @see ValueList
+	 * @see ValueMap
+	 */
+	public static int getValueListCacheThreshold() {
+		return valueListCacheThreshold;
+	}
+
+	/**
+	 * 设置值列表的解析缓存阈值
+	 * <p>
+	 * {@link #containsValue}、{@link #indexOfValue}、{@link #getValue}、{@link #getSize}、{@link #getValues} 等方法
+	 * 对长度达到该值的同一个字符串实例重复查询时, 使用缓存的 {@link ValueList} 代替逐项扫描;
+	 * {@link #keyIndexOf}、{@link #getMapValue}、{@link #getMapKey}、{@link #containsMapKey}、{@link #containsMapKeyValue}
+	 * 等 map 格式字符串方法同样使用缓存的 {@link ValueMap}。
+	 * </p>
+	 * @param threshold 字符数达到该值时缓存解析结果, {@link Integer#MAX_VALUE} 表示不缓存
+	 */
+	public static void setValueListCacheThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("the value list cache threshold cannot be negative: " + threshold);
+		}
+		valueListCacheThreshold = threshold;
+	}
+
+	/**
+	 * 批量值操作的散列阈值
+	 * @return 批量查询的项数达到该值时对被查询的列表建立散列索引
+	 * @see #setValueSetThreshold(int)
+	 */
+	public static int getValueSetThreshold() {
+		return valueSetThreshold;
+	}
+
+	/**
+	 * 设置批量值操作的散列阈值
+	 * <p>
+	 * {@link #containsAll}、{@link #containsAny}、{@link #removeAll}、{@link #retainAll}、{@link #addAll}
+	 * 逐个查询多个值时每次都要扫描整个列表; 查询的项数达到该值时先对被查询的列表建立一次散列索引,
+	 * 由 O(n·m) 降为 O(n+m), 结果的顺序及重复值的处理不变。
+	 * </p>
+	 * @param threshold 查询的项数达到该值时使用散列索引, {@link Integer#MAX_VALUE} 表示始终逐项扫描
+	 */
+	public static void setValueSetThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("the value set threshold cannot be negative: " + threshold);
+		}
+		valueSetThreshold = threshold;
+	}
+
+	/**
+	 * 渲染监听器
+	 * @return 已注册的渲染监听器, 未注册时返回null
+	 * @see TextRenderStatistics
+	 */
+	public static TextRenderListener getRenderListener() {
+		return renderListener;
+	}
+
+	/**
+	 * 注册渲染监听器, 每次最外层的格式化或模板渲染完成时回调
+	 * @param listener 渲染监听器, 为null时取消注册(不做任何记录)
+	 * @see TextRenderStatistics
+	 */
+	public static void setRenderListener(TextRenderListener listener) {
+		renderListener = listener;
+	}
+
+	/**
+	 * 记录一次通过反射等通用方式的取值(已注册渲染监听器时)
+	 */
+	static void recordSlowPath() {
+		if (renderListener != null) {
+			RenderRecorder.recordSlowPath();
+		}
+	}
+
 	/**
 	 * 根据标签获取已注册的格式类型
 	 *
@@ -310,7 +524,8 @@ public class TextUtils {
 	/**
 	 * 根据内容自动匹配格式类型
 	 * <p>
-	 * 遍历所有支持自动匹配的格式类型，找到第一个初步匹配的类型。
+	 * 按注册顺序找到第一个初步匹配的支持自动匹配的格式类型。
+	 * 匹配时以首个非空白字符查预先生成的匹配表, 只检查可能匹配的格式类型, 不生成去除空白后的字符串。
 	 * 如果没有匹配到，返回默认的 SIMPLE 格式。
 	 * </p>
 	 *
@@ -324,14 +539,7 @@ public class TextUtils {
 	 * }</pre>
 	 */
 	public static TextFormatType lookupFormatType(String content) {
-		if (Objects.nonNull(content) && !EMPTY.equals(content = content.trim())) {
-			for (TextFormatType value : AUTO_MATCH_FORMAT_TYPE_QUEUE) {
-				if (value.preliminaryMatch(content)) {
-					return value;
-				}
-			}
-		}
-		return FormatTypeEnum.SIMPLE;
+		return formatTypeMatcher.match(content);
 	}
 	@Deprecated
 	public static TextFormatType getDataType(String content) {
@@ -511,6 +719,11 @@ public class TextUtils {
 			// 如果没有占位符
 			return result;
 		}
+		// 已编译模板的签名
+		TextTemplate template = TEMPLATE_CACHE.lookup(pattern, alternateHolderEnabled, simplified);
+		if (template != null) {
+			return template.getSignature().parseParamMap(result, params);
+		}
 		// 使用解析器
 		Resolver resolver = createResolver(alternateHolderEnabled, simplified);
 		char holder = getHolderStartChar(alternateHolderEnabled, simplified);
@@ -897,6 +1110,280 @@ public class TextUtils {
 		return format0(true, lookupFormatType(pattern), pattern, null, params, null, null, false);
 	}
 
+	/**
+	 * 格式化字符串到输出目标（使用 ${xxx} 占位符）
+	 * <p>
+	 * 与 {@link #format(TextFormatType, String, Object, Object)} 结果一致, 但内容直接写入输出目标(如 Writer、StringBuilder),
+	 * 不生成完整的结果字符串。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param textFormatType 数据格式类型
+	 * @param pattern 模板字符串
+	 * @param configParams 配置参数对象
+	 * @param params 占位符参数
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public static <A extends Appendable> A formatTo(A out, TextFormatType textFormatType, String pattern, Object configParams, Object params) throws IOException {
+		return formatTo0(out, false, textFormatType, pattern, configParams, params, false);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 ${xxx} 占位符）
+	 * <p>
+	 * 便捷方法，自动检测数据格式类型。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param param 单个参数对象
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #formatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A formatTo(A out, String pattern, Object param) throws IOException {
+		return formatTo0(out, false, lookupFormatType(pattern), pattern, null, param, false);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 ${xxx} 占位符，数组参数）
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param params 可变参数数组
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #formatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A formatTo(A out, String pattern, Object... params) throws IOException {
+		return formatTo0(out, false, lookupFormatType(pattern), pattern, null, params, false);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 {xxx} 占位符）
+	 * <p>
+	 * 与 {@link #simplifiedFormat(TextFormatType, String, Object, Object)} 结果一致, 但内容直接写入输出目标(如 Writer、StringBuilder),
+	 * 不生成完整的结果字符串。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param textFormatType 数据格式类型
+	 * @param pattern 模板字符串
+	 * @param configParams 配置参数对象
+	 * @param params 占位符参数
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public static <A extends Appendable> A simplifiedFormatTo(A out, TextFormatType textFormatType, String pattern, Object configParams, Object params) throws IOException {
+		return formatTo0(out, false, textFormatType, pattern, configParams, params, true);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 {xxx} 占位符）
+	 * <p>
+	 * 便捷方法，自动检测数据格式类型。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param param 单个参数对象
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #simplifiedFormatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A simplifiedFormatTo(A out, String pattern, Object param) throws IOException {
+		return formatTo0(out, false, lookupFormatType(pattern), pattern, null, param, true);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 {xxx} 占位符，数组参数）
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param params 可变参数数组
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #simplifiedFormatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A simplifiedFormatTo(A out, String pattern, Object... params) throws IOException {
+		return formatTo0(out, false, lookupFormatType(pattern), pattern, null, params, true);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 (xxx) 占位符）
+	 * <p>
+	 * 与 {@link #alternateSimplifiedFormat(TextFormatType, String, Object, Object)} 结果一致, 但内容直接写入输出目标(如 Writer、StringBuilder),
+	 * 不生成完整的结果字符串。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param textFormatType 数据格式类型
+	 * @param pattern 模板字符串
+	 * @param configParams 配置参数对象
+	 * @param params 占位符参数
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public static <A extends Appendable> A alternateSimplifiedFormatTo(A out, TextFormatType textFormatType, String pattern, Object configParams, Object params) throws IOException {
+		return formatTo0(out, true, textFormatType, pattern, configParams, params, true);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 (xxx) 占位符）
+	 * <p>
+	 * 便捷方法，自动检测数据格式类型。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param param 单个参数对象
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #alternateSimplifiedFormatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A alternateSimplifiedFormatTo(A out, String pattern, Object param) throws IOException {
+		return formatTo0(out, true, lookupFormatType(pattern), pattern, null, param, true);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 (xxx) 占位符，数组参数）
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param params 可变参数数组
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #alternateSimplifiedFormatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A alternateSimplifiedFormatTo(A out, String pattern, Object... params) throws IOException {
+		return formatTo0(out, true, lookupFormatType(pattern), pattern, null, params, true);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 $(xxx) 占位符）
+	 * <p>
+	 * 与 {@link #alternateFormat(TextFormatType, String, Object, Object)} 结果一致, 但内容直接写入输出目标(如 Writer、StringBuilder),
+	 * 不生成完整的结果字符串。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param textFormatType 数据格式类型
+	 * @param pattern 模板字符串
+	 * @param configParams 配置参数对象
+	 * @param params 占位符参数
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 */
+	public static <A extends Appendable> A alternateFormatTo(A out, TextFormatType textFormatType, String pattern, Object configParams, Object params) throws IOException {
+		return formatTo0(out, true, textFormatType, pattern, configParams, params, false);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 $(xxx) 占位符）
+	 * <p>
+	 * 便捷方法，自动检测数据格式类型。
+	 * </p>
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param param 单个参数对象
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #alternateFormatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A alternateFormatTo(A out, String pattern, Object param) throws IOException {
+		return formatTo0(out, true, lookupFormatType(pattern), pattern, null, param, false);
+	}
+
+	/**
+	 * 格式化字符串到输出目标（使用 $(xxx) 占位符，数组参数）
+	 *
+	 * @param out 输出目标
+	 * @param pattern 模板字符串
+	 * @param params 可变参数数组
+	 * @param <A> 输出目标类型
+	 * @return 输出目标
+	 * @throws IOException 输出异常
+	 * @see #alternateFormatTo(Appendable, TextFormatType, String, Object, Object)
+	 */
+	public static <A extends Appendable> A alternateFormatTo(A out, String pattern, Object... params) throws IOException {
+		return formatTo0(out, true, lookupFormatType(pattern), pattern, null, params, false);
+	}
+
+	/**
+	 * 批量格式化字符串（使用 ${xxx} 占位符）
+	 * <p>
+	 * 模板只编译一次, 参数数量达到 {@link #getParallelFormatThreshold()} 时使用 ForkJoin 公共线程池并行格式化,
+	 * 结果顺序与参数顺序一致。
+	 * </p>
+	 *
+	 * @param pattern 模板字符串
+	 * @param paramsList 各项的参数对象（如 Map 或普通对象）
+	 * @return 格式化后的字符串列表
+	 * @example
+	 * <pre>{@code
+	 * List<String> contents = TextUtils.formatAll("尊敬的${name}, 您的订单${orderNo}已发货", recipients);
+	 * }</pre>
+	 */
+	public static List<String> formatAll(String pattern, List<?> paramsList) {
+		return formatAll(lookupFormatType(pattern), pattern, null, paramsList);
+	}
+
+	/**
+	 * 批量格式化字符串（使用 ${xxx} 占位符）
+	 *
+	 * @param textFormatType 数据格式类型
+	 * @param pattern 模板字符串
+	 * @param configParams 配置参数对象
+	 * @param paramsList 各项的参数对象
+	 * @return 格式化后的字符串列表
+	 * @see #formatAll(String, List)
+	 */
+	public static List<String> formatAll(TextFormatType textFormatType, String pattern, Object configParams, List<?> paramsList) {
+		return TEMPLATE_CACHE.getTemplate(pattern, false, false).renderAll(textFormatType, paramsList, configParams);
+	}
+
+	/**
+	 * 批量格式化字符串（使用 ${xxx} 占位符）
+	 * <p>
+	 * 模板只编译一次, 返回按参数流逐项格式化的流, 参数流为并行流时并行格式化, 顺序与参数流一致。
+	 * </p>
+	 *
+	 * @param pattern 模板字符串
+	 * @param paramsStream 各项的参数对象流
+	 * @return 格式化后的字符串流
+	 */
+	public static Stream<String> formatAll(String pattern, Stream<?> paramsStream) {
+		return formatAll(lookupFormatType(pattern), pattern, null, paramsStream);
+	}
+
+	/**
+	 * 批量格式化字符串（使用 ${xxx} 占位符）
+	 *
+	 * @param textFormatType 数据格式类型
+	 * @param pattern 模板字符串
+	 * @param configParams 配置参数对象
+	 * @param paramsStream 各项的参数对象流
+	 * @return 格式化后的字符串流
+	 * @see #formatAll(String, Stream)
+	 */
+	public static Stream<String> formatAll(TextFormatType textFormatType, String pattern, Object configParams, Stream<?> paramsStream) {
+		TextTemplate template = TEMPLATE_CACHE.getTemplate(pattern, false, false);
+		return paramsStream.map(params -> template.render(textFormatType, params, configParams));
+	}
+
 	/**
 	 * 格式化字符串文本
 	 *
@@ -915,8 +1402,128 @@ public class TextUtils {
 			// 普通文本
 			return pattern;
 		}
-		// 解析后的内容
-		StringBuilder content = new StringBuilder();
+		TextRenderListener listener = renderListener;
+		if (listener == null) {
+			// 已编译的模板
+			TextTemplate template = TEMPLATE_CACHE.lookup(pattern, alternateHolderEnabled, simplified);
+			if (template != null) {
+				return template.format(textFormatType, configParams, params, thisValue, thisIndex);
+			}
+			return resolveFormat(alternateHolderEnabled, textFormatType, pattern, configParams, params, thisValue, thisIndex, simplified);
+		}
+		// 记录渲染
+		long startNanos = System.nanoTime();
+		RenderRecorder recorder = RenderRecorder.enter();
+		TextTemplate template = null;
+		String result = null;
+		try {
+			template = TEMPLATE_CACHE.lookup(pattern, alternateHolderEnabled, simplified);
+			if (template != null) {
+				result = template.format(textFormatType, configParams, params, thisValue, thisIndex);
+			} else {
+				result = resolveFormat(alternateHolderEnabled, textFormatType, pattern, configParams, params, thisValue, thisIndex, simplified);
+			}
+			return result;
+		} finally {
+			recorder.exit(listener, pattern, template != null, startNanos, result != null ? result.length() : -1);
+		}
+	}
+
+	/**
+	 * 格式化字符串文本到输出目标
+	 *
+	 * @param out                    输出目标
+	 * @param alternateHolderEnabled 是否使用备选占位符(即第一层占位符是否使用'()'代替'{}')
+	 * @param textFormatType         数据类型
+	 * @param pattern                待格式化内容
+	 * @param configParams           配置
+	 * @param params                 参数
+	 * @param simplified             是否简化占位符（即占位符不带$)
+	 * @return 返回输出目标
+	 */
+	private static <A extends Appendable> A formatTo0(A out, boolean alternateHolderEnabled, TextFormatType textFormatType, String pattern, Object configParams, Object params, boolean simplified) throws IOException {
+		if (isNormalText(pattern, alternateHolderEnabled, simplified)) {
+			// 普通文本
+			if (pattern != null) {
+				out.append(pattern);
+			}
+			return out;
+		}
+		TextRenderListener listener = renderListener;
+		if (listener == null) {
+			// 已编译的模板直接写入输出目标
+			TextTemplate template = TEMPLATE_CACHE.lookup(pattern, alternateHolderEnabled, simplified);
+			if (template != null) {
+				return template.renderTo(out, textFormatType, params, configParams);
+			}
+			// 未缓存(含准入前第一次出现)的模板使用解析器格式化, 不编译
+			resolveFormatTo(out, alternateHolderEnabled, textFormatType, pattern, configParams, params, simplified);
+			return out;
+		}
+		// 记录渲染
+		long startNanos = System.nanoTime();
+		RenderRecorder recorder = RenderRecorder.enter();
+		TextTemplate template = null;
+		long outputLength = -1;
+		try {
+			template = TEMPLATE_CACHE.lookup(pattern, alternateHolderEnabled, simplified);
+			if (template != null) {
+				outputLength = template.writeTo(out, textFormatType, params, configParams);
+			} else {
+				outputLength = resolveFormatTo(out, alternateHolderEnabled, textFormatType, pattern, configParams, params, simplified);
+			}
+			return out;
+		} finally {
+			recorder.exit(listener, pattern, template != null, startNanos, outputLength);
+		}
+	}
+
+	/**
+	 * 使用解析器格式化字符串文本(未编译的模板)
+	 */
+	private static String resolveFormat(boolean alternateHolderEnabled, TextFormatType textFormatType, String pattern, Object configParams, Object params, Object thisValue, Integer thisIndex, boolean simplified) {
+		// 解析后的内容(复用当前线程的格式化缓冲)
+		StringBuilder content = TextBuffers.acquire(pattern.length() + (pattern.length() >> 1));
+		try {
+			resolveFormat(content, alternateHolderEnabled, textFormatType, pattern, configParams, params, thisValue, thisIndex, simplified);
+			// 返回解析后结果
+			return content.toString();
+		} finally {
+			TextBuffers.release(content);
+		}
+	}
+
+	/**
+	 * 使用解析器格式化字符串文本到输出目标(未编译的模板): 解析到当前线程的格式化缓冲后整段写入, 不生成中间结果字符串
+	 * @return 写入的字符数
+	 */
+	private static int resolveFormatTo(Appendable out, boolean alternateHolderEnabled, TextFormatType textFormatType, String pattern, Object configParams, Object params, boolean simplified) throws IOException {
+		StringBuilder content = TextBuffers.acquire(pattern.length() + (pattern.length() >> 1));
+		try {
+			resolveFormat(content, alternateHolderEnabled, textFormatType, pattern, configParams, params, null, null, simplified);
+			int length = content.length();
+			if (out instanceof Writer) {
+				// Writer.append(CharSequence)会先转换为字符串, 分段复制字符写入
+				Writer writer = (Writer) out;
+				char[] chunk = new char[Math.min(length, WRITE_CHUNK_CHARS)];
+				for (int start = 0; start < length; start += chunk.length) {
+					int end = Math.min(length, start + chunk.length);
+					content.getChars(start, end, chunk, 0);
+					writer.write(chunk, 0, end - start);
+				}
+			} else {
+				out.append(content);
+			}
+			return length;
+		} finally {
+			TextBuffers.release(content);
+		}
+	}
+
+	/**
+	 * 使用解析器格式化字符串文本并附加到格式化缓冲
+	 */
+	private static void resolveFormat(StringBuilder content, boolean alternateHolderEnabled, TextFormatType textFormatType, String pattern, Object configParams, Object params, Object thisValue, Integer thisIndex, boolean simplified) {
 		// 使用解析器
 		Resolver resolver = createResolver(alternateHolderEnabled, simplified);
 		char holder = getHolderStartChar(alternateHolderEnabled, simplified);
@@ -942,19 +1549,17 @@ public class TextUtils {
 				resolver.appendTo(content, false);
 			}
 		}
-		// 返回解析后结果
-		return content.toString();
 	}
 
 
-	private static char getHolderStartChar(boolean alternateHolderEnabled, boolean simplified) {
+	static char getHolderStartChar(boolean alternateHolderEnabled, boolean simplified) {
 		if (simplified) {
 			return  '\0';
 		}
 		return alternateHolderEnabled ? PARENTHESES_START.charAt(0) : BRACE_START.charAt(0);
 	}
 
-	private static boolean isNormalText(String pattern, boolean alternateHolderEnabled, boolean simplified) {
+	static boolean isNormalText(String pattern, boolean alternateHolderEnabled, boolean simplified) {
 		if (isEmpty(pattern)) {
 			// 内容为空时
 			return true;
@@ -970,7 +1575,7 @@ public class TextUtils {
 		}
 	}
 
-	private static Resolver createResolver(boolean alternateHolderEnabled, boolean simplified) {
+	static Resolver createResolver(boolean alternateHolderEnabled, boolean simplified) {
 		if (alternateHolderEnabled) {
 			if (simplified) {
 				return ResolverUtils.createResolver(PARENTHESES_START + BRACE_START + BRACKET_START + EQUAL + SEMICOLON + SEPARATOR, PARENTHESES_END + BRACE_END + BRACKET_END, true);
@@ -1068,13 +1673,13 @@ public class TextUtils {
 		boolean parsed = false;
 		if (parameters == null || parameters.length > 0) {
 			int startLen = content.length();
-			if (value instanceof Iterable) {
+			Iterator<?> iterator = repeatedIterator(value);
+			if (iterator != null) {
 				// 获取解析开始位置
 				int resolverStart = resolver.isInTokens() ? resolver.getStart(false) - 1 : resolver.getStart();
 				// 前缀
 				String prefix = startLen == originPosition ? EMPTY : content.substring(originPosition);
 				// 循环处理项
-				Iterator<?> iterator = ((Iterable<?>) value).iterator();
 				boolean hasNext = (parsed = iterator.hasNext());
 				int index = 0;
 				while (hasNext) {
@@ -1133,6 +1738,48 @@ public class TextUtils {
 
 
 
+	/**
+	 * 获取重复值的迭代器
+	 * <p>
+	 * 集合、迭代器、流、Spliterator及基本类型数组(int[]/long[]/double[])作为重复值逐项输出, 流等惰性值在输出时才逐项获取。
+	 * </p>
+	 * @param value 占位值
+	 * @return 重复值的迭代器(基本类型数组及基本类型流返回 {@link PrimitiveIterator}), 不是重复值时返回null(对象数组另外处理)
+	 */
+	static Iterator<?> repeatedIterator(Object value) {
+		if (value instanceof Iterable) {
+			return ((Iterable<?>) value).iterator();
+		} else if (value instanceof Iterator) {
+			return (Iterator<?>) value;
+		} else if (value instanceof BaseStream) {
+			return ((BaseStream<?, ?>) value).iterator();
+		} else if (value instanceof Spliterator) {
+			Spliterator<?> spliterator = (Spliterator<?>) value;
+			if (spliterator instanceof Spliterator.OfInt) {
+				return Spliterators.iterator((Spliterator.OfInt) spliterator);
+			} else if (spliterator instanceof Spliterator.OfLong) {
+				return Spliterators.iterator((Spliterator.OfLong) spliterator);
+			} else if (spliterator instanceof Spliterator.OfDouble) {
+				return Spliterators.iterator((Spliterator.OfDouble) spliterator);
+			}
+			return Spliterators.iterator(spliterator);
+		} else if (value instanceof int[]) {
+			return Spliterators.iterator(Spliterators.spliterator((int[]) value, Spliterator.ORDERED));
+		} else if (value instanceof long[]) {
+			return Spliterators.iterator(Spliterators.spliterator((long[]) value, Spliterator.ORDERED));
+		} else if (value instanceof double[]) {
+			return Spliterators.iterator(Spliterators.spliterator((double[]) value, Spliterator.ORDERED));
+		}
+		return null;
+	}
+
+	/**
+	 * 是否使用默认的对象转字符串方法
+	 */
+	static boolean isDefaultObjectToString() {
+		return getInstance().getClass() == TextUtils.class;
+	}
+
 	private static StringBuilder appendFormatValue(StringBuilder content, Resolver resolver, TextFormatType textFormatType, String[] parameters, Object value, boolean nonForce, boolean appendForEmpty, int originPosition, boolean isLastValue) {
 		// 格式化值
 		String stringValue = TextUtils.isEmpty(value) ? TextUtils.toString(value) : textFormatType.formatValue(value, Objects.nonNull(parameters) ? parameters : ArrayConstants.EMPTY_STRING_ARRAY);
@@ -1194,30 +1841,48 @@ public class TextUtils {
 	private static Object getConfigValue(Resolver resolver, Object thisValue, Integer thisIndex, Object configParams) {
 		// 是否有格式指定
 		String format = (String) resolver.getInput();
-		int startIndex = resolver.getStart() + 1;
-		int endIndex = resolver.getEnd();
+		String name = format.substring(resolver.getStart() + 1, resolver.getEnd());
 		// 获取下一步内容
 		resolver.hasNext();
+		return getConfigValue(name, thisValue, thisIndex, configParams);
+	}
+
+	/**
+	 * 获取配置值
+	 * @param name 配置属性名(不含$符号)
+	 * @param thisValue 当前项值
+	 * @param thisIndex 当前项索引
+	 * @param configParams 配置参数对象
+	 * @return 返回配置值
+	 */
+	static Object getConfigValue(String name, Object thisValue, Integer thisIndex, Object configParams) {
 		// 获取当前值
-		if (format.startsWith("this", startIndex)) {
+		if (name.startsWith("this")) {
 			// $this.xxx
-			if (endIndex == startIndex + 4) {
+			if (name.length() == 4) {
 				return thisValue;
 			}
-			if (format.charAt(startIndex + 4) == '.') {
-				return BeanHelper.getProperty(thisValue, format.substring(startIndex + 5, endIndex));
+			if (name.charAt(4) == '.') {
+				if (!(thisValue instanceof Map)) {
+					recordSlowPath();
+				}
+				return BeanHelper.getProperty(thisValue, name.substring(5));
 			}
-		} else if (format.startsWith("idx", startIndex)) {
+		} else if (name.startsWith("idx")) {
 			//返回索引: $idx
-			if (endIndex == startIndex + 3) {
+			if (name.length() == 3) {
 				return thisIndex;
 			}
-			if (format.charAt(startIndex + 3) == '.') {
-				return BeanHelper.getProperty(thisIndex, format.substring(startIndex + 4, endIndex));
+			if (name.charAt(3) == '.') {
+				recordSlowPath();
+				return BeanHelper.getProperty(thisIndex, name.substring(4));
 			}
 		}
 		// 返回属性值
-		return BeanHelper.getProperty(configParams, format.substring(startIndex, endIndex));
+		if (!(configParams instanceof Map)) {
+			recordSlowPath();
+		}
+		return BeanHelper.getProperty(configParams, name);
 	}
 
 	private static Object formatValue(Resolver resolver, Object value, Integer valueIndex, Object configParams, Object params, boolean alternateHolderEnabled, boolean simplified) {
@@ -1361,7 +2026,7 @@ public class TextUtils {
         return null;
     }
 
-	private static String[] parseParameters(Resolver resolver, String pFlag, String oriDelim) {
+	static String[] parseParameters(Resolver resolver, String pFlag, String oriDelim) {
 		if (!resolver.isInTokens() && resolver.endsInTokens(pFlag)) {
 			// 获取参数
 			resolver.hasNext(pFlag);
@@ -1402,21 +2067,35 @@ public class TextUtils {
 	}
 
 	private static Object getPropertyValue(Resolver resolver, Object params, int offset) {
+		return getPropertyValue(resolver.next(false, true), resolver.nextInt(), params, offset);
+	}
+
+	/**
+	 * 获取属性值
+	 * @param name 属性名
+	 * @param index 属性名对应的数字索引, 非数字时为-1
+	 * @param params 参数对象
+	 * @param offset 参数偏移量
+	 * @return 返回属性值
+	 */
+	static Object getPropertyValue(String name, int index, Object params, int offset) {
 		boolean noProperty = true;
-		String name = resolver.next(false, true);
 		Object propValue = null;
 		if (name.contains(".")) {
 			// 获取属性
+			recordSlowPath();
 			propValue = BeanHelper.getProperty(params, name);
 			if (propValue != null || BeanHelper.getPropertyType(params, name) != null) {
 				noProperty = false;
 			}
 		}
 		if (noProperty && params != null) {
-			int index = resolver.nextInt();
 			propValue = getItemValue(params, index < 0 ? offset : index);
 			if (propValue == params && !isEmpty(name)) {
 				// 如果不是列表或数组
+				if (!(params instanceof Map)) {
+					recordSlowPath();
+				}
 				propValue = BeanHelper.getProperty(params, name);
 				if (propValue == null && (offset == 0 && index < 0 || index == 0) && Modifier.isFinal(params.getClass().getModifiers()) && BeanHelper.getPropertyType(params, name) == null) {
 					propValue = params;
@@ -1427,7 +2106,7 @@ public class TextUtils {
 	}
 
 
-	private static Object getItemValue(Object params, int index) {
+	static Object getItemValue(Object params, int index) {
 		if (Objects.nonNull(params) && params.getClass().isArray()) {
 			return index < Array.getLength(params) ? Array.get(params, index) : null;
 		}
@@ -1586,6 +2265,74 @@ public class TextUtils {
 		return indexOf(valueList, prefix, true, true, SEPARATOR);
 	}
 
+	/**
+	 * 使用预编译的查找器查询值在值列表中的位置（分隔符为查找器的项分隔符）
+	 * <p>
+	 * 结果与 {@link #indexOf(String, Object, boolean, boolean, String)} 一致, 但整体查找查找器预先拼接的 "项分隔符+值",
+	 * 不再逐项比较, 适合长分隔符、长值且同一个值被反复查找的场景。返回值索引时需要再统计匹配位置之前的分隔符个数。
+	 * </p>
+	 *
+	 * @param valueList        字符串值集合(用项分隔符隔开各值)
+	 * @param matcher          查找器
+	 * @param valueIndexOfList true-返回值在列表中的值索引，false-返回值在列表中的字符索引
+	 * @param startsLike true-只匹配前缀，false-精确匹配
+	 * @return 位置索引，未找到或查找器为null时返回 -1
+	 * @example
+	 * <pre>{@code
+	 * ValueMatcher matcher = ValueMatcher.of("token-b", "||");
+	 * TextUtils.indexOf("token-a||token-b", matcher, true, false);    // -> 1
+	 * TextUtils.indexOf("token-a||token-b", matcher, false, false);   // -> 9
+	 * }</pre>
+	 */
+	public static int indexOf(String valueList, ValueMatcher matcher, boolean valueIndexOfList, boolean startsLike) {
+		if (matcher == null) {
+			return -1;
+		}
+		String value = matcher.getValue();
+		String separator = matcher.getSeparator();
+		ValueList cached = ValueList.cached(valueList, separator);
+		if (cached != null) {
+			return cached.index().indexOf(valueList, value, 0, value.length(), valueIndexOfList, startsLike);
+		}
+		return matcher.indexOf(valueList, valueIndexOfList, startsLike);
+	}
+
+	/**
+	 * 使用预编译的查找器查询值在值列表中的值索引
+	 *
+	 * @param valueList 字符串值列表
+	 * @param matcher   查找器
+	 * @return 值的位置索引，未找到返回 -1
+	 * @see #indexOf(String, ValueMatcher, boolean, boolean)
+	 */
+	public static int indexOfValue(String valueList, ValueMatcher matcher) {
+		return indexOf(valueList, matcher, true, false);
+	}
+
+	/**
+	 * 使用预编译的查找器检查值列表中是否包含指定值
+	 *
+	 * @param valueList 字符串值列表
+	 * @param matcher   查找器
+	 * @return 如果包含该值返回 true，否则返回 false
+	 * @see #indexOf(String, ValueMatcher, boolean, boolean)
+	 */
+	public static boolean containsValue(String valueList, ValueMatcher matcher) {
+		return indexOf(valueList, matcher, false, false) >= 0;
+	}
+
+	/**
+	 * 使用预编译的查找器查询第一个以指定前缀开头的项的值索引
+	 *
+	 * @param valueList 字符串值列表
+	 * @param matcher   前缀的查找器
+	 * @return 值的位置索引，未找到返回 -1
+	 * @see #indexOf(String, ValueMatcher, boolean, boolean)
+	 */
+	public static int indexOfPrefix(String valueList, ValueMatcher matcher) {
+		return indexOf(valueList, matcher, true, true);
+	}
+
 	private static int indexOf(String valueList, String value, int offset, int len, boolean valueIndexOfList, boolean startsLike, String separator) {
 		if (valueList == null || len < 0 || valueList.length() < len) {
 			return -1;
@@ -1593,6 +2340,10 @@ public class TextUtils {
 		if (isEmpty(separator)) {
 			return valueList.indexOf(value.substring(offset, offset + len));
 		}
+		ValueList cached = ValueList.cached(valueList, separator);
+		if (cached != null) {
+			return cached.index().indexOf(valueList, value, offset, len, valueIndexOfList, startsLike);
+		}
 		if (valueList.regionMatches(0, value, offset, len) && (startsLike || valueList.length() == len || valueList.startsWith(separator, len))) {
 			return 0;
 		}
@@ -1612,6 +2363,51 @@ public class TextUtils {
 		return -1;
 	}
 
+	/**
+	 * 批量查询时被查询列表的散列索引
+	 * @param valueList 被查询的值列表
+	 * @param values    要查询的多个值
+	 * @param separator 项分隔符
+	 * @return 查询的项数达到散列阈值时返回散列索引, 否则返回null(逐项扫描)
+	 */
+	private static ValueList.Index valueSetIndex(String valueList, String values, String separator) {
+		if (!isValueSet(valueList, values, separator)) {
+			return null;
+		}
+		ValueList cached = ValueList.cached(valueList, separator);
+		return cached != null ? cached.index() : new ValueList.Index(valueList, separator);
+	}
+
+	/**
+	 * 批量查询的项数是否达到散列阈值
+	 * @param valueList 被查询的值列表
+	 * @param values    要查询的多个值
+	 * @param separator 项分隔符
+	 * @return 达到散列阈值且可以使用散列索引时返回true
+	 */
+	private static boolean isValueSet(String valueList, String values, String separator) {
+		if (isEmpty(valueList) || isEmpty(separator) || ValueList.isSelfOverlapping(separator)) {
+			return false;
+		}
+		int threshold = valueSetThreshold;
+		int count = 1;
+		for (int start = 0; count < threshold; count ++) {
+			start = values.indexOf(separator, start);
+			if (start < 0) {
+				return false;
+			}
+			start += separator.length();
+		}
+		return true;
+	}
+
+	private static int indexOf(ValueList.Index index, String valueList, String value, int offset, int len, String separator) {
+		if (index != null) {
+			return index.indexOf(valueList, value, offset, len, false, false);
+		}
+		return indexOf(valueList, value, offset, len, false, false, separator);
+	}
+
 
 	/**
 	 * 从值列表中移除第一个匹配的值
@@ -2028,15 +2824,16 @@ public class TextUtils {
 			return false;
 		}
 		// 拆分 values 逐个检查
+		ValueList.Index index = valueSetIndex(valueList, values, separator);
 		int start = 0;
 		while (start < values.length()) {
 			int end = values.indexOf(separator, start);
 			if (end < 0) {
 				// 最后一个值
-				return indexOf(valueList, values, start, values.length() - start, false, false, separator) != -1;
+				return indexOf(index, valueList, values, start, values.length() - start, separator) != -1;
 			}
 			// 检查当前分段是否存在于 valueList 中
-			if ((indexOf(valueList, values, start, end - start, false, false, separator) != -1) == any) {
+			if ((indexOf(index, valueList, values, start, end - start, separator) != -1) == any) {
 				return any;
 			}
 			start = end + separator.length();
@@ -2076,6 +2873,9 @@ public class TextUtils {
 		if (isEmpty(separator)) {
 			return valueList.equals(values) ? EMPTY : valueList.replace(values, EMPTY);
 		}
+		if (isValueSet(valueList, values, separator)) {
+			return removeAllHashed(valueList, values, separator);
+		}
 		int start = 0;
 		while (start < values.length()) {
 			int end = values.indexOf(separator, start);
@@ -2096,6 +2896,54 @@ public class TextUtils {
 		return valueList;
 	}
 
+	/**
+	 * 按散列表批量移除: 每个值移除列表中对应次数的最先出现的项, 与逐个调用 {@link #removeValue(String, Object, String)} 一致
+	 * <p>
+	 * 散列索引建立在要移除的值上, 列表的各项按字符区间查找, 不截取子串。
+	 * </p>
+	 */
+	private static String removeAllHashed(String valueList, String values, String separator) {
+		ValueList.Index index = new ValueList.Index(values, separator);
+		// 按值第一次出现的索引记录要移除的次数
+		int[] counts = new int[index.size()];
+		int start = 0;
+		while (start < values.length()) {
+			int end = values.indexOf(separator, start);
+			if (end < 0) {
+				end = values.length();
+			}
+			counts[index.indexOf(values, values, start, end - start, true, false)] ++;
+			start = end + separator.length();
+		}
+		StringBuilder result = null;
+		int kept = 0;
+		start = 0;
+		while (start <= valueList.length()) {
+			int end = valueList.indexOf(separator, start);
+			if (end < 0) {
+				end = valueList.length();
+			}
+			int valueIndex = index.indexOf(values, valueList, start, end - start, true, false);
+			if (valueIndex >= 0 && counts[valueIndex] > 0) {
+				counts[valueIndex] --;
+				if (result == null) {
+					// 第一个移除的项, 之前的项原样保留
+					result = new StringBuilder(valueList.length()).append(valueList, 0, Math.max(0, start - separator.length()));
+				}
+			} else {
+				if (result != null) {
+					if (kept > 0) {
+						result.append(separator);
+					}
+					result.append(valueList, start, end);
+				}
+				kept ++;
+			}
+			start = end + separator.length();
+		}
+		return result != null ? result.toString() : valueList;
+	}
+
 	/**
 	 * 向值列表中添加多个值（对于已存在的值忽略添加）
 	 *
@@ -2134,14 +2982,16 @@ public class TextUtils {
 		if (!values.contains(separator)) {
 			return  valueList + separator + values;
 		}
+		ValueList.Index index = valueSetIndex(valueList, values, separator);
 		int start = 0;
-		StringBuilder result = new StringBuilder(valueList);
+		StringBuilder result = new StringBuilder(valueList.length() + separator.length() + values.length());
+		result.append(valueList);
 		while (start < values.length()) {
 			int end = values.indexOf(separator, start);
 			if (end < 0) {
 				end = values.length();
 			}
-			if (start < end && indexOf(valueList, values, start, end - start, false, false, separator) == -1) {
+			if (start < end && indexOf(index, valueList, values, start, end - start, separator) == -1) {
 				result.append(separator).append(values, start, end);
 			}
 			start = end + separator.length();
@@ -2199,6 +3049,7 @@ public class TextUtils {
 		if (isEmpty(separator) || !firstList.contains(separator) || !secondList.contains(separator)) {
 			return EMPTY;
 		}
+		ValueList.Index index = valueSetIndex(secondList, firstList, separator);
 		int start = 0;
 		StringBuilder result = new StringBuilder();
 		while (start <= firstList.length()) {
@@ -2206,7 +3057,7 @@ public class TextUtils {
 			if (end < 0) {
 				end = firstList.length();
 			}
-			if (start <= end && indexOf(secondList, firstList, start, end - start, false, false, separator) != -1) {
+			if (start <= end && indexOf(index, secondList, firstList, start, end - start, separator) != -1) {
 				if (result.length() > 0) {
 					result.append(separator);
 				}
@@ -2248,6 +3099,10 @@ public class TextUtils {
 		if (isEmpty(separator)) {
 			return valueList.length();
 		}
+		ValueList cached = ValueList.cached(valueList, separator);
+		if (cached != null) {
+			return cached.size();
+		}
 		int start = 0;
 		int count = 1;
 		while ((start = valueList.indexOf(separator, start)) >= 0) {
@@ -2342,6 +3197,10 @@ public class TextUtils {
 		if (valueList == null) {
 			return null;
 		}
+		ValueList cached = ValueList.cached(valueList, separator);
+		if (cached != null) {
+			return cached.getValues(offset, len);
+		}
 		int end;
 		if (offset < 0) {
 			// 如果从后面位置开始算时，计算最后一个值的位置，并调整成向前获取
@@ -2513,6 +3372,93 @@ public class TextUtils {
 		return result;
 	}
 
+	/**
+	 * 惰性遍历值列表的各项（使用逗号分隔）
+	 *
+	 * @param valueList 字符串值列表，用逗号分隔
+	 * @return 各项的流
+	 * @see #stream(String, String)
+	 */
+	public static Stream<CharSequence> stream(String valueList) {
+		return stream(valueList, SEPARATOR);
+	}
+
+	/**
+	 * 惰性遍历值列表的各项（使用自定义分隔符）
+	 * <p>
+	 * 与 {@link #asList(String, String)} 的各项一致, 但不预先拆分整个列表: 遍历时才逐个查找分隔符,
+	 * 各项为原字符串的片段, 调用 toString 时才复制内容。流可在分隔符处拆分, 适合用 {@code parallel()} 并行处理很长的列表。
+	 * </p>
+	 *
+	 * @param valueList 字符串值列表
+	 * @param separator 项分隔符, 为空时每个字符为一项
+	 * @return 各项的流, 列表为null或空字符串时返回空流
+	 * @example
+	 * <pre>{@code
+	 * long count = TextUtils.stream(userIds, ",").parallel()
+	 *         .filter(id -> id.length() > 0)
+	 *         .count();
+	 * }</pre>
+	 */
+	public static Stream<CharSequence> stream(String valueList, String separator) {
+		if (isEmpty(valueList)) {
+			return Stream.empty();
+		}
+		if (isEmpty(separator)) {
+			return IntStream.range(0, valueList.length()).mapToObj(i -> new ValueList.Slice(valueList, i, i + 1));
+		}
+		return StreamSupport.stream(ValueSpliterators.items(valueList, separator), false);
+	}
+
+	/**
+	 * 惰性遍历 map 格式字符串的各 entry(使用默认分隔符: kvSeparator="=", entrySeparator=";", itemSeparator="")
+	 *
+	 * @param valueMap map 格式字符串
+	 * @return 各 entry 的流
+	 * @see #streamMap(String, String, String, String)
+	 */
+	public static Stream<Map.Entry<CharSequence, CharSequence>> streamMap(String valueMap) {
+		return streamMap(valueMap, EQUAL, SEMICOLON, EMPTY);
+	}
+
+	/**
+	 * 惰性遍历 map 格式字符串的各 entry(使用默认entity分隔符,自定义项分隔符)
+	 *
+	 * @param valueMap map 格式字符串
+	 * @param itemSeparator 项分隔符
+	 * @return 各 entry 的流
+	 * @see #streamMap(String, String, String, String)
+	 */
+	public static Stream<Map.Entry<CharSequence, CharSequence>> streamMap(String valueMap, String itemSeparator) {
+		return streamMap(valueMap, EQUAL, SEMICOLON, itemSeparator);
+	}
+
+	/**
+	 * 惰性遍历 map 格式字符串的各 entry
+	 * <p>
+	 * 按出现顺序返回, 空的 entry 跳过; 多 key 的 entry(如 {@code "k1,k2=v"}) 每个 key 返回一个 entry, value 相同;
+	 * 没有 kvSeparator 的 entry 的 key 为空字符串。key 与 value 为原字符串的片段, 流可在 entry 分隔符处拆分并行处理。
+	 * </p>
+	 *
+	 * @param valueMap map 格式字符串
+	 * @param kvSeparator key-value 分隔符
+	 * @param entrySeparator entry 分隔符
+	 * @param itemSeparator 项分隔符, 为空时 key 不再拆分
+	 * @return 各 entry 的流, 字符串为null或空字符串时返回空流
+	 * @example
+	 * <pre>{@code
+	 * TextUtils.streamMap("k1,k2=v1;k3=v3", "=", ";", ",")
+	 *         .map(e -> e.getKey() + ":" + e.getValue())
+	 *         .collect(Collectors.toList());   // -> ["k1:v1", "k2:v1", "k3:v3"]
+	 * }</pre>
+	 */
+	public static Stream<Map.Entry<CharSequence, CharSequence>> streamMap(String valueMap, String kvSeparator, String entrySeparator, String itemSeparator) {
+		if (isEmpty(valueMap)) {
+			return Stream.empty();
+		}
+		return StreamSupport.stream(ValueSpliterators.entries(valueMap, kvSeparator, entrySeparator, itemSeparator), false);
+	}
+
 
 	/**
 	 * 检查值列表中是否存在以指定前缀开头的项（使用自定义分隔符）
@@ -2925,6 +3871,11 @@ public class TextUtils {
 			// 无效参数
 			return -1;
 		}
+		// 已缓存的索引
+		ValueMap cached = ValueMap.cached(valueMap, kvSeparator, entrySeparator, itemSeparator);
+		if (cached != null) {
+			return cached.keyIndexOf(key);
+		}
 		// 获取 key 字符串
 		String keyStr = toString(key);
 		// key 长度
@@ -3134,6 +4085,11 @@ public class TextUtils {
 		if (isEmpty(valueMap) || value == null) {
 			return false;
 		}
+		// 已缓存的索引
+		ValueMap cached = ValueMap.cached(valueMap, kvSeparator, entrySeparator, itemSeparator);
+		if (cached != null) {
+			return cached.containsValue(value);
+		}
 		String valueStr = toString(value);
 		int mapLen = valueMap.length();
 		int entryStart = 0;
@@ -3247,6 +4203,11 @@ public class TextUtils {
 			// 无效参数
 			return false;
 		}
+		// 已缓存的索引
+		ValueMap cached = ValueMap.cached(valueMap, kvSeparator, entrySeparator, itemSeparator);
+		if (cached != null) {
+			return cached.containsKeyValue(key, value);
+		}
 		// 获取 key 和 value 的字符串表示
 		String keyStr = toString(key);
 		String valueStr = toString(value);
@@ -3672,6 +4633,11 @@ public class TextUtils {
 			// 空串都为不匹配
 			return null;
 		}
+		// 已缓存的索引
+		ValueMap cached = ValueMap.cached(valueMap, kvSeparator, entrySeparator, itemSeparator);
+		if (cached != null) {
+			return cached.getValue(key);
+		}
 		// key 值
 		String keyStr = toString(key);
 		// map 长度
@@ -3789,6 +4755,11 @@ public class TextUtils {
 			// 空串都为不匹配
 			return null;
 		}
+		// 已缓存的索引
+		ValueMap cached = ValueMap.cached(valueMap, kvSeparator, entrySeparator, itemSeparator);
+		if (cached != null) {
+			return cached.getKey(value);
+		}
 		String item = toString(value);
 		int mapLen = valueMap.length();
 		int entryStart = 0;
@@ -0,0 +1,112 @@
+package com.honzel.core.util.text;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+/**
+ * 按字符串实例缓存的解析结果
+ * <p>
+ * 直接映射的固定大小缓存, 以字符串实例(弱引用, 比较引用而非内容)及分隔符为键。
+ * 同一个字符串实例第一次出现时只记录, 再次出现时才解析并缓存, 避免只查询一次的字符串额外解析;
+ * 字符串被回收后对应的解析结果随之清除。并发访问时最多重复解析, 不需要加锁。
+ * </p>
+ *
+ * @param <T> 解析结果类型
+ * @author honzel
+ * @see ValueList
+ * @see ValueMap
+ */
+final class ValueIndexCache<T> {
+
+	/**
+	 * 解析器
+	 * @param <T> 解析结果类型
+	 */
+	@FunctionalInterface
+	interface Parser<T> {
+		/**
+		 * 解析字符串
+		 * @param source     字符串
+		 * @param separator  第一个分隔符
+		 * @param separator2 第二个分隔符
+		 * @param separator3 第三个分隔符
+		 * @return 解析结果
+		 */
+		T parse(String source, String separator, String separator2, String separator3);
+	}
+
+	private static final int SLOTS = 256;
+
+	private final Entry<T>[] entries;
+
+	private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+
+	private final Parser<T> parser;
+
+	@SuppressWarnings("unchecked")
+	ValueIndexCache(Parser<T> parser) {
+		this.parser = parser;
+		this.entries = (Entry<T>[]) new Entry<?>[SLOTS];
+	}
+
+	/**
+	 * 获取缓存的解析结果
+	 * @param source     字符串
+	 * @param separator  第一个分隔符
+	 * @param separator2 第二个分隔符
+	 * @param separator3 第三个分隔符
+	 * @return 解析结果, 字符串实例第一次出现时返回null
+	 */
+	T lookup(String source, String separator, String separator2, String separator3) {
+		int slot = System.identityHashCode(source) & (SLOTS - 1);
+		Entry<T> entry = entries[slot];
+		if (entry != null && entry.get() == source && entry.matches(separator, separator2, separator3)) {
+			if (entry.value != null) {
+				return entry.value;
+			}
+			// 再次出现时解析
+			T value = parser.parse(source, separator, separator2, separator3);
+			entries[slot] = new Entry<>(source, separator, separator2, separator3, value, slot, queue);
+			return value;
+		}
+		// 第一次出现时只记录
+		expunge();
+		entries[slot] = new Entry<>(source, separator, separator2, separator3, null, slot, queue);
+		return null;
+	}
+
+	/**
+	 * 清除已回收的字符串实例对应的解析结果
+	 */
+	private void expunge() {
+		Object stale;
+		while ((stale = queue.poll()) != null) {
+			int slot = ((Entry<?>) stale).slot;
+			if (entries[slot] == stale) {
+				entries[slot] = null;
+			}
+		}
+	}
+
+	private static final class Entry<T> extends WeakReference<String> {
+		private final String separator;
+		private final String separator2;
+		private final String separator3;
+		private final T value;
+		private final int slot;
+
+		Entry(String source, String separator, String separator2, String separator3, T value, int slot, ReferenceQueue<String> queue) {
+			super(source, queue);
+			this.separator = separator;
+			this.separator2 = separator2;
+			this.separator3 = separator3;
+			this.value = value;
+			this.slot = slot;
+		}
+
+		boolean matches(String separator, String separator2, String separator3) {
+			return Objects.equals(this.separator, separator) && Objects.equals(this.separator2, separator2) && Objects.equals(this.separator3, separator3);
+		}
+	}
+}
@@ -0,0 +1,500 @@
+package com.honzel.core.util.text;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 字符串值列表的解析视图
+ * <p>
+ * 对用项分隔符隔开各值的字符串(如 {@code "a,b,c"})解析一次各项的位置, 之后按索引取值及获取个数为O(1),
+ * 查询值(首次查询时建立散列索引)不再逐项扫描, 取值返回原字符串的片段, 不复制内容。视图不可变, 可被多个线程共享。
+ * </p>
+ * <p>
+ * 与 {@link TextUtils#getSize(String, String)}、{@link TextUtils#getValue(String, int, String)}、
+ * {@link TextUtils#getValues(String, int, int, String)}、{@link TextUtils#indexOfValue(String, Object, String)}
+ * 等方法的结果一致; 项分隔符为空时每个字符为一项。长度达到 {@link TextUtils#getValueListCacheThreshold()} 的列表,
+ * 以上静态方法按字符串实例(弱引用)缓存解析结果, 同一个字符串实例重复查询时自动使用。
+ * </p>
+ * <pre>{@code
+ * ValueList permissions = ValueList.of("user:add,user:edit,user:delete", ",");
+ * permissions.size();                  // -> 3
+ * permissions.get(1);                  // -> "user:edit"
+ * permissions.contains("user:delete"); // -> true
+ * permissions.indexOf("user:view");    // -> -1
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextUtils#getValueListCacheThreshold()
+ */
+public final class ValueList implements Iterable<CharSequence> {
+
+	/**
+	 * 按字符串实例缓存的解析结果
+	 */
+	private static final ValueIndexCache<Index> CACHE = new ValueIndexCache<>((source, separator, unused, unused2) -> new Index(source, separator));
+
+	private final String source;
+
+	private final Index index;
+
+	private ValueList(String source, Index index) {
+		this.source = source;
+		this.index = index;
+	}
+
+	/**
+	 * 解析逗号分隔的值列表
+	 * @param valueList 字符串值列表, 用逗号分隔
+	 * @return 值列表视图
+	 */
+	public static ValueList of(String valueList) {
+		return of(valueList, TextUtils.SEPARATOR);
+	}
+
+	/**
+	 * 解析值列表
+	 * @param valueList 字符串值列表, 为null或空字符串时没有任何项
+	 * @param separator 项分隔符, 为空时每个字符为一项
+	 * @return 值列表视图
+	 */
+	public static ValueList of(String valueList, String separator) {
+		if (valueList == null) {
+			valueList = TextUtils.EMPTY;
+		}
+		return new ValueList(valueList, new Index(valueList, separator == null ? TextUtils.EMPTY : separator));
+	}
+
+	/**
+	 * 原字符串值列表
+	 * @return 原字符串值列表
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * 项分隔符
+	 * @return 项分隔符
+	 */
+	public String getSeparator() {
+		return index.separator;
+	}
+
+	/**
+	 * 项数
+	 * @return 项数
+	 */
+	public int size() {
+		return index.starts.length;
+	}
+
+	public boolean isEmpty() {
+		return index.starts.length == 0;
+	}
+
+	/**
+	 * 获取指定位置的值(原字符串的片段, 不复制内容)
+	 * @param valueIndex 值在列表中的索引
+	 * @return 对应索引的值
+	 * @throws IndexOutOfBoundsException 索引超出列表元素边界时
+	 */
+	public CharSequence get(int valueIndex) {
+		checkIndex(valueIndex);
+		return new Slice(source, index.starts[valueIndex], index.end(valueIndex));
+	}
+
+	/**
+	 * 获取指定位置的值, 与 {@link TextUtils#getValue(String, int, String)} 一致
+	 * @param valueIndex 值在列表中的索引，负值代表从后面开始算
+	 * @return 对应索引的值，超出列表元素边界时返回 null
+	 */
+	public String getValue(int valueIndex) {
+		return getValues(valueIndex, 1);
+	}
+
+	/**
+	 * 获取指定位置的多个值, 与 {@link TextUtils#getValues(String, int, int, String)} 一致
+	 * @param offset 起始索引，负值代表从后面开始算
+	 * @param len 子列表长度，负值代表向后算
+	 * @return 对应范围的项字符串值，起始项超出列表元素边界时返回 null
+	 */
+	public String getValues(int offset, int len) {
+		return index.getValues(source, offset, len);
+	}
+
+	/**
+	 * 值在列表中的起始字符位置
+	 * @param valueIndex 值在列表中的索引
+	 * @return 起始字符位置
+	 */
+	public int startOf(int valueIndex) {
+		checkIndex(valueIndex);
+		return index.starts[valueIndex];
+	}
+
+	/**
+	 * 值在列表中的结束字符位置(不含)
+	 * @param valueIndex 值在列表中的索引
+	 * @return 结束字符位置
+	 */
+	public int endOf(int valueIndex) {
+		checkIndex(valueIndex);
+		return index.end(valueIndex);
+	}
+
+	/**
+	 * 是否包含指定值
+	 * @param value 搜索的值
+	 * @return 是否包含
+	 */
+	public boolean contains(Object value) {
+		return indexOf(value) >= 0;
+	}
+
+	/**
+	 * 查询指定值在列表中的位置, 与 {@link TextUtils#indexOfValue(String, Object, String)} 一致
+	 * @param value 搜索的值
+	 * @return 第一个匹配的值索引, 未找到返回-1
+	 */
+	public int indexOf(Object value) {
+		String item = TextUtils.toString(value);
+		return item != null ? index.indexOf(source, item, 0, item.length(), true, false) : -1;
+	}
+
+	/**
+	 * 查询第一个以指定前缀开头的值在列表中的位置, 与 {@link TextUtils#indexOfPrefix(String, Object, String)} 一致
+	 * @param prefix 搜索的前缀
+	 * @return 第一个匹配的值索引, 未找到返回-1
+	 */
+	public int indexOfPrefix(Object prefix) {
+		String item = TextUtils.toString(prefix);
+		return item != null ? index.indexOf(source, item, 0, item.length(), true, true) : -1;
+	}
+
+	@Override
+	public Iterator<CharSequence> iterator() {
+		return new Iterator<CharSequence>() {
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < index.starts.length;
+			}
+
+			@Override
+			public CharSequence next() {
+				if (next >= index.starts.length) {
+					throw new NoSuchElementException();
+				}
+				return get(next ++);
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+
+	Index index() {
+		return index;
+	}
+
+	private void checkIndex(int valueIndex) {
+		if (valueIndex < 0 || valueIndex >= index.starts.length) {
+			throw new IndexOutOfBoundsException("Index: " + valueIndex + ", Size: " + index.starts.length);
+		}
+	}
+
+	/**
+	 * 获取缓存的值列表视图, 供 TextUtils 中的值列表方法使用
+	 * <p>
+	 * 空列表、长度未达到缓存阈值、项分隔符为空或首尾重叠(如 {@code "||"}, 逐项扫描从后向前查找的分隔符与解析结果可能不同)时返回null(使用逐项扫描)。
+	 * 同一个字符串实例第一次出现时只记录, 再次出现时才解析并缓存, 避免只查询一次的列表额外解析。
+	 * </p>
+	 * @param valueList 字符串值列表
+	 * @param separator 项分隔符
+	 * @return 值列表视图, 不使用缓存时返回null
+	 */
+	static ValueList cached(String valueList, String separator) {
+		if (valueList == null || valueList.isEmpty() || valueList.length() < TextUtils.getValueListCacheThreshold() || separator == null || separator.isEmpty()
+				|| isSelfOverlapping(separator)) {
+			return null;
+		}
+		Index cached = CACHE.lookup(valueList, separator, null, null);
+		return cached != null ? new ValueList(valueList, cached) : null;
+	}
+
+	/**
+	 * 分隔符的前缀与后缀是否重叠(如 {@code ",,"}), 重叠时向前与向后查找的分隔符位置可能不同,
+	 * 值的结束位置也可能落在项中间的分隔符上
+	 */
+	static boolean isSelfOverlapping(String separator) {
+		int len = separator.length();
+		for (int k = 1; k < len; k++) {
+			if (separator.regionMatches(0, separator, len - k, k)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 各项的位置及散列索引
+	 */
+	static final class Index {
+
+		private final String separator;
+
+		private final int length;
+		/**
+		 * 是否可以使用散列索引(分隔符首尾重叠时只能逐项比较)
+		 */
+		private final boolean hashable;
+		/**
+		 * 各项的起始字符位置
+		 */
+		private final int[] starts;
+		/**
+		 * 开放寻址的散列表, 存放第一次出现的值索引+1(0表示空位), 首次查询时建立
+		 */
+		private volatile int[] table;
+
+		Index(String valueList, String separator) {
+			this.separator = separator;
+			this.length = valueList.length();
+			this.hashable = !isSelfOverlapping(separator);
+			this.starts = parse(valueList, separator);
+		}
+
+		private static int[] parse(String valueList, String separator) {
+			int length = valueList.length();
+			if (length == 0) {
+				return new int[0];
+			}
+			int separatorLen = separator.length();
+			if (separatorLen == 0) {
+				int[] starts = new int[length];
+				for (int i = 0; i < length; i++) {
+					starts[i] = i;
+				}
+				return starts;
+			}
+			int count = 1;
+			for (int start = 0; (start = valueList.indexOf(separator, start)) >= 0; start += separatorLen) {
+				count ++;
+			}
+			int[] starts = new int[count];
+			for (int i = 1, start = 0; i < count; i++) {
+				start = valueList.indexOf(separator, start) + separatorLen;
+				starts[i] = start;
+			}
+			return starts;
+		}
+
+		int size() {
+			return starts.length;
+		}
+
+		int end(int valueIndex) {
+			return valueIndex + 1 < starts.length ? starts[valueIndex + 1] - separator.length() : length;
+		}
+
+		/**
+		 * 与 TextUtils.getValues 一致
+		 */
+		String getValues(String source, int offset, int len) {
+			// 与逐项扫描相同的调整方式
+			if (offset < 0) {
+				if (len > 1) {
+					if (offset + len >= 0) {
+						len = offset;
+						offset = -1;
+					} else {
+						offset += len - 1;
+						len = -len;
+					}
+				}
+			} else if (len < -1) {
+				if (offset + len < 0) {
+					len = offset + 1;
+					offset = 0;
+				} else {
+					offset += len + 1;
+					len = -len;
+				}
+			}
+			int size = starts.length;
+			int first;
+			int last;
+			if (offset >= 0) {
+				if (offset >= size) {
+					return null;
+				}
+				first = offset;
+				last = len > 1 ? (int) Math.min(size - 1L, (long) offset + len - 1) : offset;
+			} else {
+				last = size + offset;
+				if (last < 0) {
+					return null;
+				}
+				first = len < -1 ? (int) Math.max(0L, (long) last + len + 1) : last;
+			}
+			return len == 0 ? TextUtils.EMPTY : source.substring(starts[first], end(last));
+		}
+
+		/**
+		 * 与 TextUtils.indexOf 一致
+		 */
+		int indexOf(String source, String value, int offset, int len, boolean valueIndexOfList, boolean startsLike) {
+			if (len < 0 || length < len) {
+				return -1;
+			}
+			if (!startsLike && hashable && (separator.isEmpty() || indexOfSeparator(value, offset, len) < 0)) {
+				// 不含项分隔符的值使用散列索引
+				int valueIndex = lookup(source, value, offset, len);
+				return valueIndex < 0 || valueIndexOfList ? valueIndex : starts[valueIndex];
+			}
+			for (int i = 0; i < starts.length; i++) {
+				int start = starts[i];
+				if (source.regionMatches(start, value, offset, len)) {
+					int end = start + len;
+					if (startsLike || end == length || source.startsWith(separator, end)) {
+						return valueIndexOfList ? i : start;
+					}
+				}
+			}
+			return -1;
+		}
+
+		private int indexOfSeparator(String value, int offset, int len) {
+			int position = value.indexOf(separator, offset);
+			return position >= 0 && position + separator.length() <= offset + len ? position : -1;
+		}
+
+		private int lookup(String source, String value, int offset, int len) {
+			int[] current = table;
+			if (current == null) {
+				table = current = buildTable(source);
+			}
+			int mask = current.length - 1;
+			for (int slot = hash(value, offset, offset + len) & mask; ; slot = (slot + 1) & mask) {
+				int entry = current[slot];
+				if (entry == 0) {
+					return -1;
+				}
+				int valueIndex = entry - 1;
+				int start = starts[valueIndex];
+				if (end(valueIndex) - start == len && source.regionMatches(start, value, offset, len)) {
+					return valueIndex;
+				}
+			}
+		}
+
+		private int[] buildTable(String source) {
+			int capacity = Integer.highestOneBit(Math.max(2, starts.length) - 1) << 2;
+			int[] current = new int[capacity];
+			int mask = capacity - 1;
+			for (int i = 0; i < starts.length; i++) {
+				int start = starts[i];
+				int end = end(i);
+				int len = end - start;
+				for (int slot = hash(source, start, end) & mask; ; slot = (slot + 1) & mask) {
+					int entry = current[slot];
+					if (entry == 0) {
+						current[slot] = i + 1;
+						break;
+					}
+					int other = starts[entry - 1];
+					if (end(entry - 1) - other == len && source.regionMatches(other, source, start, len)) {
+						// 重复的值只记录第一次出现的位置
+						break;
+					}
+				}
+			}
+			return current;
+		}
+
+		static int hash(String value, int start, int end) {
+			int h = 0;
+			for (int i = start; i < end; i++) {
+				h = 31 * h + value.charAt(i);
+			}
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/**
+	 * 原字符串的片段
+	 * <p>
+	 * 按内容比较: 内容相同的片段相等且散列值相同(散列值与内容相同的字符串一致), 可以放入集合或作为 map 的 key;
+	 * 与 {@link String} 等其他 CharSequence 不相等, 与字符串比较时先调用 {@link #toString()}。
+	 * </p>
+	 */
+	static final class Slice implements CharSequence {
+		private final String source;
+		private final int start;
+		private final int end;
+		/**
+		 * 散列值缓存(0表示未计算)
+		 */
+		private int hash;
+
+		Slice(String source, int start, int end) {
+			this.source = source;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new StringIndexOutOfBoundsException(index);
+			}
+			return source.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if (from < 0 || to > end - start || from > to) {
+				throw new StringIndexOutOfBoundsException("begin " + from + ", end " + to + ", length " + (end - start));
+			}
+			return new Slice(source, start + from, start + to);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Slice)) {
+				return false;
+			}
+			Slice other = (Slice) obj;
+			int len = end - start;
+			return other.end - other.start == len && source.regionMatches(start, other.source, other.start, len);
+		}
+
+		@Override
+		public int hashCode() {
+			int h = hash;
+			if (h == 0) {
+				for (int i = start; i < end; i++) {
+					h = 31 * h + source.charAt(i);
+				}
+				hash = h;
+			}
+			return h;
+		}
+
+		@Override
+		public String toString() {
+			return source.substring(start, end);
+		}
+	}
+}
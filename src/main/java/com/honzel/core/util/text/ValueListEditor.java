@@ -0,0 +1,315 @@
+package com.honzel.core.util.text;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * 值列表的批量编辑
+ * <p>
+ * 解析一次值列表, 之后的添加、移除、插入、替换只修改内部的项列表, 最后按总长度一次生成结果字符串,
+ * 不再每次编辑都重新生成整个字符串。结果与按顺序调用 {@link TextUtils#addValue(String, Object, String)}、
+ * {@link TextUtils#removeValue(String, Object, String)}、{@link TextUtils#remove(String, int, String)}、
+ * {@link TextUtils#insertValue(String, int, Object, String)}、{@link TextUtils#replaceValue(String, int, Object, String)} 一致。
+ * 空列表、值中包含项分隔符、项分隔符为空或自身首尾重叠(如 {@code ",,"})等情况直接使用对应的静态方法。
+ * 编辑器非线程安全。
+ * </p>
+ * <pre>{@code
+ * String tags = ValueListEditor.of("a,b,c")
+ *         .add("d")
+ *         .remove("b")
+ *         .insert(0, "z")
+ *         .replace(-1, "e")
+ *         .build();    // -> "z,a,c,e"
+ * }</pre>
+ *
+ * @author honzel
+ * @see ValueList
+ */
+public final class ValueListEditor {
+
+	private final String source;
+
+	private final String separator;
+	/**
+	 * 是否可以按项编辑(项分隔符非空且首尾不重叠)
+	 */
+	private final boolean itemEditable;
+	/**
+	 * 不按项编辑时的当前值列表(按项编辑时为null)
+	 */
+	private String current;
+	/**
+	 * 按项编辑时的项列表(不按项编辑时为null)
+	 */
+	private List<String> items;
+	/**
+	 * 各项的总字符数
+	 */
+	private int length;
+	/**
+	 * 各值出现的次数, 需要判断是否包含时建立
+	 */
+	private Map<String, Integer> counts;
+
+	private boolean modified;
+
+	private ValueListEditor(String valueList, String separator) {
+		this.source = valueList;
+		this.current = valueList;
+		this.separator = separator;
+		this.itemEditable = !TextUtils.isEmpty(separator) && !ValueList.isSelfOverlapping(separator);
+	}
+
+	/**
+	 * 编辑逗号分隔的值列表
+	 * @param valueList 字符串值列表，用逗号分隔
+	 * @return 编辑器
+	 */
+	public static ValueListEditor of(String valueList) {
+		return new ValueListEditor(valueList, TextUtils.SEPARATOR);
+	}
+
+	/**
+	 * 编辑值列表
+	 * @param valueList 字符串值列表
+	 * @param separator 项分隔符
+	 * @return 编辑器
+	 */
+	public static ValueListEditor of(String valueList, String separator) {
+		return new ValueListEditor(valueList, separator);
+	}
+
+	/**
+	 * 添加新值(如果已存在则不添加), 与 {@link TextUtils#addValue(String, Object, String)} 一致
+	 * @param value 要添加的值
+	 * @return 当前编辑器
+	 */
+	public ValueListEditor add(Object value) {
+		String item = TextUtils.toString(value);
+		if (TextUtils.isEmpty(item)) {
+			return this;
+		}
+		if (!prepareItems() || item.contains(separator)) {
+			return apply(valueList -> TextUtils.addValue(valueList, item, separator));
+		}
+		if (!counts().containsKey(item)) {
+			addItem(items.size(), item);
+		}
+		return this;
+	}
+
+	/**
+	 * 移除第一个匹配的值, 与 {@link TextUtils#removeValue(String, Object, String)} 一致
+	 * @param value 要移除的值
+	 * @return 当前编辑器
+	 */
+	public ValueListEditor remove(Object value) {
+		String item = TextUtils.toString(value);
+		if (item == null) {
+			return this;
+		}
+		if (!prepareItems() || item.contains(separator)) {
+			return apply(valueList -> TextUtils.removeValue(valueList, item, separator));
+		}
+		if (counts().containsKey(item)) {
+			removeItem(items.indexOf(item));
+		}
+		return this;
+	}
+
+	/**
+	 * 移除指定位置的值, 与 {@link TextUtils#remove(String, int, String)} 一致
+	 * @param valueIndex 值的位置索引（负数表示从后往前数）
+	 * @return 当前编辑器
+	 */
+	public ValueListEditor removeAt(int valueIndex) {
+		if (!prepareItems()) {
+			return apply(valueList -> TextUtils.remove(valueList, valueIndex, separator));
+		}
+		int index = valueIndex < 0 ? valueIndex + items.size() : valueIndex;
+		if (index >= 0 && index < items.size()) {
+			removeItem(index);
+		}
+		return this;
+	}
+
+	/**
+	 * 在指定位置插入值, 与 {@link TextUtils#insertValue(String, int, Object, String)} 一致
+	 * @param valueIndex 位置（负数表示从后往前数）
+	 * @param value 新值, 如果为null, 则忽略
+	 * @return 当前编辑器
+	 */
+	public ValueListEditor insert(int valueIndex, Object value) {
+		if (value == null) {
+			return this;
+		}
+		String item = TextUtils.toString(value);
+		if (!prepareItems() || item.contains(separator)) {
+			return apply(valueList -> TextUtils.insertValue(valueList, valueIndex, item, separator));
+		}
+		int index = valueIndex < 0 ? valueIndex + items.size() : valueIndex;
+		if (index < 0 || index >= items.size()) {
+			// 越界
+			return this;
+		}
+		if (index == items.size() - 1 && items.get(index).isEmpty()) {
+			// 与静态方法一致: 最后一项为空时插入的值代替该空项
+			setItem(index, item);
+		} else {
+			addItem(index, item);
+		}
+		return this;
+	}
+
+	/**
+	 * 替换指定位置的值, 与 {@link TextUtils#replaceValue(String, int, Object, String)} 一致
+	 * @param valueIndex 位置（负数表示从后往前数）
+	 * @param value 新值, 如果为null, 则删除
+	 * @return 当前编辑器
+	 */
+	public ValueListEditor replace(int valueIndex, Object value) {
+		String item = TextUtils.toString(value);
+		if (!prepareItems() || item != null && item.contains(separator)) {
+			return apply(valueList -> TextUtils.replaceValue(valueList, valueIndex, item, separator));
+		}
+		int index = valueIndex < 0 ? valueIndex + items.size() : valueIndex;
+		if (index < 0 || index >= items.size() || items.get(index).isEmpty()) {
+			// 越界或空项时不变
+			return this;
+		}
+		if (item == null) {
+			removeItem(index);
+		} else if (!item.equals(items.get(index))) {
+			setItem(index, item);
+		}
+		return this;
+	}
+
+	/**
+	 * 当前的项数, 与 {@link TextUtils#getSize(String, String)} 一致
+	 * @return 项数
+	 */
+	public int size() {
+		if (items == null) {
+			return TextUtils.getSize(current, separator);
+		}
+		// 只有一个空项时为空字符串
+		return length == 0 && items.size() <= 1 ? 0 : items.size();
+	}
+
+	/**
+	 * 生成编辑后的值列表
+	 * @return 编辑后的值列表, 没有任何改变时返回原列表串对象
+	 */
+	public String build() {
+		if (!modified) {
+			return source;
+		}
+		if (items == null) {
+			return current;
+		}
+		int size = items.size();
+		StringBuilder result = new StringBuilder(length + (size > 0 ? (size - 1) * separator.length() : 0));
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				result.append(separator);
+			}
+			result.append(items.get(i));
+		}
+		return result.toString();
+	}
+
+	@Override
+	public String toString() {
+		return build();
+	}
+
+	/**
+	 * 准备按项编辑
+	 * @return 是否可以按项编辑
+	 */
+	private boolean prepareItems() {
+		if (!itemEditable) {
+			return false;
+		}
+		if (items == null) {
+			if (TextUtils.isEmpty(current)) {
+				// 空列表(null 或空字符串)使用静态方法
+				return false;
+			}
+			items = split(current, separator);
+			length = current.length() - (items.size() - 1) * separator.length();
+			current = null;
+		} else if (length == 0 && items.size() <= 1) {
+			// 编辑后成为空字符串
+			current = TextUtils.EMPTY;
+			items = null;
+			counts = null;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 对当前的值列表调用静态方法
+	 */
+	private ValueListEditor apply(UnaryOperator<String> operator) {
+		String valueList = items != null ? build() : current;
+		String result = operator.apply(valueList);
+		if (result != valueList) {
+			modified = true;
+		}
+		current = result;
+		items = null;
+		counts = null;
+		return this;
+	}
+
+	private Map<String, Integer> counts() {
+		if (counts == null) {
+			counts = new HashMap<>(items.size() * 2);
+			for (String item : items) {
+				counts.merge(item, 1, Integer::sum);
+			}
+		}
+		return counts;
+	}
+
+	private void addItem(int index, String item) {
+		items.add(index, item);
+		length += item.length();
+		if (counts != null) {
+			counts.merge(item, 1, Integer::sum);
+		}
+		modified = true;
+	}
+
+	private void removeItem(int index) {
+		String item = items.remove(index);
+		length -= item.length();
+		if (counts != null) {
+			counts.computeIfPresent(item, (key, count) -> count > 1 ? count - 1 : null);
+		}
+		modified = true;
+	}
+
+	private void setItem(int index, String item) {
+		removeItem(index);
+		addItem(index, item);
+	}
+
+	static List<String> split(String value, String separator) {
+		List<String> parts = new ArrayList<>();
+		int start = 0;
+		int end;
+		while ((end = value.indexOf(separator, start)) >= 0) {
+			parts.add(value.substring(start, end));
+			start = end + separator.length();
+		}
+		parts.add(value.substring(start));
+		return parts;
+	}
+}
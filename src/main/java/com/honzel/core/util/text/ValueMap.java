@@ -0,0 +1,401 @@
+package com.honzel.core.util.text;
+
+import java.util.Arrays;
+
+import static com.honzel.core.util.text.TextUtils.EMPTY;
+import static com.honzel.core.util.text.TextUtils.EQUAL;
+import static com.honzel.core.util.text.TextUtils.SEMICOLON;
+
+/**
+ * map 格式字符串的散列索引
+ * <p>
+ * 对 {@code "k1,k2=v1,v2;k3=v3"} 格式的字符串解析一次各 entry、key 项及 value 项的位置,
+ * 并建立开放寻址的散列表: key 项(多 key 的 entry 中每个 key 分别索引)到 entry, value 项到第一个包含它的 entry。
+ * 之后按 key 取值、按 value 反查 key 不再逐个 entry 扫描, 取值返回原字符串的片段。索引不可变, 可被多个线程共享。
+ * </p>
+ * <p>
+ * 查询结果与 {@link TextUtils#keyIndexOf(String, Object, String, String, String)}、
+ * {@link TextUtils#getMapValue(String, Object, String, String, String)}、{@link TextUtils#getMapKey(String, Object, String, String, String)}、
+ * {@link TextUtils#containsMapKey(String, Object, String, String, String)}、
+ * {@link TextUtils#containsMapKeyValue(String, Object, Object, String, String, String)} 等方法一致。
+ * 长度达到 {@link TextUtils#getValueListCacheThreshold()} 的字符串, 以上静态方法(及 {@code putMapValue} 的 key 定位)
+ * 按字符串实例(弱引用)缓存索引, 同一个字符串实例重复查询时自动使用。
+ * </p>
+ * <pre>{@code
+ * ValueMap routes = ValueMap.parse("meituan,eleme=channel-a;jd=channel-b", "=", ";", ",");
+ * routes.getValue("eleme");     // -> "channel-a"
+ * routes.getKey("channel-b");   // -> "jd"
+ * routes.containsKey("taobao"); // -> false
+ * }</pre>
+ *
+ * @author honzel
+ * @see ValueList
+ */
+public final class ValueMap {
+
+	/**
+	 * 按字符串实例缓存的索引
+	 */
+	private static final ValueIndexCache<ValueMap> CACHE = new ValueIndexCache<>(ValueMap::new);
+
+	private final String source;
+
+	private final String kvSeparator;
+
+	private final String entrySeparator;
+
+	private final String itemSeparator;
+	/**
+	 * 各 entry 的起始位置、key-value 分隔符位置(没有时为-1)及结束位置
+	 */
+	private final int[] entryStarts;
+	private final int[] kvPositions;
+	private final int[] entryEnds;
+
+	private final Items keys;
+
+	private final Items values;
+	/**
+	 * 各 entry 的第一个 value 项的索引(最后一个元素为 value 项总数)
+	 */
+	private final int[] valueOffsets;
+
+	private ValueMap(String source, String kvSeparator, String entrySeparator, String itemSeparator) {
+		this.source = source;
+		this.kvSeparator = kvSeparator;
+		this.entrySeparator = entrySeparator;
+		this.itemSeparator = itemSeparator;
+		// 解析 entry
+		int mapLen = source.length();
+		int count = 0;
+		int[] starts = new int[8];
+		int[] kvs = new int[8];
+		int[] ends = new int[8];
+		boolean noEntrySeparator = TextUtils.isEmpty(entrySeparator);
+		int entryStart = 0;
+		while (entryStart <= mapLen && mapLen > 0) {
+			int entryEnd = noEntrySeparator ? mapLen : source.indexOf(entrySeparator, entryStart);
+			if (entryEnd < 0) {
+				entryEnd = mapLen;
+			}
+			if (entryEnd > entryStart) {
+				if (count == starts.length) {
+					starts = Arrays.copyOf(starts, count << 1);
+					kvs = Arrays.copyOf(kvs, count << 1);
+					ends = Arrays.copyOf(ends, count << 1);
+				}
+				starts[count] = entryStart;
+				kvs[count] = findKvSeparator(source, entryStart, entryEnd, kvSeparator);
+				ends[count] = entryEnd;
+				count ++;
+			}
+			if (entryEnd >= mapLen) {
+				break;
+			}
+			entryStart = entryEnd + (noEntrySeparator ? 1 : entrySeparator.length());
+		}
+		this.entryStarts = Arrays.copyOf(starts, count);
+		this.kvPositions = Arrays.copyOf(kvs, count);
+		this.entryEnds = Arrays.copyOf(ends, count);
+		// 索引 key 项及 value 项
+		this.keys = new Items(count);
+		this.values = new Items(count);
+		this.valueOffsets = new int[count + 1];
+		for (int i = 0; i < count; i++) {
+			valueOffsets[i] = values.count;
+			int kvPos = kvPositions[i];
+			if (kvPos < 0) {
+				// 没有 kvSeparator 时 key 视为空字符串, 整个 entry 为 value
+				keys.add(entryStarts[i], entryStarts[i], i);
+				addItems(values, entryStarts[i], entryEnds[i], i);
+			} else {
+				addItems(keys, entryStarts[i], kvPos, i);
+				addItems(values, kvPos + kvSeparator.length(), entryEnds[i], i);
+			}
+		}
+		valueOffsets[count] = values.count;
+		keys.buildTable(source);
+		values.buildTable(source);
+	}
+
+	/**
+	 * 解析 map 格式字符串(使用默认分隔符: kvSeparator="=", entrySeparator=";", itemSeparator="")
+	 * @param valueMap map 格式字符串
+	 * @return 索引
+	 */
+	public static ValueMap parse(String valueMap) {
+		return parse(valueMap, EQUAL, SEMICOLON, EMPTY);
+	}
+
+	/**
+	 * 解析 map 格式字符串
+	 * @param valueMap       map 格式字符串, 为null或空字符串时没有任何 entry
+	 * @param kvSeparator    key-value 分隔符
+	 * @param entrySeparator entry 分隔符
+	 * @param itemSeparator  项分隔符, 为空时 key 及 value 不再拆分
+	 * @return 索引
+	 */
+	public static ValueMap parse(String valueMap, String kvSeparator, String entrySeparator, String itemSeparator) {
+		return new ValueMap(valueMap == null ? EMPTY : valueMap, kvSeparator, entrySeparator, itemSeparator);
+	}
+
+	/**
+	 * 获取缓存的索引, 供 TextUtils 中的 map 格式字符串方法使用
+	 * <p>
+	 * 空字符串或长度未达到缓存阈值时返回null(使用逐个 entry 扫描), 同一个字符串实例第一次出现时也返回null。
+	 * </p>
+	 * @return 索引, 不使用缓存时返回null
+	 */
+	static ValueMap cached(String valueMap, String kvSeparator, String entrySeparator, String itemSeparator) {
+		if (valueMap == null || valueMap.isEmpty() || valueMap.length() < TextUtils.getValueListCacheThreshold()) {
+			return null;
+		}
+		return CACHE.lookup(valueMap, kvSeparator, entrySeparator, itemSeparator);
+	}
+
+	/**
+	 * 原 map 格式字符串
+	 * @return 原 map 格式字符串
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * entry 数量(不含空的 entry)
+	 * @return entry 数量
+	 */
+	public int size() {
+		return entryStarts.length;
+	}
+
+	public boolean isEmpty() {
+		return entryStarts.length == 0;
+	}
+
+	/**
+	 * 查询指定 key 在原字符串中的字符索引位置, 与 {@link TextUtils#keyIndexOf(String, Object, String, String, String)} 一致
+	 * @param key 要查找的 key
+	 * @return key 在原字符串中的起始字符索引，未找到返回 -1
+	 */
+	public int keyIndexOf(Object key) {
+		if (key == null) {
+			return -1;
+		}
+		String keyStr = TextUtils.toString(key);
+		int item = keys.find(source, keyStr);
+		return item >= 0 ? keys.starts[item] : -1;
+	}
+
+	/**
+	 * 是否包含指定 key
+	 * @param key 要检查的 key
+	 * @return 如果包含该 key 返回 true，否则返回 false
+	 */
+	public boolean containsKey(Object key) {
+		return keyIndexOf(key) >= 0;
+	}
+
+	/**
+	 * 获取指定 key 对应的 value(原字符串的片段, 不复制内容)
+	 * @param key 要查找的 key
+	 * @return 对应的 value，未找到返回 null
+	 */
+	public CharSequence get(Object key) {
+		int entry = entryOfKey(key);
+		return entry >= 0 ? new ValueList.Slice(source, valueStart(entry), entryEnds[entry]) : null;
+	}
+
+	/**
+	 * 获取指定 key 对应的 value 字符串, 与 {@link TextUtils#getMapValue(String, Object, String, String, String)} 一致
+	 * @param key 要查找的 key
+	 * @return 对应的 value 字符串，未找到返回 null
+	 */
+	public String getValue(Object key) {
+		int entry = entryOfKey(key);
+		return entry >= 0 ? source.substring(valueStart(entry), entryEnds[entry]) : null;
+	}
+
+	/**
+	 * 是否包含指定 value
+	 * @param value 要检查的 value
+	 * @return 如果包含该 value 返回 true，否则返回 false
+	 */
+	public boolean containsValue(Object value) {
+		return value != null && values.find(source, TextUtils.toString(value)) >= 0;
+	}
+
+	/**
+	 * 是否包含指定的 key-value 对应关系, 与 {@link TextUtils#containsMapKeyValue(String, Object, Object, String, String, String)} 一致
+	 * @param key   要检查的 key
+	 * @param value 要检查的 value
+	 * @return 如果该 key 对应的值中包含指定 value 返回 true，否则返回 false
+	 */
+	public boolean containsKeyValue(Object key, Object value) {
+		if (key == null || value == null) {
+			return false;
+		}
+		String valueStr = TextUtils.toString(value);
+		int len = valueStr.length();
+		// 同一个 key 可能出现在多个 entry 中, 逐个检查 entry 的 value 项
+		for (int item = keys.find(source, TextUtils.toString(key)); item >= 0; item = keys.nextSame[item]) {
+			int entry = keys.entries[item];
+			for (int i = valueOffsets[entry], end = valueOffsets[entry + 1]; i < end; i++) {
+				if (values.ends[i] - values.starts[i] == len && source.regionMatches(values.starts[i], valueStr, 0, len)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取第一个包含指定 value 的 entry 的 key 字符串, 与 {@link TextUtils#getMapKey(String, Object, String, String, String)} 一致
+	 * @param value 要查找的 value
+	 * @return 对应的 key 字符串(可能包含多个 key)，未找到返回 null；若 entry 无 kvSeparator 则返回空字符串
+	 */
+	public String getKey(Object value) {
+		if (value == null) {
+			return null;
+		}
+		int item = values.find(source, TextUtils.toString(value));
+		if (item < 0) {
+			return null;
+		}
+		int entry = values.entries[item];
+		return kvPositions[entry] >= 0 ? source.substring(entryStarts[entry], kvPositions[entry]) : EMPTY;
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+
+	private int entryOfKey(Object key) {
+		if (key == null) {
+			return -1;
+		}
+		int item = keys.find(source, TextUtils.toString(key));
+		return item >= 0 ? keys.entries[item] : -1;
+	}
+
+	private int valueStart(int entry) {
+		int kvPos = kvPositions[entry];
+		return kvPos >= 0 ? kvPos + kvSeparator.length() : entryStarts[entry];
+	}
+
+	/**
+	 * 按项分隔符拆分区域 [regionStart, regionEnd), 与 TextUtils.containsItemInRegion 的拆分方式一致
+	 */
+	private void addItems(Items items, int regionStart, int regionEnd, int entry) {
+		if (TextUtils.isEmpty(itemSeparator) || regionStart == regionEnd) {
+			items.add(regionStart, regionEnd, entry);
+			return;
+		}
+		int itemStart = regionStart;
+		int itemEnd = source.indexOf(itemSeparator, regionStart);
+		while (true) {
+			if (itemEnd < 0 || itemEnd > regionEnd) {
+				itemEnd = regionEnd;
+			}
+			items.add(itemStart, itemEnd, entry);
+			if (itemEnd >= regionEnd) {
+				break;
+			}
+			itemEnd = source.indexOf(itemSeparator, itemStart = itemEnd + itemSeparator.length());
+		}
+	}
+
+	private static int findKvSeparator(String valueMap, int entryStart, int entryEnd, String kvSeparator) {
+		if (TextUtils.isEmpty(kvSeparator)) {
+			return -1;
+		}
+		int pos = valueMap.indexOf(kvSeparator, entryStart);
+		return (pos >= 0 && pos + kvSeparator.length() <= entryEnd) ? pos : -1;
+	}
+
+	/**
+	 * 按出现顺序排列的项及散列表
+	 */
+	private static final class Items {
+		private int count;
+		private int[] starts;
+		private int[] ends;
+		/**
+		 * 项所在的 entry
+		 */
+		private int[] entries;
+		/**
+		 * 下一个内容相同的项, 没有时为-1
+		 */
+		private int[] nextSame;
+		/**
+		 * 开放寻址的散列表, 存放内容相同的项中第一个项的索引+1(0表示空位)
+		 */
+		private int[] table;
+
+		Items(int capacity) {
+			capacity = Math.max(capacity, 4);
+			starts = new int[capacity];
+			ends = new int[capacity];
+			entries = new int[capacity];
+		}
+
+		void add(int start, int end, int entry) {
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count << 1);
+				ends = Arrays.copyOf(ends, count << 1);
+				entries = Arrays.copyOf(entries, count << 1);
+			}
+			starts[count] = start;
+			ends[count] = end;
+			entries[count] = entry;
+			count ++;
+		}
+
+		void buildTable(String source) {
+			nextSame = new int[count];
+			// 内容相同的最后一项, 用于按出现顺序链接
+			int[] lastSame = new int[count];
+			table = new int[Integer.highestOneBit(Math.max(2, count) - 1) << 2];
+			int mask = table.length - 1;
+			for (int i = 0; i < count; i++) {
+				nextSame[i] = -1;
+				int len = ends[i] - starts[i];
+				for (int slot = ValueList.Index.hash(source, starts[i], ends[i]) & mask; ; slot = (slot + 1) & mask) {
+					int entry = table[slot];
+					if (entry == 0) {
+						table[slot] = i + 1;
+						lastSame[i] = i;
+						break;
+					}
+					int first = entry - 1;
+					if (ends[first] - starts[first] == len && source.regionMatches(starts[first], source, starts[i], len)) {
+						nextSame[lastSame[first]] = i;
+						lastSame[first] = i;
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * 查找内容相同的第一项
+		 * @return 项的索引, 未找到返回-1
+		 */
+		int find(String source, String value) {
+			int len = value.length();
+			int mask = table.length - 1;
+			for (int slot = ValueList.Index.hash(value, 0, len) & mask; ; slot = (slot + 1) & mask) {
+				int entry = table[slot];
+				if (entry == 0) {
+					return -1;
+				}
+				int item = entry - 1;
+				if (ends[item] - starts[item] == len && source.regionMatches(starts[item], value, 0, len)) {
+					return item;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.honzel.core.util.text;
+
+import java.util.List;
+
+import static com.honzel.core.util.text.TextUtils.EMPTY;
+import static com.honzel.core.util.text.TextUtils.EQUAL;
+import static com.honzel.core.util.text.TextUtils.SEMICOLON;
+
+/**
+ * map 格式字符串的批量编辑
+ * <p>
+ * 按 entry 分隔符解析一次, 之后每次设置或移除 key 只改写所在的 entry, 最后按总长度一次生成结果字符串,
+ * 不再每次编辑都重新生成整个字符串。结果与按顺序调用
+ * {@link TextUtils#putMapValue(String, Object, Object, String, String, String)} 一致(包括多 key 的拆分、
+ * 移除第一个 entry 时保留的分隔符等)。空字符串、entry 分隔符为空或自身首尾重叠时直接使用静态方法。
+ * 编辑器非线程安全。
+ * </p>
+ * <pre>{@code
+ * String routes = ValueMapEditor.of("k1,k2=v1;k3=v3", ",")
+ *         .put("k2", "v2")
+ *         .put("k4", "v4")
+ *         .remove("k3")
+ *         .build();    // -> "k1,k2=v2;k4=v4"
+ * }</pre>
+ *
+ * @author honzel
+ * @see ValueMap
+ */
+public final class ValueMapEditor {
+
+	private final String source;
+
+	private final String kvSeparator;
+
+	private final String entrySeparator;
+
+	private final String itemSeparator;
+	/**
+	 * 是否可以按 entry 编辑(entry 分隔符非空且首尾不重叠)
+	 */
+	private final boolean entryEditable;
+	/**
+	 * 不按 entry 编辑时的当前字符串(按 entry 编辑时为null)
+	 */
+	private String current;
+	/**
+	 * 按 entry 分隔符拆分的各段(含空的 entry, 不按 entry 编辑时为null)
+	 */
+	private List<String> entries;
+	/**
+	 * 各段的总字符数
+	 */
+	private int length;
+
+	private boolean modified;
+
+	private ValueMapEditor(String valueMap, String kvSeparator, String entrySeparator, String itemSeparator) {
+		this.source = valueMap;
+		this.current = valueMap;
+		this.kvSeparator = kvSeparator;
+		this.entrySeparator = entrySeparator;
+		this.itemSeparator = itemSeparator;
+		this.entryEditable = !TextUtils.isEmpty(entrySeparator) && !ValueList.isSelfOverlapping(entrySeparator);
+	}
+
+	/**
+	 * 编辑 map 格式字符串(使用默认分隔符: kvSeparator="=", entrySeparator=";", itemSeparator="")
+	 * @param valueMap map 格式字符串
+	 * @return 编辑器
+	 */
+	public static ValueMapEditor of(String valueMap) {
+		return new ValueMapEditor(valueMap, EQUAL, SEMICOLON, EMPTY);
+	}
+
+	/**
+	 * 编辑 map 格式字符串(使用默认entity分隔符,自定义项分隔符)
+	 * @param valueMap      map 格式字符串
+	 * @param itemSeparator 项分隔符
+	 * @return 编辑器
+	 */
+	public static ValueMapEditor of(String valueMap, String itemSeparator) {
+		return new ValueMapEditor(valueMap, EQUAL, SEMICOLON, itemSeparator);
+	}
+
+	/**
+	 * 编辑 map 格式字符串
+	 * @param valueMap       map 格式字符串
+	 * @param kvSeparator    key-value 分隔符
+	 * @param entrySeparator entry 分隔符
+	 * @param itemSeparator  项分隔符
+	 * @return 编辑器
+	 */
+	public static ValueMapEditor of(String valueMap, String kvSeparator, String entrySeparator, String itemSeparator) {
+		return new ValueMapEditor(valueMap, kvSeparator, entrySeparator, itemSeparator);
+	}
+
+	/**
+	 * 设置或更新指定 key 对应的 value, 与 {@link TextUtils#putMapValue(String, Object, Object, String, String, String)} 一致
+	 * @param key   要设置的 key
+	 * @param value 要设置的 value，为 null 时移除该 key
+	 * @return 当前编辑器
+	 */
+	public ValueMapEditor put(Object key, Object value) {
+		if (key == null) {
+			return this;
+		}
+		String keyStr = TextUtils.toString(key);
+		if (!prepareEntries()) {
+			String valueMap = current;
+			current = TextUtils.putMapValue(valueMap, keyStr, value, kvSeparator, entrySeparator, itemSeparator);
+			if (current != valueMap) {
+				modified = true;
+			}
+			return this;
+		}
+		int index = indexOfKey(keyStr);
+		if (index < 0) {
+			if (value != null) {
+				// 在末尾追加新的 entry
+				String valueStr = TextUtils.toString(value);
+				replaceEntries(entries.size(), 0, TextUtils.isEmpty(kvSeparator) ? valueStr : keyStr + kvSeparator + valueStr);
+			}
+			return this;
+		}
+		// 只改写所在的 entry: 非第一段时带上前面的分隔符, 与整个字符串中的前缀非空一致
+		String entry = entries.get(index);
+		String region = index > 0 ? entrySeparator + entry : entry;
+		String result = TextUtils.putMapValue(region, keyStr, value, kvSeparator, entrySeparator, itemSeparator);
+		if (result == region) {
+			return this;
+		}
+		if (index == 0) {
+			replaceEntries(0, 1, result);
+		} else if (result.isEmpty()) {
+			// 移除 entry 及前面的分隔符
+			replaceEntries(index, 1, null);
+		} else {
+			replaceEntries(index, 1, result.substring(entrySeparator.length()));
+		}
+		return this;
+	}
+
+	/**
+	 * 移除指定 key, 等同于 {@code put(key, null)}
+	 * @param key 要移除的 key
+	 * @return 当前编辑器
+	 */
+	public ValueMapEditor remove(Object key) {
+		return put(key, null);
+	}
+
+	/**
+	 * 生成编辑后的 map 格式字符串
+	 * @return 编辑后的 map 格式字符串, 没有任何改变时返回原字符串对象
+	 */
+	public String build() {
+		if (!modified) {
+			return source;
+		}
+		if (entries == null) {
+			return current;
+		}
+		int size = entries.size();
+		StringBuilder result = new StringBuilder(length + (size > 0 ? (size - 1) * entrySeparator.length() : 0));
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				result.append(entrySeparator);
+			}
+			result.append(entries.get(i));
+		}
+		return result.toString();
+	}
+
+	@Override
+	public String toString() {
+		return build();
+	}
+
+	/**
+	 * 准备按 entry 编辑
+	 * @return 是否可以按 entry 编辑
+	 */
+	private boolean prepareEntries() {
+		if (!entryEditable) {
+			return false;
+		}
+		if (entries == null) {
+			if (TextUtils.isEmpty(current)) {
+				// 空字符串使用静态方法
+				return false;
+			}
+			entries = ValueListEditor.split(current, entrySeparator);
+			length = current.length() - (entries.size() - 1) * entrySeparator.length();
+			current = null;
+		} else if (length == 0 && entries.size() <= 1) {
+			// 编辑后成为空字符串
+			current = EMPTY;
+			entries = null;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 第一个包含指定 key 的 entry, 与 {@link TextUtils#keyIndexOf(String, Object, String, String, String)} 的查找顺序一致
+	 */
+	private int indexOfKey(String keyStr) {
+		for (int i = 0, size = entries.size(); i < size; i++) {
+			String entry = entries.get(i);
+			if (!entry.isEmpty() && TextUtils.keyIndexOf(entry, keyStr, kvSeparator, entrySeparator, itemSeparator) >= 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 替换指定范围的段
+	 * @param index 起始段
+	 * @param count 替换的段数
+	 * @param text  新的内容(可能包含 entry 分隔符), 为null时只移除
+	 */
+	private void replaceEntries(int index, int count, String text) {
+		for (int i = 0; i < count; i++) {
+			length -= entries.remove(index).length();
+		}
+		if (text != null) {
+			List<String> parts = ValueListEditor.split(text, entrySeparator);
+			entries.addAll(index, parts);
+			length += text.length() - (parts.size() - 1) * entrySeparator.length();
+		}
+		modified = true;
+	}
+}
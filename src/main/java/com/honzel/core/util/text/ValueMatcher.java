@@ -0,0 +1,161 @@
+package com.honzel.core.util.text;
+
+/**
+ * 预编译的值列表查找器
+ * <p>
+ * 预先拼接 "项分隔符+值" 作为模式串, 查找时用 {@link String#indexOf(String, int)} 整体查找模式串(JIT 使用向量指令实现),
+ * 不再在每个分隔符处逐项比较。适合分隔符较长(如 {@code "||"})、值较长(如 URL、token) 且同一个值被反复查找的场景,
+ * 值的前缀相同(如同一域名的 URL)时逐项比较的开销尤其明显。查找器不可变, 可被多个线程共享。
+ * </p>
+ * <p>
+ * 查找结果与 {@link TextUtils#indexOf(String, Object, boolean, boolean, String)} 一致。
+ * 分隔符自身首尾重叠(如 {@code "||"})时模式串的出现位置不一定是项的边界, 找到后在附近确认是否为逐个查找到的分隔符;
+ * 返回值索引时需要从头逐个查找分隔符统计个数。
+ * </p>
+ * <pre>{@code
+ * ValueMatcher matcher = ValueMatcher.of("https://cdn.example.com/assets/logo.png", "||");
+ * TextUtils.indexOfValue(urls, matcher);     // -> 值索引
+ * TextUtils.containsValue(urls, matcher);    // -> true / false
+ * }</pre>
+ *
+ * @author honzel
+ * @see TextUtils#indexOf(String, ValueMatcher, boolean, boolean)
+ */
+public final class ValueMatcher {
+
+	private final String value;
+
+	private final String separator;
+	/**
+	 * 查找的模式串: 项分隔符+值
+	 */
+	private final String pattern;
+	/**
+	 * 分隔符是否首尾重叠(重叠时分隔符的出现位置不一定是项的边界)
+	 */
+	private final boolean overlapping;
+
+	private ValueMatcher(String value, String separator) {
+		this.value = value;
+		this.separator = separator;
+		this.pattern = separator + value;
+		this.overlapping = ValueList.isSelfOverlapping(separator);
+	}
+
+	/**
+	 * 创建逗号分隔的值列表的查找器
+	 * @param value 要查找的值
+	 * @return 查找器
+	 */
+	public static ValueMatcher of(Object value) {
+		return of(value, TextUtils.SEPARATOR);
+	}
+
+	/**
+	 * 创建查找器
+	 * @param value     要查找的值(或前缀)
+	 * @param separator 项分隔符, 为空时在整个字符串中查找
+	 * @return 查找器
+	 */
+	public static ValueMatcher of(Object value, String separator) {
+		String item = TextUtils.toString(value);
+		if (item == null) {
+			throw new IllegalArgumentException("the value of matcher cannot be null");
+		}
+		return new ValueMatcher(item, separator == null ? TextUtils.EMPTY : separator);
+	}
+
+	/**
+	 * 要查找的值
+	 * @return 要查找的值
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * 项分隔符
+	 * @return 项分隔符
+	 */
+	public String getSeparator() {
+		return separator;
+	}
+
+	/**
+	 * 按模式串在值列表中查找, 与 TextUtils.indexOf 的逐项扫描一致
+	 * @param valueList        字符串值列表
+	 * @param valueIndexOfList true-返回值索引，false-返回字符索引
+	 * @param startsLike       true-只匹配前缀，false-精确匹配
+	 * @return 位置索引，未找到返回 -1
+	 */
+	int indexOf(String valueList, boolean valueIndexOfList, boolean startsLike) {
+		int len = value.length();
+		if (valueList == null || valueList.length() < len) {
+			return -1;
+		}
+		if (separator.isEmpty()) {
+			return valueList.indexOf(value);
+		}
+		if (valueList.startsWith(value) && (startsLike || valueList.length() == len || valueList.startsWith(separator, len))) {
+			return 0;
+		}
+		// 逐个查找到的最后一个分隔符位置及到该位置为止的分隔符个数
+		int boundary = -1;
+		int count = 0;
+		for (int position = valueList.indexOf(pattern); position >= 0; position = valueList.indexOf(pattern, position + 1)) {
+			int start = position + separator.length();
+			int end = start + len;
+			if (!startsLike && valueList.length() != end && !valueList.startsWith(separator, end)) {
+				continue;
+			}
+			if (valueIndexOfList) {
+				while (boundary < position) {
+					boundary = valueList.indexOf(separator, boundary < 0 ? 0 : boundary + separator.length());
+					if (boundary < 0) {
+						// 之后没有项的边界
+						return -1;
+					}
+					count ++;
+				}
+				if (boundary != position) {
+					// 不是项的边界
+					continue;
+				}
+			} else if (overlapping && !isBoundary(valueList, position)) {
+				continue;
+			}
+			return valueIndexOfList ? count : start;
+		}
+		return -1;
+	}
+
+	/**
+	 * 分隔符首尾重叠时, 指定位置的分隔符是否为从头逐个查找到的分隔符(项的边界)
+	 * <p>
+	 * 不与前面任何分隔符重叠的分隔符一定是边界: 从指定位置向前找到这样的分隔符, 再从该处向后逐个查找分隔符。
+	 * </p>
+	 */
+	private boolean isBoundary(String valueList, int position) {
+		int separatorLen = separator.length();
+		int origin = position;
+		for (int i = Math.max(0, origin - separatorLen + 1); i < origin; ) {
+			if (valueList.startsWith(separator, i)) {
+				// 与前面的分隔符重叠, 继续向前
+				origin = i;
+				i = Math.max(0, origin - separatorLen + 1);
+			} else {
+				i ++;
+			}
+		}
+		int boundary = origin;
+		while (boundary >= 0 && boundary < position) {
+			boundary = valueList.indexOf(separator, boundary + separatorLen);
+		}
+		return boundary == position;
+	}
+
+	@Override
+	public String toString() {
+		return value;
+	}
+}
@@ -0,0 +1,237 @@
+package com.honzel.core.util.text;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 值列表及 map 格式字符串的可拆分遍历器
+ * <p>
+ * 不预先解析整个字符串: 遍历时才逐个查找分隔符, 各项以原字符串的片段返回, 调用 toString 时才复制内容。
+ * 拆分时从剩余范围的中点向后查找分隔符, 在分隔符处一分为二, 因此并行流可以把长字符串分给多个线程处理。
+ * 分隔符自身首尾重叠(如 {@code ",,"})时从中点查找到的分隔符可能与从头查找的不一致, 此时不拆分。
+ * </p>
+ *
+ * @author honzel
+ * @see TextUtils#stream(String, String)
+ * @see TextUtils#streamMap(String, String, String, String)
+ */
+final class ValueSpliterators {
+
+	/**
+	 * 剩余字符数小于该值时不再拆分
+	 */
+	static final int MIN_SPLIT_LENGTH = 1 << 10;
+
+	private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+	private ValueSpliterators() {
+	}
+
+	/**
+	 * 值列表各项的遍历器
+	 * @param valueList 字符串值列表, 不能为空
+	 * @param separator 项分隔符, 不能为空
+	 * @return 遍历器
+	 */
+	static Spliterator<CharSequence> items(String valueList, String separator) {
+		return new ItemSpliterator(valueList, separator, 0, valueList.length());
+	}
+
+	/**
+	 * map 格式字符串各 key 的遍历器, 多 key 的 entry 每个 key 返回一个 entry
+	 * @param valueMap       map 格式字符串, 不能为空
+	 * @param kvSeparator    key-value 分隔符
+	 * @param entrySeparator entry 分隔符
+	 * @param itemSeparator  项分隔符
+	 * @return 遍历器
+	 */
+	static Spliterator<Map.Entry<CharSequence, CharSequence>> entries(String valueMap, String kvSeparator, String entrySeparator, String itemSeparator) {
+		return new EntrySpliterator(valueMap, kvSeparator, entrySeparator, itemSeparator, 0, valueMap.length());
+	}
+
+	/**
+	 * 在 [start, fence] 范围的中点之后查找可拆分的分隔符
+	 * @return 分隔符位置, 不可拆分时返回-1
+	 */
+	private static int splitPosition(String source, String separator, boolean splittable, int start, int fence) {
+		if (!splittable || fence - start < MIN_SPLIT_LENGTH) {
+			return -1;
+		}
+		int position = source.indexOf(separator, start + ((fence - start) >>> 1));
+		return position >= 0 && position + separator.length() <= fence ? position : -1;
+	}
+
+	private static boolean isSplittable(String separator) {
+		return !TextUtils.isEmpty(separator) && !ValueList.isSelfOverlapping(separator);
+	}
+
+	/**
+	 * 值列表 [position, fence] 范围内的各项, 范围的两端都是项的边界
+	 */
+	private static final class ItemSpliterator implements Spliterator<CharSequence> {
+		private final String source;
+		private final String separator;
+		private final boolean splittable;
+		/**
+		 * 下一项的起始位置, 大于 fence 时遍历结束
+		 */
+		private int position;
+		private final int fence;
+
+		ItemSpliterator(String source, String separator, int position, int fence) {
+			this.source = source;
+			this.separator = separator;
+			this.splittable = isSplittable(separator);
+			this.position = position;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super CharSequence> action) {
+			if (position > fence) {
+				return false;
+			}
+			int start = position;
+			int end = source.indexOf(separator, start);
+			if (end < 0 || end + separator.length() > fence) {
+				// 范围内的最后一项
+				end = fence;
+				position = fence + 1;
+			} else {
+				position = end + separator.length();
+			}
+			action.accept(new ValueList.Slice(source, start, end));
+			return true;
+		}
+
+		@Override
+		public Spliterator<CharSequence> trySplit() {
+			int split = splitPosition(source, separator, splittable, position, fence);
+			if (split < 0) {
+				return null;
+			}
+			Spliterator<CharSequence> prefix = new ItemSpliterator(source, separator, position, split);
+			position = split + separator.length();
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			// 每项至少占用一个分隔符的长度
+			return position > fence ? 0 : (fence - position) / (separator.length() + 1) + 1;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+	}
+
+	/**
+	 * map 格式字符串 [position, fence] 范围内的各 entry, 范围的两端都是 entry 的边界
+	 */
+	private static final class EntrySpliterator implements Spliterator<Map.Entry<CharSequence, CharSequence>> {
+		private final String source;
+		private final String kvSeparator;
+		private final String entrySeparator;
+		private final String itemSeparator;
+		private final boolean splittable;
+		/**
+		 * 下一个 entry 的起始位置, 大于 fence 时没有更多 entry
+		 */
+		private int position;
+		private final int fence;
+		/**
+		 * 当前 entry 中下一个 key 项的起始位置(没有时为-1)、所有 key 的结束位置及 value
+		 */
+		private int keyStart = -1;
+		private int keysEnd;
+		private CharSequence value;
+
+		EntrySpliterator(String source, String kvSeparator, String entrySeparator, String itemSeparator, int position, int fence) {
+			this.source = source;
+			this.kvSeparator = kvSeparator;
+			this.entrySeparator = entrySeparator;
+			this.itemSeparator = itemSeparator;
+			this.splittable = isSplittable(entrySeparator);
+			this.position = position;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Map.Entry<CharSequence, CharSequence>> action) {
+			while (keyStart < 0) {
+				if (!nextEntry()) {
+					return false;
+				}
+			}
+			int keyEnd = TextUtils.isEmpty(itemSeparator) ? keysEnd : source.indexOf(itemSeparator, keyStart);
+			if (keyEnd < 0 || keyEnd > keysEnd) {
+				keyEnd = keysEnd;
+			}
+			action.accept(new AbstractMap.SimpleImmutableEntry<>(new ValueList.Slice(source, keyStart, keyEnd), value));
+			keyStart = keyEnd < keysEnd ? keyEnd + itemSeparator.length() : -1;
+			return true;
+		}
+
+		/**
+		 * 读取下一个 entry(空的 entry 跳过)
+		 * @return 是否还有 entry
+		 */
+		private boolean nextEntry() {
+			if (position > fence) {
+				return false;
+			}
+			int entryStart = position;
+			int entryEnd = TextUtils.isEmpty(entrySeparator) ? -1 : source.indexOf(entrySeparator, entryStart);
+			if (entryEnd < 0 || entryEnd + entrySeparator.length() > fence) {
+				entryEnd = fence;
+				position = fence + 1;
+			} else {
+				position = entryEnd + entrySeparator.length();
+			}
+			if (entryEnd == entryStart) {
+				return true;
+			}
+			int kvPos = TextUtils.isEmpty(kvSeparator) ? -1 : source.indexOf(kvSeparator, entryStart);
+			if (kvPos < 0 || kvPos + kvSeparator.length() > entryEnd) {
+				// 没有 kvSeparator 时 key 视为空字符串, 整个 entry 为 value
+				keyStart = keysEnd = entryStart;
+				value = new ValueList.Slice(source, entryStart, entryEnd);
+			} else {
+				keyStart = entryStart;
+				keysEnd = kvPos;
+				value = new ValueList.Slice(source, kvPos + kvSeparator.length(), entryEnd);
+			}
+			return true;
+		}
+
+		@Override
+		public Spliterator<Map.Entry<CharSequence, CharSequence>> trySplit() {
+			if (keyStart >= 0) {
+				// 当前 entry 还有未返回的 key
+				return null;
+			}
+			int split = splitPosition(source, entrySeparator, splittable, position, fence);
+			if (split < 0) {
+				return null;
+			}
+			Spliterator<Map.Entry<CharSequence, CharSequence>> prefix = new EntrySpliterator(source, kvSeparator, entrySeparator, itemSeparator, position, split);
+			position = split + entrySeparator.length();
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			int separatorLength = TextUtils.isEmpty(entrySeparator) ? 0 : entrySeparator.length();
+			return position > fence ? 0 : (fence - position) / (separatorLength + 1) + 1;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.honzel.core.util.web;
 
 import com.honzel.core.constant.ArrayConstants;
 import com.honzel.core.util.bean.BeanHelper;
+import com.honzel.core.util.text.TextByteSink;
 import com.honzel.core.util.text.TextUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +35,25 @@ public class WebUtils {
     private static final int DEFAULT_CONNECT_TIMEOUT = 2000;
     private static final int DEFAULT_READ_TIMEOUT = 10000;
     private static final int DEFAULT_UPLOAD_TIMEOUT = 100000;
+    /**
+     * URL编码时不需要编码的ASCII字符(与 URLEncoder 一致, 空格另外编码为'+')
+     */
+    private static final boolean[] URL_SAFE_CHARS = new boolean[128];
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    static {
+        for (char ch = 'a'; ch <= 'z'; ch++) {
+            URL_SAFE_CHARS[ch] = true;
+            URL_SAFE_CHARS[Character.toUpperCase(ch)] = true;
+        }
+        for (char ch = '0'; ch <= '9'; ch++) {
+            URL_SAFE_CHARS[ch] = true;
+        }
+        URL_SAFE_CHARS['-'] = true;
+        URL_SAFE_CHARS['_'] = true;
+        URL_SAFE_CHARS['.'] = true;
+        URL_SAFE_CHARS['*'] = true;
+    }
 
 
     protected HostnameVerifier verifier;
@@ -271,6 +291,24 @@ public class WebUtils {
         return doPost(url, content, null);
     }
 
+    /**
+     * 执行HTTP POST请求。
+     *
+     * @param url 请求地址
+     * @param content 已编码的请求内容, 以其字符集作为请求字符集
+     * @param headerMap 请求头属性设置
+     * @return 响应字符串
+     * @throws IOException 异常
+     */
+    public static String doPost(String url, TextByteSink content, Map<String, ?> headerMap) throws IOException {
+        WebUtils instance = getInstance();
+        String contentType = null;
+        if (headerMap == null) {
+            contentType = "application/x-www-form-urlencoded;charset=" + (content != null ? content.charset() : instance.getDefaultCharset());
+        }
+        return doRequest(instance.buildConnection(url, METHOD_POST, contentType, instance.getDefaultConnectTimeout(), instance.getDefaultReadTimeout(), headerMap), content);
+    }
+
     /**
      * 执行HTTP请求。
      * @param conn 请求连接
@@ -285,7 +323,29 @@ public class WebUtils {
         }
         byte[] data = content != null && content.length() > 0 ? content.getBytes(charset != null ? charset : getInstance().getDefaultCharset()) : ArrayConstants.EMPTY_BYTE_ARRAY;
         try {
-            return readAsString(getConnectionInputStream(conn, data, charset), getResponseCharset(conn.getContentType(), charset));
+            return readAsString(getConnectionInputStream(conn, data, 0, data.length, charset), getResponseCharset(conn.getContentType(), charset));
+        } finally {
+            if (conn instanceof HttpURLConnection) {
+                ((HttpURLConnection)conn).disconnect();
+            }
+        }
+    }
+
+    /**
+     * 执行HTTP请求, 请求内容为已编码的字节(如模板直接渲染到字节输出缓冲), 不再转换成字符串。
+     * @param conn 请求连接
+     * @param content 请求内容, 以其字符集作为请求字符集
+     * @return 响应字符串
+     * @throws IOException 异常
+     */
+    public static String doRequest(URLConnection conn, TextByteSink content) throws IOException {
+        if (conn == null) {
+            throw new IOException("connection is null");
+        }
+        Charset charset = content != null ? content.charset() : null;
+        try {
+            InputStream input = content != null ? getConnectionInputStream(conn, content.array(), 0, content.size(), charset) : getConnectionInputStream(conn, null, 0, 0, null);
+            return readAsString(input, getResponseCharset(conn.getContentType(), charset));
         } finally {
             if (conn instanceof HttpURLConnection) {
                 ((HttpURLConnection)conn).disconnect();
@@ -301,16 +361,16 @@ public class WebUtils {
      * @return 响应输入流
      * @throws IOException 异常
      */
-    private  static InputStream getConnectionInputStream(URLConnection conn, byte[] content, Charset charset) throws IOException {
+    private  static InputStream getConnectionInputStream(URLConnection conn, byte[] content, int offset, int length, Charset charset) throws IOException {
         boolean isHttpConnected = conn instanceof HttpURLConnection;
-        if (content != null && content.length > 0) {
+        if (content != null && length > 0) {
             if (isHttpConnected && TextUtils.isEmpty(((HttpURLConnection)conn).getRequestMethod())) {
                 ((HttpURLConnection)conn).setRequestMethod(METHOD_POST);
             }
             OutputStream out = null;
             try {
                 out = conn.getOutputStream();
-                out.write(content);
+                out.write(content, offset, length);
             } finally {
                 try {
                     if (out != null) {
@@ -388,7 +448,7 @@ public class WebUtils {
         }
         byte[] data = content != null && content.length() > 0 ? content.getBytes(charset != null ? charset : getInstance().getDefaultCharset()) : ArrayConstants.EMPTY_BYTE_ARRAY;
         try {
-            return readAsOutputStream(getConnectionInputStream(conn, data, charset));
+            return readAsOutputStream(getConnectionInputStream(conn, data, 0, data.length, charset));
         } finally {
             if (conn instanceof HttpURLConnection) {
                 ((HttpURLConnection)conn).disconnect();
@@ -495,7 +555,7 @@ public class WebUtils {
             // 添加请求结束标志
             byte[] endBoundaryBytes = ("\r\n--" + boundary + "--\r\n").getBytes(charset);
             out.write(endBoundaryBytes);
-            return readAsString(getConnectionInputStream(conn, null, charset), getResponseCharset(conn.getContentType(), charset));
+            return readAsString(getConnectionInputStream(conn, null, 0, 0, charset), getResponseCharset(conn.getContentType(), charset));
         } finally {
             closeQuietly(out);
             if (conn instanceof HttpURLConnection) {
@@ -897,15 +957,130 @@ public class WebUtils {
      */
     public static String encode(String value, Charset charset) {
         if (charset != null && !TextUtils.isEmpty(value)) {
-            try {
-                value = URLEncoder.encode(value, charset.name());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            int start = indexOfUnsafe(value, 0);
+            if (start < value.length()) {
+                StringBuilder encoded = new StringBuilder(value.length() + 16);
+                try {
+                    encode(encoded, value, start, charset);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                value = encoded.toString();
             }
         }
         return value;
     }
 
+    /**
+     * 使用默认的UTF-8字符集编码请求参数值并输出到目标, 结果与 {@link #encode(String)} 一致。
+     *
+     * @param output 输出目标
+     * @param value 参数值
+     * @throws IOException 输出异常
+     */
+    public static void encode(Appendable output, String value) throws IOException {
+        encode(output, value, getInstance().getDefaultCharset());
+    }
+
+    /**
+     * 使用指定的字符集编码请求参数值并输出到目标, 结果与 {@link #encode(String, Charset)} 一致。
+     * 不需要编码的连续字符整段输出, 不产生中间字符串。
+     *
+     * @param output 输出目标
+     * @param value 参数值
+     * @param charset 字符集
+     * @throws IOException 输出异常
+     */
+    public static void encode(Appendable output, String value, Charset charset) throws IOException {
+        if (charset == null || TextUtils.isEmpty(value)) {
+            output.append(value);
+        } else {
+            encode(output, value, indexOfUnsafe(value, 0), charset);
+        }
+    }
+
+    /**
+     * 从指定位置开始编码, 指定位置前的字符不需要编码
+     */
+    private static void encode(Appendable output, String value, int start, Charset charset) throws IOException {
+        int len = value.length();
+        if (start == len) {
+            output.append(value);
+            return;
+        }
+        output.append(value, 0, start);
+        while (start < len) {
+            char ch = value.charAt(start);
+            int end;
+            if (ch == ' ') {
+                output.append('+');
+                end = start + 1;
+            } else {
+                // 连续需要编码的字符一起转换为字节
+                end = start + 1;
+                while (end < len && (ch = value.charAt(end)) != ' ' && (ch >= URL_SAFE_CHARS.length || !URL_SAFE_CHARS[ch])) {
+                    end ++;
+                }
+                appendEncodedBytes(output, value, start, end, charset);
+            }
+            start = indexOfUnsafe(value, end);
+            if (start > end) {
+                output.append(value, end, start);
+            }
+        }
+    }
+
+    /**
+     * 查找从指定位置开始第一个需要编码的字符位置, 没有时返回字符串长度
+     */
+    private static int indexOfUnsafe(String value, int start) {
+        for (int len = value.length(); start < len; start++) {
+            char ch = value.charAt(start);
+            if (ch >= URL_SAFE_CHARS.length || !URL_SAFE_CHARS[ch]) {
+                return start;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * 输出指定范围字符按字符集转换的字节的百分号编码, UTF-8直接转换不产生中间字节数组
+     */
+    private static void appendEncodedBytes(Appendable output, String value, int start, int end, Charset charset) throws IOException {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            for (byte b : value.substring(start, end).getBytes(charset)) {
+                appendEncodedByte(output, b);
+            }
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            char ch = value.charAt(i);
+            if (ch < 0x80) {
+                appendEncodedByte(output, ch);
+            } else if (ch < 0x800) {
+                appendEncodedByte(output, 0xC0 | (ch >> 6));
+                appendEncodedByte(output, 0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(ch, value.charAt(++ i));
+                appendEncodedByte(output, 0xF0 | (codePoint >> 18));
+                appendEncodedByte(output, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEncodedByte(output, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEncodedByte(output, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                // 不成对的代理字符与 String.getBytes 一致替换为'?'
+                appendEncodedByte(output, '?');
+            } else {
+                appendEncodedByte(output, 0xE0 | (ch >> 12));
+                appendEncodedByte(output, 0x80 | ((ch >> 6) & 0x3F));
+                appendEncodedByte(output, 0x80 | (ch & 0x3F));
+            }
+        }
+    }
+
+    private static void appendEncodedByte(Appendable output, int b) throws IOException {
+        output.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+
     public static String buildForm(String baseUrl, Map<String, ?> parameters) {
         StringBuilder sb = new StringBuilder();
         sb.append("<form name=\"submit_form\" method=\"post\" action=\"");
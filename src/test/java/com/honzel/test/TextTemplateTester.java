@@ -0,0 +1,1170 @@
+package com.honzel.test;
+
+import com.honzel.core.util.text.FormatTypeEnum;
+import com.honzel.core.util.text.TemplateSignature;
+import com.honzel.core.util.text.TextFormatType;
+import com.honzel.core.util.text.TextRenderStatistics;
+import com.honzel.core.util.text.TextByteSink;
+import com.honzel.core.util.text.TextTemplate;
+import com.honzel.core.util.text.TextTemplateCache;
+import com.honzel.core.util.text.TextUtils;
+import com.honzel.core.util.web.WebUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.SimpleDateFormat;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class TextTemplateTester {
+
+	private static final String[] PATTERNS = {
+			"",
+			"plain text",
+			"===========订单[${0}]信息不存在=======",
+			"Price: \\$${price}, $ and $name",
+			"姓名：${name}, 年龄：${age}",
+			"${status[#1=成功;2=失败;*]}",
+			"${type[#A=苹果;B=香蕉]}",
+			"${name[^未填写]}",
+			"姓名：${[先生/]name[^未知][女士]}",
+			"${json;content}",
+			"{\"a\":[\"${Format[+\",\"]}\"],\"b\":\"${Version}\",\"c\":\"${time[#;yyyy-MM-dd]}\"}",
+			"{\"touser\":\"${$receiver[^kkk]}\",\"data\":{\"first\":{\"value\":\"您的${;channelName}店铺审核${;auditStatus[#1=已通过;2=不通过]}\"},\"keyword1\":{\"value\":\"${auditStatus[#1=已通过;2=不通过]}\"},\"remark\":{\"value\":\"${xml;auditStatus[#1=$(channelName)可以打印订单&&啦;2=不通过原因:$(reason)]}\"}},\"template_id\":\"ppppp\"}",
+			"${user[#1=用户$(name);2=访客$(id)]}",
+			"<a>${xml;reason}</a><b>${Format}</b><c>${Format[+|]}</c>",
+			"${str(0,2);channelName}|${pad(6,0);code}|${c(*,100,#0.00);amount}|${digest(MD5);code}",
+			"${c(+,1);count[#3=three;*]}",
+			"${[(]Format[)][+ / ]}",
+			"${Format[#XML=x;JSON=j][+;]}",
+			"${items[#$this.name]}-${items[#$idx]}",
+			"${missing[#null=空;*=有]}${missing[#^=empty]}",
+			"${0}${1}${}${2}",
+			"${0.name}/${1}",
+			"${url;reason}&x=${reason}",
+			"${status[#str(0,1);1=abc;*=zzz]}",
+	};
+
+	public static void main(String[] args) {
+		TextTemplateTester tester = new TextTemplateTester();
+		tester.testCompiledFormat();
+		tester.testTemplateCache();
+		tester.testStreamingFormat();
+		tester.testByteRendering();
+		tester.testBeanAccessors();
+		tester.testBatchFormat();
+		tester.testTemplateSignature();
+		tester.testHashMapping();
+		tester.testPreparedFormat();
+		tester.testCalcFormat();
+		tester.testDigestFormat();
+		tester.testTimeFormat();
+		tester.testLookupFormatType();
+		tester.testRepeatedValues();
+		tester.testEscapeFormat();
+		tester.testBindConfig();
+		tester.testBufferReuse();
+		tester.testSpecializedRender();
+		tester.testRenderStatistics();
+	}
+
+	private Map<String, Object> createParams() {
+		Map<String, Object> paras = new TreeMap<>();
+		paras.put("channelName", "美团");
+		paras.put("auditStatus", "1");
+		paras.put("reason", "没有<可能>通过 & \"ok\"");
+		paras.put("Format", Arrays.asList("XML", "JSON", ""));
+		paras.put("time", LocalDateTime.of(2024, 4, 27, 10, 20, 30));
+		paras.put("Version", "2017-05-25");
+		paras.put("code", "SMS8");
+		paras.put("amount", "12.345");
+		paras.put("count", 2);
+		paras.put("status", 1);
+		paras.put("type", "C");
+		paras.put("name", "张");
+		paras.put("age", 25);
+		paras.put("price", 100);
+		paras.put("content", "<tag>\n");
+		paras.put("user", "1");
+		paras.put("items", new Object[]{Collections.singletonMap("name", "n1"), Collections.singletonMap("name", "n2")});
+		return paras;
+	}
+
+	private void testCompiledFormat() {
+		TextUtils.getTemplateCache().setEnabled(false);
+		Map<String, Object> config = Collections.singletonMap("receiver", "R001");
+		Object[] paramsList = {createParams(), new Object[]{"a", Arrays.asList(1, 2), null}, null, "single"};
+		int count = 0;
+		for (String pattern : PATTERNS) {
+			for (Object params : paramsList) {
+				check(TextUtils.format(TextUtils.lookupFormatType(pattern), pattern, config, params), TextTemplate.compile(pattern, false, false).render(params, config), pattern);
+				check(TextUtils.alternateFormat(TextUtils.lookupFormatType(pattern), pattern, config, params), TextTemplate.compile(pattern, true, false).render(params, config), pattern);
+				check(TextUtils.simplifiedFormat(FormatTypeEnum.SIMPLE, pattern, config, params), TextTemplate.compile(pattern, false, true).render(FormatTypeEnum.SIMPLE, params, config), pattern);
+				check(TextUtils.alternateSimplifiedFormat(FormatTypeEnum.JSON, pattern, config, params), TextTemplate.compile(pattern, true, true).render(FormatTypeEnum.JSON, params, config), pattern);
+				count += 4;
+			}
+		}
+		System.out.println("compiled template checks passed: " + count);
+		TextUtils.getTemplateCache().setEnabled(true);
+	}
+
+	private void testTemplateCache() {
+		TextTemplateCache cache = TextUtils.getTemplateCache();
+		Map<String, Object> params = createParams();
+		List<String> expected = new ArrayList<>();
+		cache.setEnabled(false);
+		for (String pattern : PATTERNS) {
+			expected.add(TextUtils.format(pattern, params));
+		}
+		cache.setEnabled(true);
+		cache.resetStatistics();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < PATTERNS.length; i++) {
+				check(expected.get(i), TextUtils.format(PATTERNS[i], params), PATTERNS[i]);
+			}
+		}
+		if (cache.getHitCount() == 0 || cache.size() == 0) {
+			throw new IllegalStateException("template cache not used: " + cache.getHitCount());
+		}
+		// 一次性模板不进入缓存
+		cache.clear();
+		for (int i = 0; i < 10000; i++) {
+			TextUtils.format("dynamic ${name} " + i, params);
+		}
+		if (cache.size() != 0) {
+			throw new IllegalStateException("one-off patterns retained: " + cache.size());
+		}
+		// 按数量淘汰
+		cache.setMaximumSize(16);
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 100; i++) {
+				TextUtils.format("repeated ${name} " + i, params);
+			}
+		}
+		if (cache.size() > 16) {
+			throw new IllegalStateException("cache size exceeded: " + cache.size());
+		}
+		// 超出一项时只淘汰约一项, 其余的模板仍然命中
+		cache.clear();
+		for (int round = 0; round < 2; round++) {
+			// 第二轮准入(尚未设置使用标记)
+			for (int i = 0; i < 16; i++) {
+				TextUtils.format("hot ${name} " + i, params);
+			}
+		}
+		checkValue(16, cache.size(), "filled cache size");
+		for (int round = 0; round < 2; round++) {
+			TextUtils.format("overflow ${name}", params);
+		}
+		checkValue(16, cache.size(), "cache size after overflow");
+		long hits = cache.getHitCount();
+		for (int i = 0; i < 16; i++) {
+			TextUtils.format("hot ${name} " + i, params);
+		}
+		if (cache.getHitCount() - hits < 15) {
+			throw new IllegalStateException("overflow evicted hot templates: " + (16 - (cache.getHitCount() - hits)));
+		}
+		cache.setMaximumSize(TextTemplateCache.DEFAULT_MAXIMUM_SIZE);
+		System.out.println("template cache checks passed, hits: " + cache.getHitCount() + ", misses: " + cache.getMissCount());
+	}
+
+	private void testStreamingFormat() {
+		Map<String, Object> config = Collections.singletonMap("receiver", "R001");
+		Object[] paramsList = {createParams(), new Object[]{"a", Arrays.asList(1, 2), null}, null, "single"};
+		int count = 0;
+		try {
+			// 未缓存(解析器)及已缓存(编译模板)两种路径
+			for (int round = 0; round < 3; round++) {
+				for (String pattern : PATTERNS) {
+					for (Object params : paramsList) {
+						check(TextUtils.format(FormatTypeEnum.JSON, pattern, config, params), TextUtils.formatTo(new StringWriter(), FormatTypeEnum.JSON, pattern, config, params).toString(), pattern);
+						check(TextUtils.alternateFormat(pattern, params), TextUtils.alternateFormatTo(new StringBuilder(), pattern, params).toString(), pattern);
+						check(TextUtils.simplifiedFormat(pattern, params), TextUtils.simplifiedFormatTo(new StringWriter(), pattern, params).toString(), pattern);
+						check(TextUtils.alternateSimplifiedFormat(FormatTypeEnum.XML, pattern, config, params), TextUtils.alternateSimplifiedFormatTo(new StringBuilder(), FormatTypeEnum.XML, pattern, config, params).toString(), pattern);
+						check(TextTemplate.compile(pattern, false, false).render(params, config), TextTemplate.compile(pattern, false, false).renderTo(new StringWriter(), params, config).toString(), pattern);
+						count += 5;
+					}
+				}
+			}
+			// 禁用缓存时使用解析器写入, 长内容分段写入Writer
+			TextUtils.getTemplateCache().setEnabled(false);
+			StringBuilder longPattern = new StringBuilder();
+			for (int i = 0; i < 300; i++) {
+				longPattern.append("行").append(i).append(": ${name}-${age};");
+			}
+			String pattern = longPattern.toString();
+			Map<String, Object> params = createParams();
+			for (int round = 0; round < 2; round++) {
+				check(TextUtils.format(pattern, params), TextUtils.formatTo(new StringWriter(), pattern, params).toString(), "long pattern");
+				check(TextUtils.format(pattern, params), TextUtils.formatTo(new StringBuilder(), pattern, params).toString(), "long pattern");
+				count += 2;
+			}
+			TextUtils.getTemplateCache().setEnabled(true);
+			// 追加到已有内容之后
+			check("head:a,b", TextUtils.formatTo(new StringBuilder("head:"), "${items}", Collections.singletonMap("items", Arrays.asList("a", "b"))).toString(), "${items}");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		System.out.println("streaming format checks passed: " + count);
+	}
+
+	private void testByteRendering() {
+		Map<String, Object> config = Collections.singletonMap("receiver", "R001");
+		Map<String, Object> emojiParams = createParams();
+		emojiParams.put("name", "\uD83D\uDE00张\uD83D");
+		emojiParams.put("reason", "\uDE00<x>");
+		Object[] paramsList = {createParams(), emojiParams, new Object[]{"a", Arrays.asList(1, 2), null}, null};
+		Charset[] charsets = {StandardCharsets.UTF_8, Charset.forName("GBK"), StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16};
+		int count = 0;
+		try {
+			for (Charset charset : charsets) {
+				// 复用同一个缓冲
+				TextByteSink sink = new TextByteSink(charset, 8);
+				for (String pattern : PATTERNS) {
+					TextTemplate template = TextTemplate.compile(pattern, false, false);
+					for (Object params : paramsList) {
+						String expected = template.render(params, config);
+						template.renderTo(sink.reset(), params, config);
+						if (!Arrays.equals(expected.getBytes(charset), sink.toByteArray())) {
+							throw new IllegalStateException("pattern: " + pattern + ", charset: " + charset + "\nexpected: " + expected + "\nactual:   " + sink);
+						}
+						count ++;
+					}
+				}
+			}
+			// 逐个字符追加代理对
+			TextByteSink sink = new TextByteSink();
+			for (char c : "a\uD83D\uDE00b\uD83Dc".toCharArray()) {
+				sink.append(c);
+			}
+			if (!Arrays.equals("a\uD83D\uDE00b\uD83Dc".getBytes(StandardCharsets.UTF_8), sink.toByteArray())) {
+				throw new IllegalStateException("surrogate pair encoding: " + sink);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		System.out.println("byte rendering checks passed: " + count);
+	}
+
+	private void testBeanAccessors() {
+		String[] patterns = {
+				"${name}|${age}|${address.city}|${address.zip[^无]}|${missing}|${0.name}",
+				"${name[#张=Z;*]}-${address.city[(]}-${tags}",
+				"{\"name\":\"${name}\",\"city\":\"${address.city}\"}",
+		};
+		Person person = new Person("张", 30, new Address("上海", null));
+		Object[] paramsList = {person, new Person("李", 20, null), new Student("王", 18, new Address("北京", "100000")),
+				createParams(), Collections.singletonList(person), new Object[]{person}, "single"};
+		TextUtils.getTemplateCache().setEnabled(false);
+		int count = 0;
+		for (String pattern : patterns) {
+			TextTemplate template = TextTemplate.compile(pattern, false, false);
+			// 参数类型交替变化
+			for (int round = 0; round < 3; round++) {
+				for (Object params : paramsList) {
+					check(TextUtils.format(pattern, params), template.render(params), pattern);
+					count ++;
+				}
+			}
+		}
+		// getter 抛出的异常与通用方式一致, 且 getter 只调用一次
+		TextTemplate template = TextTemplate.compile("${value}", false, false);
+		for (int round = 0; round < 3; round++) {
+			FailingBean bean = new FailingBean();
+			String expected = null;
+			try {
+				TextUtils.format("${value}", bean);
+			} catch (RuntimeException e) {
+				expected = e.getClass().getName() + ": " + e.getCause();
+			}
+			bean.calls = 0;
+			String actual = null;
+			try {
+				template.render(bean);
+			} catch (RuntimeException e) {
+				actual = e.getClass().getName() + ": " + e.getCause();
+			}
+			check(expected, actual, "${value}");
+			checkValue(1, bean.calls, "getter calls");
+			count ++;
+		}
+		TextUtils.getTemplateCache().setEnabled(true);
+		System.out.println("bean accessor checks passed: " + count);
+	}
+
+	private void testBatchFormat() {
+		List<Object> paramsList = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Map<String, Object> params = createParams();
+			params.put("name", "用户" + i);
+			params.put("status", i % 3);
+			paramsList.add(i % 7 == 0 ? new Person("P" + i, i, null) : params);
+		}
+		int count = 0;
+		for (String pattern : PATTERNS) {
+			List<String> expected = new ArrayList<>();
+			for (Object params : paramsList) {
+				expected.add(TextUtils.format(pattern, params));
+			}
+			for (int threshold : new int[]{Integer.MAX_VALUE, 0, TextUtils.DEFAULT_PARALLEL_FORMAT_THRESHOLD}) {
+				TextUtils.setParallelFormatThreshold(threshold);
+				if (!expected.equals(TextUtils.formatAll(pattern, paramsList))) {
+					throw new IllegalStateException("batch format mismatch, pattern: " + pattern + ", threshold: " + threshold);
+				}
+				count ++;
+			}
+			if (!expected.equals(TextUtils.formatAll(pattern, paramsList.parallelStream()).collect(Collectors.toList()))) {
+				throw new IllegalStateException("stream format mismatch, pattern: " + pattern);
+			}
+			count ++;
+		}
+		TextUtils.setParallelFormatThreshold(TextUtils.DEFAULT_PARALLEL_FORMAT_THRESHOLD);
+		System.out.println("batch format checks passed: " + count);
+	}
+
+	private void testTemplateSignature() {
+		TextTemplateCache cache = TextUtils.getTemplateCache();
+		Object[] paramsList = {createParams(), new Object[]{"a", Arrays.asList(1, 2), null}, null, "single", new Person("张", 30, null)};
+		int count = 0;
+		for (String pattern : PATTERNS) {
+			for (Object params : paramsList) {
+				cache.setEnabled(false);
+				Map<String, Object> expected = TextUtils.parseParamMap(pattern, params);
+				Map<String, Object> simplifiedExpected = TextUtils.parseAlternateSimplifiedParamMap(pattern, params);
+				cache.setEnabled(true);
+				for (int round = 0; round < 2; round++) {
+					check(String.valueOf(expected), String.valueOf(TextUtils.parseParamMap(pattern, params)), pattern);
+					check(String.valueOf(simplifiedExpected), String.valueOf(TextUtils.parseAlternateSimplifiedParamMap(pattern, params)), pattern);
+					count += 2;
+				}
+			}
+		}
+		TemplateSignature signature = TextUtils.getTemplateSignature("${name}${0}${status[#1=$(reason)$(name);*]}${$receiver}${[+]age}");
+		check("[name, status, reason, age]", String.valueOf(signature.getRequiredKeys()), signature.getPattern());
+		check("[receiver]", String.valueOf(signature.getConfigKeys()), signature.getPattern());
+		check("[$(reason)$(name)]", String.valueOf(signature.getNestedPatterns()), signature.getPattern());
+		check("4", String.valueOf(signature.getPositionalCount()), signature.getPattern());
+		System.out.println("template signature checks passed: " + count);
+	}
+
+	private void testHashMapping() {
+		StringBuilder codes = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			codes.append(i == 0 ? "" : ";").append(i).append("=区域").append(i);
+		}
+		String[] patterns = {
+				"${code[#" + codes + "]}",
+				"${code[#" + codes + ";*=其他]}",
+				"${code[#1=a;2=b;^=空;3=c;4=d;5=e;*;6=f]}",
+				"${code[#1=a;2=b;3=c;null=无;4=d;2=bb;5=e;null=无2]}",
+				"${code[#1=a;2=b;3=c;4=d;5=$(name)]}|${code[#7;1=a;2=b;3=c;4=d;5]}",
+				"${code[#str(0,1);10=x;11=y;12=z;13=w;14]}",
+				"${code[#c(+,1);1;2;3;4;*]}",
+				"${code[#1=a;2=b;3=c;4=d;*][#a=A;b=B;c=C;d=D;*=Z]}",
+		};
+		Object[] values = {null, "", 0, 1, 2, 3, 5, 7, 10, 14, 150, 199, 200, "null", "x", new StringBuilder("3"), Arrays.asList(1, 2)};
+		TextUtils.getTemplateCache().setEnabled(false);
+		int count = 0;
+		for (String pattern : patterns) {
+			TextTemplate template = TextTemplate.compile(pattern, false, false);
+			for (Object value : values) {
+				Map<String, Object> params = new HashMap<>();
+				params.put("code", value);
+				params.put("name", "张");
+				check(TextUtils.format(pattern, params), template.render(params), pattern + " <- " + value);
+				count ++;
+			}
+		}
+		TextUtils.getTemplateCache().setEnabled(true);
+		System.out.println("hash mapping checks passed: " + count);
+	}
+
+	private void testPreparedFormat() {
+		String[][] parameters = {
+				{}, {""}, {"0", "2"}, {"-2"}, {"1", "", ","}, {"", "-2"}, {"x"},
+				{"8", "0"}, {"-6", "ab"}, {"5"}, {"0"},
+				{"+", "1"}, {"*", "100", "#0.00"}, {"/", "3"}, {"<<", "2"}, {"~"}, {"abs"}, {"+", "0x10"}, {"-", "", "#,##0.0"},
+				{"yyyy-MM-dd"}, {"@ms"}, {"@d"}, {"yyyy/MM/dd HH:mm", "yyyy-MM-dd HH:mm:ss"}, {"@", "@s"}, {"bad-pattern-ppp"},
+		};
+		Object[] values = {"12.345", 7, -3L, 2.5d, new java.math.BigDecimal("1e3"), "abc,de,fgh", "中文字符",
+				LocalDateTime.of(2024, 4, 27, 10, 20, 30), "2024-04-27 10:20:30", "1714184430", new Date(1714184430000L)};
+		FormatTypeEnum[] types = {FormatTypeEnum.SUB_STR, FormatTypeEnum.PAD, FormatTypeEnum.CALC, FormatTypeEnum.TIME, FormatTypeEnum.SIMPLE};
+		int count = 0;
+		for (FormatTypeEnum type : types) {
+			for (String[] parameter : parameters) {
+				for (Object value : values) {
+					String expected;
+					try {
+						expected = String.valueOf(type.formatValue(value, parameter));
+					} catch (RuntimeException e) {
+						expected = e.getClass().getName();
+					}
+					String actual;
+					try {
+						StringBuilder output = new StringBuilder();
+						type.prepare(parameter).formatTo(value, output);
+						actual = output.length() == 0 && !"".equals(expected) ? "null" : output.toString();
+					} catch (RuntimeException e) {
+						actual = e.getClass().getName();
+					}
+					check(expected, actual, type + Arrays.toString(parameter) + " <- " + value);
+					count ++;
+				}
+			}
+		}
+		String[] patterns = {
+				"${str(1,3);code}|${str(,-2);code}|${str(1,,\\,);list}",
+				"${pad(8,0);code}|${pad(-6,ab);code}|${pad(x);code}[${pad(3);code[^空]}]",
+				"${c(+,1);amount}|${c(*,100,#0.00);amount}|${c(<<,2);count}|${c(+,0x1);count}",
+				"${time(yyyy-MM-dd);time}|${time(@ms);time}|${time(yyyy/MM/dd,yyyy-MM-dd HH:mm:ss);text}|${time(@d,@s);epoch}",
+				"${c(+,1);list[+/]}${str(0,1);list[+]}",
+		};
+		TextUtils.getTemplateCache().setEnabled(false);
+		for (String pattern : patterns) {
+			TextTemplate template = TextTemplate.compile(pattern, false, false);
+			for (Object value : values) {
+				Map<String, Object> params = new HashMap<>();
+				params.put("code", value);
+				params.put("amount", value);
+				params.put("count", value instanceof Number ? value : 3);
+				params.put("time", value);
+				params.put("text", value);
+				params.put("epoch", value);
+				params.put("list", Arrays.asList(value, "12", null, "x,y"));
+				String expected;
+				try {
+					expected = TextUtils.format(pattern, params);
+				} catch (RuntimeException e) {
+					expected = e.getClass().getName();
+				}
+				String actual;
+				try {
+					actual = template.render(params);
+				} catch (RuntimeException e) {
+					actual = e.getClass().getName();
+				}
+				check(expected, actual, pattern + " <- " + value);
+				count ++;
+			}
+		}
+		TextUtils.getTemplateCache().setEnabled(true);
+		System.out.println("prepared format checks passed: " + count);
+	}
+
+	private void testCalcFormat() {
+		Object[][] cases = {
+				{Long.MAX_VALUE, new String[]{"+", "1"}, "9223372036854775808"},
+				{Long.MIN_VALUE, new String[]{"-"}, "9223372036854775808"},
+				{Long.MIN_VALUE, new String[]{"abs"}, "9223372036854775808"},
+				{3L << 60, new String[]{"*", "4"}, "13835058055282163712"},
+				{3, new String[]{"<<", "62"}, "13835058055282163712"},
+				{3, new String[]{"<<", "4"}, "48"},
+				{-7, new String[]{">>", "1"}, "-4"},
+				{-7, new String[]{">>", "100"}, "-1"},
+				{12, new String[]{"&~", "4"}, "8"},
+				{12, new String[]{"^", "5"}, "9"},
+				{7, new String[]{"/", "2"}, "3.5"},
+				{8, new String[]{"/", "2"}, "4"},
+				{-7, new String[]{"%", "3"}, "-1"},
+				{3, new String[]{"pow", "40"}, "12157665459056928801"},
+				{-1, new String[]{"pow", "999999999"}, "-1"},
+				{7, new String[]{"+", "1.5"}, "8.5"},
+				{7, new String[]{"+", "1e2"}, "107"},
+				{12345, new String[]{"point", "2"}, "123.45"},
+				{"12.345", new String[]{"*", "100", "#0.00"}, "1234.50"},
+				{1234567, new String[]{"+", "", "#,##0"}, "1,234,567"},
+				{new java.math.BigDecimal("12"), new String[]{"*", "3"}, "36"},
+				{java.math.BigInteger.TEN.pow(20), new String[]{"+", "1"}, "100000000000000000001"},
+				{2.5d, new String[]{"*", "2"}, "5.0"},
+		};
+		for (Object[] item : cases) {
+			String[] parameters = (String[]) item[1];
+			String message = item[0] + Arrays.toString(parameters);
+			check((String) item[2], FormatTypeEnum.CALC.formatValue(item[0], parameters), message);
+			StringBuilder output = new StringBuilder();
+			FormatTypeEnum.CALC.prepare(parameters).formatTo(item[0], output);
+			check((String) item[2], output.toString(), message);
+		}
+		System.out.println("calc format checks passed: " + cases.length);
+	}
+
+	private void testDigestFormat() {
+		try {
+			StringBuilder longText = new StringBuilder();
+			for (int i = 0; i < 500; i++) {
+				longText.append("签名内容-").append(i).append(i % 7 == 0 ? "\uD83D\uDE00" : "");
+			}
+			String text = longText.toString();
+			byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+			String md5 = hex(MessageDigest.getInstance("MD5").digest(bytes));
+			String sha256 = hex(MessageDigest.getInstance("SHA-256").digest(bytes));
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec("secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+			String hmac = hex(mac.doFinal(bytes));
+			String base64 = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+
+			ByteBuffer heap = ByteBuffer.allocate(bytes.length + 10);
+			heap.position(5);
+			heap.put(bytes);
+			heap.position(5).limit(5 + bytes.length);
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+			direct.put(bytes).flip();
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			stream.write(bytes);
+
+			Object[] values = {text, new StringBuilder(text), bytes, heap, direct, stream};
+			int count = 0;
+			for (Object value : values) {
+				check(md5, FormatTypeEnum.DIGEST.formatValue(value, "MD5"), "MD5 <- " + value.getClass());
+				check(sha256, FormatTypeEnum.DIGEST.formatValue(value, "SHA-256", "UTF-8"), "SHA-256 <- " + value.getClass());
+				check(base64, FormatTypeEnum.DIGEST.formatValue(value, "SHA-256", "", "base64"), "base64 <- " + value.getClass());
+				check(hmac, FormatTypeEnum.DIGEST.formatValue(value, "HmacSHA256", "", "hex", "secret"), "HmacSHA256 <- " + value.getClass());
+				StringBuilder output = new StringBuilder();
+				FormatTypeEnum.DIGEST.prepare("HmacSHA256", "", "hex", "secret").formatTo(value, output);
+				check(hmac, output.toString(), "prepared HmacSHA256 <- " + value.getClass());
+				check(hex(bytes), FormatTypeEnum.DIGEST.formatValue(value, "hex"), "hex <- " + value.getClass());
+				count += 6;
+			}
+			// 缓冲位置不变
+			check("5", String.valueOf(heap.position()), "heap position");
+			check("0", String.valueOf(direct.position()), "direct position");
+			check(md5, FormatTypeEnum.DIGEST.formatValue(new ByteArrayInputStream(bytes), "MD5"), "MD5 <- InputStream");
+			check(hex(MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_16))),
+					FormatTypeEnum.DIGEST.formatValue(text, "MD5", "UTF-16"), "MD5 <- UTF-16");
+			count += 2;
+
+			Map<String, Object> params = new HashMap<>();
+			params.put("body", text);
+			String pattern = "sign=${digest(HmacSHA256,UTF-8,hex,secret);body}&md5=${digest(MD5);body}";
+			check("sign=" + hmac + "&md5=" + md5, TextTemplate.compile(pattern, false, false).render(params), pattern);
+			check("sign=" + hmac + "&md5=" + md5, TextUtils.format(pattern, params), pattern);
+			count += 2;
+
+			// 不同密钥超出每个线程的缓存上限后, 各密钥的结果仍然正确
+			for (int round = 0; round < 2; round++) {
+				for (int i = 0; i < 40; i++) {
+					String secret = "secret" + i;
+					mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+					check(hex(mac.doFinal(bytes)), FormatTypeEnum.DIGEST.formatValue(text, "HmacSHA256", "", "hex", secret), "HmacSHA256 <- " + secret);
+					count ++;
+				}
+			}
+			System.out.println("digest format checks passed: " + count);
+		} catch (IOException | GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void testTimeFormat() {
+		long epochMilli = 1714184430123L;
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(epochMilli);
+		Object[] values = {new Date(epochMilli), calendar, new java.sql.Timestamp(epochMilli),
+				LocalDateTime.of(2024, 4, 27, 10, 20, 30, 123456789), LocalDateTime.of(2024, 4, 27, 10, 20, 30, 999000000),
+				java.time.ZonedDateTime.of(2024, 4, 27, 10, 20, 30, 0, java.time.ZoneId.of("Asia/Tokyo")),
+				java.time.ZonedDateTime.of(2024, 4, 27, 10, 20, 30, 0, java.time.ZoneId.of("Europe/Paris"))};
+		String[] patterns = {"yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm:ss.SSS", "HH:mm:ss Z", "'S'yyyy", "EEE, d MMM yyyy"};
+		int count = 0;
+		for (String pattern : patterns) {
+			for (Object value : values) {
+				FormatTypeEnum.setTimeValueCacheEnabled(false);
+				String expected = FormatTypeEnum.SIMPLE.formatValue(value, pattern);
+				String expectedTime = value instanceof Date || value instanceof Calendar ? null : formatTime(value, pattern);
+				if (value instanceof Date) {
+					check(new SimpleDateFormat(pattern).format((Date) value), expected, pattern + " <- " + value);
+				}
+				FormatTypeEnum.setTimeValueCacheEnabled(true);
+				for (int i = 0; i < 2; i++) {
+					check(expected, FormatTypeEnum.SIMPLE.formatValue(value, pattern), pattern + " <- " + value);
+					if (expectedTime != null) {
+						check(expectedTime, formatTime(value, pattern), pattern + " <- " + value);
+					}
+					count ++;
+				}
+			}
+		}
+		// 日期(Date/Calendar)的结果与 SimpleDateFormat 一致, 包括与 java.time 含义不同的字母
+		String[] legacyPatterns = {"S", "SS", "yyyy-MM-dd HH:mm:ss.S", "u", "F", "W", "k", "K", "kk:mm KK a", "yyyy-'W'W-u F", "[HH:mm]", "X",
+				"yyyy-MM-dd", "MMMM", "yyyy-MM-dd HH:mm:ss"};
+		// 包括儒略历时期(1582-10-15之前)的日期
+		for (long millis : new long[]{epochMilli, epochMilli - 118, 1714140000005L, -15000000000000L, -62100000000000L, -12219292800000L, -12219292800001L}) {
+			Calendar time = Calendar.getInstance();
+			time.setTimeInMillis(millis);
+			for (String pattern : legacyPatterns) {
+				String expected = new SimpleDateFormat(pattern).format(new Date(millis));
+				for (boolean cacheEnabled : new boolean[]{false, true, true}) {
+					FormatTypeEnum.setTimeValueCacheEnabled(cacheEnabled);
+					check(expected, FormatTypeEnum.SIMPLE.formatValue(new Date(millis), pattern), pattern + " <- " + millis);
+					check(expected, FormatTypeEnum.SIMPLE.formatValue(time, pattern), pattern + " <- calendar " + millis);
+					count ++;
+				}
+			}
+		}
+		FormatTypeEnum.setTimeValueCacheEnabled(false);
+		// 本地化的历法及数字与 SimpleDateFormat 一致
+		Locale defaultLocale = Locale.getDefault();
+		try {
+			for (String tag : new String[]{"th-TH", "ja-JP-u-ca-japanese", "ar-EG"}) {
+				Locale.setDefault(Locale.forLanguageTag(tag));
+				for (String pattern : new String[]{"yyyy-MM-dd HH:mm", "EEE, d MMM yyyy"}) {
+					check(new SimpleDateFormat(pattern).format(new Date(epochMilli)), FormatTypeEnum.SIMPLE.formatValue(new Date(epochMilli), pattern), pattern + " <- " + tag);
+					count ++;
+				}
+			}
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+		System.out.println("time format checks passed: " + count);
+	}
+
+	private void testLookupFormatType() {
+		TextFormatType yaml = new TextFormatType() {
+			@Override
+			public String getUniqueId() {
+				return "yaml-test";
+			}
+			@Override
+			public boolean supportsAutoMatch() {
+				return true;
+			}
+			@Override
+			public boolean preliminaryMatch(String format) {
+				return format.startsWith("---");
+			}
+		};
+		String[] contents = {null, "", "   ", "\t\n", "{}", " {\"a\":1} ", "{", "}", "[1,2]", "[1,2", "<a/>", "<", " <xml>data</xml>\n",
+				"http://x.y", "  https://example.com/a?b=1 ", "://abc", "a://", "abcdefghijklmnopqrstu://x", "abcdefghijklmnopqrst://x",
+				"abcdefghijklmnopqrstuv://x", "://a://b", "plain text", "中文://内容", "--- key: value", "--- a://b", "-- x", "{---}", "\u3000{}"};
+		int count = 0;
+		for (int round = 0; round < 2; round++) {
+			for (String content : contents) {
+				check(expectedFormatType(content, round == 1 ? yaml : null).getUniqueId(), TextUtils.lookupFormatType(content).getUniqueId(), String.valueOf(content));
+				count ++;
+			}
+			TextUtils.registerFormatType(yaml);
+		}
+		System.out.println("lookup format type checks passed: " + count);
+	}
+
+	private void testRepeatedValues() {
+		String[] patterns = {
+				"${items}",
+				"rows:${[(]items[)][+;]}",
+				"${[<]items[>][^空]}",
+				"${items[#^=无;1=一;2=二;*]}",
+				"${items[#$this|$idx]}",
+				"${c(*,2);items[+ ]}",
+				"${str(0,1);items}",
+				"{\"v\":[${items}]}",
+				"${json;items}",
+		};
+		List<List<? extends Number>> lists = Arrays.asList(
+				Collections.<Integer>emptyList(), Collections.singletonList(1), Arrays.asList(1, 2, 3, -4),
+				Arrays.asList(1L, Long.MAX_VALUE), Arrays.asList(1.5d, -0.0d, 1e20d, 0.1d));
+		TextUtils.getTemplateCache().setEnabled(false);
+		int count = 0;
+		for (String pattern : patterns) {
+			TextTemplate template = TextTemplate.compile(pattern, false, false);
+			for (List<? extends Number> list : lists) {
+				String expected = TextUtils.format(pattern, Collections.singletonMap("items", list));
+				List<java.util.function.Supplier<Object>> suppliers = new ArrayList<>();
+				suppliers.add(list::iterator);
+				suppliers.add(list::stream);
+				suppliers.add(list::spliterator);
+				if (list.stream().allMatch(Integer.class::isInstance)) {
+					suppliers.add(() -> list.stream().mapToInt(Number::intValue).toArray());
+					suppliers.add(() -> list.stream().mapToInt(Number::intValue));
+					suppliers.add(() -> list.stream().mapToInt(Number::intValue).spliterator());
+				}
+				if (list.stream().allMatch(Number.class::isInstance) && !list.isEmpty() && list.get(0) instanceof Long || list.isEmpty()) {
+					suppliers.add(() -> list.stream().mapToLong(Number::longValue).toArray());
+				}
+				if (!list.isEmpty() && list.get(0) instanceof Double || list.isEmpty()) {
+					suppliers.add(() -> list.stream().mapToDouble(Number::doubleValue).toArray());
+					suppliers.add(() -> list.stream().mapToDouble(Number::doubleValue));
+				}
+				for (java.util.function.Supplier<Object> supplier : suppliers) {
+					Object items = supplier.get();
+					String message = pattern + " <- " + items.getClass().getSimpleName() + list;
+					check(expected, TextUtils.format(pattern, Collections.singletonMap("items", supplier.get())), message);
+					check(expected, template.render(Collections.singletonMap("items", items)), message);
+					try {
+						check(expected, template.renderTo(new StringWriter(), Collections.singletonMap("items", supplier.get())).toString(), message);
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+					count ++;
+				}
+			}
+		}
+		TextUtils.getTemplateCache().setEnabled(true);
+		System.out.println("repeated value checks passed: " + count);
+	}
+
+	private void testEscapeFormat() {
+		Random random = new Random(15);
+		String alphabet = "abcXYZ019 -_.*~+&=?/%\"'<>\\\b\t\n\r\f\u0000\u001f\u007f\u00e9中文\ud83d\ude00\ud83d\ude00";
+		List<String> values = new ArrayList<>(Arrays.asList("", " ", "plain", "\ud83d", "a\ude00b", "中\ud83dx", "\ud83d\ud83d\ude00"));
+		for (int i = 0; i < 300; i++) {
+			StringBuilder value = new StringBuilder();
+			for (int j = random.nextInt(40); j > 0; j--) {
+				value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			values.add(value.toString());
+		}
+		int count = 0;
+		for (String value : values) {
+			String message = "escape: " + value;
+			check(expectedJson(value), escape(FormatTypeEnum.JSON, value, true), message);
+			check(expectedJson(value), escape(FormatTypeEnum.JSON, value, false), message);
+			check(expectedXml(value), escape(FormatTypeEnum.XML, value, true), message);
+			check(expectedXml(value), escape(FormatTypeEnum.XML, value, false), message);
+			check(expectedUrl(value, StandardCharsets.UTF_8), escape(FormatTypeEnum.URL_ENCODING, value, true), message);
+			check(expectedUrl(value, StandardCharsets.UTF_8), escape(FormatTypeEnum.URL_ENCODING, value, false), message);
+			for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, Charset.forName("GBK"))) {
+				check(expectedUrl(value, charset), WebUtils.encode(value, charset), message);
+			}
+			count ++;
+		}
+		// 与原先实现的耗时对比(64KB文本)
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 65536) {
+			text.append("订单备注: customer said \"deliver <after> 6pm\" & call first.\n");
+		}
+		String largeValue = text.toString();
+		compareTime("json", () -> expectedJson(largeValue), () -> escape(FormatTypeEnum.JSON, largeValue, false));
+		compareTime("xml", () -> expectedXml(largeValue), () -> escape(FormatTypeEnum.XML, largeValue, false));
+		compareTime("url", () -> expectedUrl(largeValue, StandardCharsets.UTF_8), () -> escape(FormatTypeEnum.URL_ENCODING, largeValue, false));
+		// 不需要转义的文本原样输出
+		String plainValue = largeValue.replaceAll("[\"<>&]", " ");
+		compareTime("plain xml", () -> expectedXml(plainValue), () -> escape(FormatTypeEnum.XML, plainValue, false));
+		check(plainValue, escape(FormatTypeEnum.XML, plainValue, false), "plain xml");
+		System.out.println("escape format checks passed: " + count);
+	}
+
+	private void testBindConfig() {
+		String[] patterns = {
+				"${$name}: ${orderNo}",
+				"${$name}|${$address.city[^无]}|${$address.zip[^无]}|${$tags[+/]}|${$missing[(][)]}|${orderNo}",
+				"{\"to\":\"${$name}\",\"no\":\"${orderNo}\",\"city\":\"${$address.city[#上海=SH;*]}\"}",
+				"<a>${$name[#张=Z;*]}</a><b>${xml;$address.city}</b>${c(+,1);$age}",
+				"${$name[#张=$(orderNo);*=x]}-${$age[#30=$($address.city)]}",
+				"${$this}${$idx}${items[#$this|$idx]}",
+				"${url;$name}&x=${$address.city[#上海=$($name)]}&y=${$name}",
+				"${$name}${$address.city}",
+		};
+		Map<String, Object> mapConfig = new HashMap<>();
+		mapConfig.put("name", "张");
+		mapConfig.put("age", 30);
+		mapConfig.put("tags", Arrays.asList("a", "b"));
+		Object[] configs = {new Person("张", 30, new Address("上海", null)), new Person("李", 20, null), mapConfig, null};
+		Map<String, Object> params = new HashMap<>();
+		params.put("orderNo", "N<1>");
+		params.put("items", Arrays.asList("x", "y"));
+		TextUtils.getTemplateCache().setEnabled(false);
+		int count = 0;
+		try {
+			for (String pattern : patterns) {
+				TextTemplate template = TextTemplate.compile(pattern, false, false);
+				for (Object config : configs) {
+					TextTemplate bound = template.bindConfig(config);
+					check("true", String.valueOf(bound.isConfigBound()), pattern);
+					String expected = template.render(params, config);
+					check(TextUtils.format(TextUtils.lookupFormatType(pattern), pattern, config, params), expected, pattern);
+					check(expected, bound.render(params), pattern);
+					// 传入的配置参数被忽略
+					check(expected, bound.render(params, configs[0] == config ? configs[1] : configs[0]), pattern);
+					check(expected, bound.renderTo(new StringWriter(), params).toString(), pattern);
+					for (TextFormatType type : Arrays.asList(FormatTypeEnum.SIMPLE, FormatTypeEnum.JSON, FormatTypeEnum.XML, FormatTypeEnum.URL_ENCODING)) {
+						check(template.render(type, params, config), bound.render(type, params, null), pattern);
+					}
+					check(expected, bound.renderAll(Arrays.asList(params, Collections.emptyMap())).get(0), pattern);
+					count ++;
+				}
+			}
+			// 只引用配置属性的部分预先渲染为常量文本, 配置参数变化后需重新绑定
+			TextTemplate template = TextTemplate.compile("${$name}/${$age}", false, false);
+			TextTemplate bound = template.bindConfig(mapConfig);
+			mapConfig.put("name", "王");
+			check("张/30", bound.render(null), "bound constant");
+			check("王/30", template.bindConfig(mapConfig).render(null), "rebound constant");
+			count ++;
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		TextUtils.getTemplateCache().setEnabled(true);
+		System.out.println("bind config checks passed: " + count);
+	}
+
+	private void testBufferReuse() {
+		// 嵌套层数超过每个线程缓存的缓冲数量
+		String nestedPattern = nestedPattern(0, 12);
+		String nestedExpected = "L0<L1<L2<L3<L4<L5<L6<L7<L8<L9<L10<L11<end>>>>>>>>>>>>";
+		Map<String, Object> params = new HashMap<>();
+		params.put("v", 1);
+		StringBuilder large = new StringBuilder();
+		while (large.length() < 100000) {
+			large.append("large-value;");
+		}
+		params.put("large", large.toString());
+		params.put("broken", (Iterable<Object>) () -> {
+			throw new IllegalStateException("broken");
+		});
+		String[] patterns = {nestedPattern, "[${large}]", "${v[#1=$(large)]}|${v}", "${v[#1=$(broken)]}", "${v}-${v[#1=x$(v)]}"};
+		int count = 0;
+		for (int round = 0; round < 2; round++) {
+			TextUtils.getTemplateCache().setEnabled(round == 1);
+			for (int i = 0; i < 3; i++) {
+				for (String pattern : patterns) {
+					String expected = pattern == nestedPattern ? nestedExpected : null;
+					String actual;
+					try {
+						actual = TextUtils.format(pattern, params);
+					} catch (IllegalStateException e) {
+						actual = e.getMessage();
+					}
+					if (expected == null) {
+						expected = pattern.contains("broken") ? "broken" : pattern.contains("$(large)")
+								? large + "|1" : pattern.contains("large") ? "[" + large + "]" : "1-x1";
+					}
+					check(expected, actual, pattern);
+					if (!pattern.contains("broken")) {
+						check(expected, TextTemplate.compile(pattern, false, false).render(params), pattern);
+					}
+					count ++;
+				}
+			}
+		}
+		// 多线程同时格式化
+		List<Integer> indexes = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			indexes.add(i);
+		}
+		List<String> results = indexes.parallelStream().map(i -> i % 3 == 0 ? TextUtils.format(nestedPattern, params) : TextUtils.format("${0}:${1[#1=$(0)]}", i, 1)).collect(Collectors.toList());
+		for (int i = 0; i < results.size(); i++) {
+			check(i % 3 == 0 ? nestedExpected : i + ":" + i, results.get(i), "parallel " + i);
+			count ++;
+		}
+		System.out.println("buffer reuse checks passed: " + count);
+	}
+
+	private void testSpecializedRender() {
+		// 首次渲染即生成专用渲染器, 与遍历节点树使用相同的用例
+		TextUtils.setSpecializeThreshold(0);
+		try {
+			testCompiledFormat();
+			testStreamingFormat();
+			testByteRendering();
+			testBeanAccessors();
+			testRepeatedValues();
+			testBindConfig();
+			TextTemplate template = TextTemplate.compile(PATTERNS[5], false, false);
+			Map<String, Object> params = createParams();
+			String expected = template.render(params);
+			for (int i = 0; i < 10000; i++) {
+				check(expected, template.render(params), PATTERNS[5]);
+			}
+		} finally {
+			TextUtils.setSpecializeThreshold(TextUtils.DEFAULT_SPECIALIZE_THRESHOLD);
+		}
+		System.out.println("specialized render checks passed");
+	}
+
+	private void testRenderStatistics() {
+		TextRenderStatistics statistics = new TextRenderStatistics();
+		TextUtils.setRenderListener(statistics);
+		try {
+			// 第一次出现时解析格式化, 之后使用缓存的编译模板
+			String pattern = "statistics ${name}-${age}";
+			Map<String, Object> params = createParams();
+			for (int i = 0; i < 10; i++) {
+				check("statistics 张-25", TextUtils.format(pattern, params), pattern);
+			}
+			TextRenderStatistics.TemplateStatistics item = statistics.getTemplate(pattern);
+			checkValue(10L, item.getRenderCount(), "render count");
+			checkValue(0.9d, item.getCompiledRatio(), "compiled ratio");
+			checkValue(10L * "statistics 张-25".length(), item.getOutputLength(), "output length");
+			checkValue(0L, item.getSlowPathCount(), "slow path count");
+			checkValue(true, item.getPercentileNanos(0.5) <= item.getPercentileNanos(0.99), "percentile");
+			// 嵌套模板只计入最外层
+			String nested = nestedPattern(0, 3);
+			Map<String, Object> nestedParams = Collections.singletonMap("v", createParams());
+			for (int i = 0; i < 3; i++) {
+				TextUtils.format(nested, nestedParams);
+			}
+			checkValue(3L, statistics.getTemplate(nested).getRenderCount(), "nested render count");
+			checkValue(2, statistics.getTopTemplates(10).size(), "template count");
+			// 普通对象参数通过反射取值
+			String beanPattern = "statistics ${name}@${address.city}";
+			Person person = new Person("张", 30, new Address("上海", null));
+			TextUtils.format(beanPattern, person);
+			checkValue(true, statistics.getTemplate(beanPattern).getSlowPathCount() > 0, "bean slow path count");
+			// 直接使用编译模板渲染
+			TextTemplate template = TextTemplate.compile(beanPattern, false, false);
+			statistics.reset();
+			template.renderAll(Arrays.asList(person, person));
+			item = statistics.getTemplate(beanPattern);
+			checkValue(2L, item.getRenderCount(), "batch render count");
+			checkValue(1.0d, item.getCompiledRatio(), "batch compiled ratio");
+			// 写入输出目标时统计输出的字符数
+			String expected = TextUtils.format(beanPattern, person);
+			statistics.reset();
+			try {
+				template.renderTo(new StringBuilder(), person);
+				TextUtils.formatTo(new java.io.StringWriter(), beanPattern, person);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			checkValue(2L * expected.length(), statistics.getTemplate(beanPattern).getOutputLength(), "streaming output length");
+		} finally {
+			TextUtils.setRenderListener(null);
+		}
+		// 取消注册后不再记录
+		statistics.reset();
+		TextUtils.format("statistics ${name}", createParams());
+		checkValue(0, statistics.getTopTemplates(10).size(), "unregistered template count");
+		// 模板数量上限
+		TextRenderStatistics limited = new TextRenderStatistics(1);
+		limited.onRender("a", true, 10, 1, 0);
+		limited.onRender("b", true, 10, 1, 0);
+		checkValue(1L, limited.getDroppedCount(), "dropped count");
+		System.out.println("render statistics checks passed");
+	}
+
+	private void checkValue(Object expected, Object actual, String name) {
+		if (!Objects.equals(expected, actual)) {
+			throw new IllegalStateException(name + " mismatch: expected " + expected + ", actual " + actual);
+		}
+	}
+
+	/**
+	 * 逐层嵌套的映射表达式模板
+	 */
+	private static String nestedPattern(int level, int depth) {
+		if (level == depth) {
+			return "end";
+		}
+		String open = level % 2 == 0 ? "${" : "$(";
+		String close = level % 2 == 0 ? "}" : ")";
+		String nested = nestedPattern(level + 1, depth).replace("\\", "\\\\").replace("]", "\\]").replace(")", "\\)").replace("}", "\\}");
+		return "L" + level + "<" + open + "v[#1=" + nested + "]" + close + ">";
+	}
+
+	private static String escape(FormatTypeEnum formatType, String value, boolean writer) {
+		try {
+			Appendable output = writer ? new StringWriter() : new StringBuilder();
+			formatType.appendValue(output, value, false, -1);
+			return output.toString();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void compareTime(String name, java.util.function.Supplier<String> expected, java.util.function.Supplier<String> actual) {
+		// 预热后交替测量多轮, 取每轮平均耗时的中位数
+		int warmups = 200, rounds = 15, iterations = 20;
+		for (int i = 0; i < warmups; i++) {
+			if (expected.get().length() != actual.get().length()) {
+				throw new IllegalStateException(name);
+			}
+		}
+		long[] before = new long[rounds];
+		long[] after = new long[rounds];
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i < iterations; i++) {
+				long start = System.nanoTime();
+				String expectedValue = expected.get();
+				before[round] += System.nanoTime() - start;
+				start = System.nanoTime();
+				String actualValue = actual.get();
+				after[round] += System.nanoTime() - start;
+				if (expectedValue.length() != actualValue.length()) {
+					throw new IllegalStateException(name);
+				}
+			}
+		}
+		Arrays.sort(before);
+		Arrays.sort(after);
+		System.out.println(name + " escape 64KB (median of " + rounds + " rounds): before " + before[rounds / 2] / iterations / 1000
+				+ "us, after " + after[rounds / 2] / iterations / 1000 + "us");
+	}
+
+	/**
+	 * 原先的JSON转义实现
+	 */
+	private static String expectedJson(String value) {
+		StringBuilder output = new StringBuilder();
+		for (int i = 0, len = value.length(); i < len; i++) {
+			char ch = value.charAt(i);
+			switch (ch) {
+				case '\\': output.append("\\\\"); break;
+				case '\"': output.append("\\\""); break;
+				case '\b': output.append("\\b"); break;
+				case '\t': output.append("\\t"); break;
+				case '\n': output.append("\\n"); break;
+				case '\r': output.append("\\r"); break;
+				case '\f': output.append("\\f"); break;
+				default:
+					if (ch < ' ') {
+						String hexString = Integer.toHexString(ch);
+						output.append("\\u").append("0000", hexString.length(), 4).append(hexString);
+					} else {
+						output.append(ch);
+					}
+					break;
+			}
+		}
+		return output.toString();
+	}
+
+	/**
+	 * 原先的XML转义实现
+	 */
+	private static String expectedXml(String value) {
+		StringBuilder output = new StringBuilder();
+		for (int i = 0, len = value.length(); i < len; i++) {
+			char ch = value.charAt(i);
+			switch (ch) {
+				case '&': output.append("&amp;"); break;
+				case '"': output.append("&quot;"); break;
+				case '<': output.append("&lt;"); break;
+				case '>': output.append("&gt;"); break;
+				case '\'': output.append("&apos;"); break;
+				default: output.append(ch); break;
+			}
+		}
+		return output.toString();
+	}
+
+	/**
+	 * 原先的URL编码实现
+	 */
+	private static String expectedUrl(String value, Charset charset) {
+		try {
+			return value.isEmpty() ? value : URLEncoder.encode(value, charset.name());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 原先逐个匹配的实现
+	 */
+	private static TextFormatType expectedFormatType(String content, TextFormatType custom) {
+		if (content != null && !(content = content.trim()).isEmpty()) {
+			if (content.startsWith("{") && content.endsWith("}") || content.startsWith("[") && content.endsWith("]")) {
+				return FormatTypeEnum.JSON;
+			}
+			if (content.startsWith("<") && content.endsWith(">")) {
+				return FormatTypeEnum.XML;
+			}
+			if (content.lastIndexOf("://", 20) > 0) {
+				return FormatTypeEnum.URL_ENCODING;
+			}
+			if (custom != null && custom.preliminaryMatch(content)) {
+				return custom;
+			}
+		}
+		return FormatTypeEnum.SIMPLE;
+	}
+
+	private static String formatTime(Object value, String pattern) {
+		try {
+			return FormatTypeEnum.TIME.formatValue(value, pattern);
+		} catch (RuntimeException e) {
+			return e.getClass().getName();
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder result = new StringBuilder();
+		for (byte b : bytes) {
+			result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return result.toString();
+	}
+
+	public static class Address {
+		private final String city;
+		private final String zip;
+
+		public Address(String city, String zip) {
+			this.city = city;
+			this.zip = zip;
+		}
+
+		public String getCity() {
+			return city;
+		}
+
+		public String getZip() {
+			return zip;
+		}
+	}
+
+	public static class Person {
+		private final String name;
+		private final int age;
+		private final Address address;
+
+		public Person(String name, int age, Address address) {
+			this.name = name;
+			this.age = age;
+			this.address = address;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public Address getAddress() {
+			return address;
+		}
+
+		public List<String> getTags() {
+			return Arrays.asList(name, String.valueOf(age));
+		}
+	}
+
+	public static final class FailingBean {
+		private int calls;
+
+		public String getValue() {
+			calls ++;
+			throw new IllegalStateException("failed");
+		}
+	}
+
+	public static final class Student extends Person {
+		public Student(String name, int age, Address address) {
+			super(name, age, address);
+		}
+
+		@Override
+		public String getName() {
+			return "学生" + super.getName();
+		}
+	}
+
+	private void check(String expected, String actual, String pattern) {
+		if (!Objects.equals(expected, actual)) {
+			throw new IllegalStateException("pattern: " + pattern + "\nexpected: " + expected + "\nactual:   " + actual);
+		}
+	}
+
+}
@@ -0,0 +1,678 @@
+package com.honzel.test;
+
+import com.honzel.core.util.text.TextUtils;
+import com.honzel.core.util.text.ValueList;
+import com.honzel.core.util.text.ValueListEditor;
+import com.honzel.core.util.text.ValueMap;
+import com.honzel.core.util.text.ValueMapEditor;
+import com.honzel.core.util.text.ValueMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ValueListTester {
+
+	private static final String[] SEPARATORS = {",", ";", "; ", "<>"};
+
+	private final Random random = new Random(20240427L);
+
+	public static void main(String[] args) {
+		ValueListTester tester = new ValueListTester();
+		tester.testValueList();
+		tester.testCachedValueList();
+		tester.testValueMap();
+		tester.testEditors();
+		tester.testValueSets();
+		tester.testStreams();
+		tester.testMatchers();
+	}
+
+	private String randomItem() {
+		int len = random.nextInt(4);
+		StringBuilder item = new StringBuilder();
+		for (int i = 0; i < len; i++) {
+			item.append((char) ('a' + random.nextInt(3)));
+		}
+		return item.toString();
+	}
+
+	private String randomList(String separator, int size) {
+		StringBuilder list = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				list.append(random.nextInt(20) == 0 ? "," : separator);
+			}
+			list.append(randomItem());
+		}
+		return list.toString();
+	}
+
+	private List<String> randomLists() {
+		List<String> lists = new ArrayList<>();
+		lists.add("");
+		lists.add(",");
+		lists.add("a");
+		for (String separator : SEPARATORS) {
+			for (int i = 0; i < 60; i++) {
+				lists.add(randomList(separator, 1 + random.nextInt(i < 30 ? 6 : 60)));
+			}
+		}
+		return lists;
+	}
+
+	/**
+	 * 与静态方法逐项扫描的结果比较
+	 */
+	private int compare(String list, String separator, ValueList valueList) {
+		int count = 0;
+		int size = TextUtils.getSize(list, separator);
+		checkValue(size, valueList.size(), list);
+		if (list.isEmpty()) {
+			// 空字符串逐项扫描时作为一个空值
+			return count;
+		}
+		for (int offset = -size - 2; offset <= size + 2; offset++) {
+			for (int len = -size - 2; len <= size + 2; len++) {
+				checkValue(TextUtils.getValues(list, offset, len, separator), valueList.getValues(offset, len), list + " " + offset + "/" + len);
+				count ++;
+			}
+			checkValue(TextUtils.getValue(list, offset, separator), valueList.getValue(offset), list + " " + offset);
+		}
+		for (int i = 0; i < 30; i++) {
+			String value = random.nextInt(10) == 0 ? randomItem() + separator + randomItem() : randomItem();
+			checkValue(TextUtils.indexOfValue(list, value, separator), valueList.indexOf(value), list + " " + value);
+			checkValue(TextUtils.indexOfValue(list, value, false, separator) >= 0, valueList.contains(value), list + " " + value);
+			checkValue(TextUtils.indexOfPrefix(list, value, separator), valueList.indexOfPrefix(value), list + " prefix " + value);
+			count += 3;
+		}
+		return count;
+	}
+
+	private void testValueList() {
+		TextUtils.setValueListCacheThreshold(Integer.MAX_VALUE);
+		int count = 0;
+		for (String separator : SEPARATORS) {
+			for (String list : randomLists()) {
+				ValueList valueList = ValueList.of(list, separator);
+				count += compare(list, separator, valueList);
+				// 片段与取值一致
+				int index = 0;
+				for (CharSequence item : valueList) {
+					checkValue(valueList.getValue(index), item.toString(), list);
+					checkValue(item.length(), valueList.endOf(index) - valueList.startOf(index), list);
+					index ++;
+				}
+			}
+		}
+		ValueList permissions = ValueList.of("user:add,user:edit,user:delete");
+		checkValue("user:edit", permissions.get(1).toString(), "get");
+		checkValue("edit", permissions.get(1).subSequence(5, 9).toString(), "subSequence");
+		checkValue(true, permissions.contains("user:delete"), "contains");
+		checkValue(0, ValueList.of(null).size(), "null list");
+		TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		System.out.println("value list checks passed: " + count);
+	}
+
+	private void testCachedValueList() {
+		// 缓存的解析结果与逐项扫描一致
+		List<String> lists = randomLists();
+		List<Object[]> expected = new ArrayList<>();
+		TextUtils.setValueListCacheThreshold(Integer.MAX_VALUE);
+		for (String list : lists) {
+			expected.add(queryAll(list));
+		}
+		TextUtils.setValueListCacheThreshold(0);
+		int count = 0;
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < lists.size(); i++) {
+				Object[] actual = queryAll(lists.get(i));
+				for (int j = 0; j < actual.length; j++) {
+					checkValue(expected.get(i)[j], actual[j], lists.get(i));
+					count ++;
+				}
+			}
+		}
+		// 首尾重叠的分隔符(如 "||") 缓存后的结果与逐项扫描一致
+		for (String separator : new String[]{"||", ",,", "aba"}) {
+			for (int i = 0; i < 40; i++) {
+				StringBuilder list = new StringBuilder();
+				for (int j = 0, size = 1 + random.nextInt(12); j < size; j++) {
+					list.append(randomItem().replace('c', separator.charAt(0))).append(random.nextInt(3) == 0 ? separator.substring(1) : separator);
+				}
+				String value = list.toString();
+				TextUtils.setValueListCacheThreshold(Integer.MAX_VALUE);
+				Object[] scanned = queryAll(value, separator);
+				TextUtils.setValueListCacheThreshold(0);
+				for (int round = 0; round < 3; round++) {
+					Object[] actual = queryAll(value, separator);
+					for (int j = 0; j < actual.length; j++) {
+						checkValue(scanned[j], actual[j], value + " " + separator);
+						count ++;
+					}
+				}
+			}
+		}
+		TextUtils.setValueListCacheThreshold(0);
+		String overlapping = ";||;||b||a||||a||;a|||a|||;||||;||a||||,";
+		String first = TextUtils.getValue(overlapping, -8, "||");
+		checkValue(first, TextUtils.getValue(overlapping, -8, "||"), overlapping);
+		TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		// 权限列表重复查询
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			builder.append(i > 0 ? "," : "").append("perm:").append(i);
+		}
+		String permissions = builder.toString();
+		int iterations = 20000;
+		long scanTime = timeQueries(permissions, iterations, Integer.MAX_VALUE);
+		long cachedTime = timeQueries(permissions, iterations, TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		System.out.println("500 item list queries: scan " + scanTime / iterations + "ns/op, cached " + cachedTime / iterations + "ns/op");
+		System.out.println("cached value list checks passed: " + count);
+	}
+
+	/**
+	 * 随机生成的 map 格式字符串, 包含多 key、空 key、空 value 及没有 kvSeparator 的 entry
+	 */
+	private String randomMap(String[] separators, int size) {
+		StringBuilder map = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				map.append(separators[1]);
+			}
+			int keyCount = random.nextInt(3);
+			for (int k = 0; k < keyCount; k++) {
+				map.append(k > 0 ? separators[2] : "").append(randomItem());
+			}
+			if (keyCount > 0 || random.nextBoolean()) {
+				map.append(separators[0]);
+			}
+			int valueCount = random.nextInt(3);
+			for (int v = 0; v < valueCount; v++) {
+				map.append(v > 0 ? separators[2] : "").append(randomItem());
+			}
+		}
+		return map.toString();
+	}
+
+	private Object[] queryMap(String map, String[] separators, String key, String value) {
+		String kv = separators[0];
+		String entry = separators[1];
+		String item = separators[2];
+		return new Object[]{TextUtils.keyIndexOf(map, key, kv, entry, item), TextUtils.getMapValue(map, key, kv, entry, item),
+				TextUtils.getMapKey(map, value, kv, entry, item), TextUtils.containsMapKey(map, key, kv, entry, item),
+				TextUtils.containsMapValue(map, value, kv, entry, item), TextUtils.containsMapKeyValue(map, key, value, kv, entry, item),
+				TextUtils.putMapValue(map, key, value, kv, entry, item)};
+	}
+
+	private void testValueMap() {
+		String[][] separatorsList = {{"=", ";", ","}, {"=", ";", ""}, {":", "|", ","}, {"=", ";", ", "}};
+		int count = 0;
+		for (String[] separators : separatorsList) {
+			for (int i = 0; i < 200; i++) {
+				String map = randomMap(separators, 1 + random.nextInt(i < 100 ? 4 : 40));
+				ValueMap valueMap = ValueMap.parse(map, separators[0], separators[1], separators[2]);
+				for (int j = 0; j < 20; j++) {
+					String key = randomItem();
+					String value = randomItem();
+					TextUtils.setValueListCacheThreshold(Integer.MAX_VALUE);
+					Object[] expected = queryMap(map, separators, key, value);
+					checkValue(expected[0], valueMap.keyIndexOf(key), map + " keyIndexOf " + key);
+					checkValue(expected[1], valueMap.getValue(key), map + " getValue " + key);
+					checkValue(expected[1], valueMap.get(key) == null ? null : valueMap.get(key).toString(), map + " get " + key);
+					checkValue(expected[2], valueMap.getKey(value), map + " getKey " + value);
+					checkValue(expected[3], valueMap.containsKey(key), map + " containsKey " + key);
+					checkValue(expected[4], valueMap.containsValue(value), map + " containsValue " + value);
+					checkValue(expected[5], valueMap.containsKeyValue(key, value), map + " containsKeyValue " + key + "=" + value);
+					// 同一个字符串实例重复查询时使用缓存的索引
+					TextUtils.setValueListCacheThreshold(0);
+					for (int round = 0; round < 2; round++) {
+						Object[] actual = queryMap(map, separators, key, value);
+						for (int k = 0; k < actual.length; k++) {
+							checkValue(expected[k], actual[k], map + " cached " + k + " " + key + "=" + value);
+						}
+					}
+					count += 7 + expected.length * 2;
+				}
+			}
+		}
+		TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		ValueMap routes = ValueMap.parse("meituan,eleme=channel-a;jd=channel-b", "=", ";", ",");
+		checkValue("channel-a", routes.getValue("eleme"), "getValue");
+		checkValue("jd", routes.getKey("channel-b"), "getKey");
+		checkValue(false, routes.containsKey("taobao"), "containsKey");
+		// 路由表重复查询
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			builder.append(i > 0 ? ";" : "").append("tenant").append(i).append(",alias").append(i).append("=route").append(i % 7);
+		}
+		String table = builder.toString();
+		int iterations = 20000;
+		long[] times = new long[2];
+		int[] thresholds = {Integer.MAX_VALUE, TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD};
+		for (int t = 0; t < times.length; t++) {
+			TextUtils.setValueListCacheThreshold(thresholds[t]);
+			int found = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				String value = TextUtils.getMapValue(table, "alias" + (i % 350), ",");
+				found += value == null ? 0 : value.length();
+			}
+			times[t] = System.nanoTime() - start;
+			checkValue(true, found > 0, "found");
+		}
+		TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		System.out.println("300 entry map queries: scan " + times[0] / iterations + "ns/op, cached " + times[1] / iterations + "ns/op");
+		System.out.println("value map checks passed: " + count);
+	}
+
+	private void testEditors() {
+		checkValue("z,a,c,e", ValueListEditor.of("a,b,c").add("d").remove("b").insert(0, "z").replace(-1, "e").build(), "list editor");
+		checkValue("k1,k2=v2;k4=v4", ValueMapEditor.of("k1,k2=v1;k3=v3", ",").put("k2", "v2").put("k4", "v4").remove("k3").build(), "map editor");
+		String unchanged = "a,b";
+		checkValue(true, unchanged == ValueListEditor.of(unchanged).add("a").remove("c").build(), "unchanged list");
+		// 随机编辑序列与按顺序调用静态方法一致
+		String[] listSeparators = {",", "; ", ",,", ""};
+		int count = 0;
+		for (String separator : listSeparators) {
+			for (int i = 0; i < 2000; i++) {
+				String expected = i % 50 == 0 ? null : i % 50 == 1 ? "" : randomList(separator.isEmpty() ? "," : separator, 1 + random.nextInt(8));
+				ValueListEditor editor = ValueListEditor.of(expected, separator);
+				StringBuilder operations = new StringBuilder(String.valueOf(expected));
+				for (int j = 0, steps = random.nextInt(12); j < steps; j++) {
+					int index = random.nextInt(12) - 6;
+					String value = random.nextInt(8) == 0 ? null : random.nextInt(10) == 0 ? randomItem() + separator + randomItem() : randomItem();
+					switch (random.nextInt(5)) {
+						case 0:
+							expected = TextUtils.addValue(expected, value, separator);
+							editor.add(value);
+							operations.append(" add ").append(value);
+							break;
+						case 1:
+							expected = TextUtils.removeValue(expected, value, separator);
+							editor.remove(value);
+							operations.append(" remove ").append(value);
+							break;
+						case 2:
+							if (separator.isEmpty() && index < 0) {
+								// 空分隔符的静态方法不支持负数索引
+								index = -index;
+							}
+							expected = TextUtils.remove(expected, index, separator);
+							editor.removeAt(index);
+							operations.append(" removeAt ").append(index);
+							break;
+						case 3:
+							expected = TextUtils.insertValue(expected, index, value, separator);
+							editor.insert(index, value);
+							operations.append(" insert ").append(index).append(' ').append(value);
+							break;
+						default:
+							expected = TextUtils.replaceValue(expected, index, value, separator);
+							editor.replace(index, value);
+							operations.append(" replace ").append(index).append(' ').append(value);
+					}
+					checkValue(TextUtils.getSize(expected, separator), editor.size(), operations + " size");
+				}
+				checkValue(expected, editor.build(), operations.toString());
+				count ++;
+			}
+		}
+		String[][] mapSeparators = {{"=", ";", ","}, {"=", ";", ""}, {":", "|", ", "}, {"", ";", ","}, {"=", "", ","}, {"=", ";;", ","}};
+		for (String[] separators : mapSeparators) {
+			for (int i = 0; i < 2000; i++) {
+				String expected = i % 50 == 0 ? null : i % 50 == 1 ? "" : randomMap(separators[1].isEmpty() ? new String[]{separators[0], ";", separators[2]} : separators, 1 + random.nextInt(8));
+				ValueMapEditor editor = ValueMapEditor.of(expected, separators[0], separators[1], separators[2]);
+				StringBuilder operations = new StringBuilder(String.valueOf(expected));
+				for (int j = 0, steps = random.nextInt(12); j < steps; j++) {
+					String key = random.nextInt(20) == 0 ? null : randomItem();
+					String value = random.nextInt(4) == 0 ? null : random.nextInt(10) == 0 ? randomItem() + separators[1] + randomItem() : randomItem();
+					expected = TextUtils.putMapValue(expected, key, value, separators[0], separators[1], separators[2]);
+					editor.put(key, value);
+					operations.append(" put ").append(key).append('=').append(value);
+				}
+				checkValue(expected, editor.build(), String.join(" ", separators) + " " + operations);
+				count ++;
+			}
+		}
+		// 大列表的多次编辑
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			builder.append(i > 0 ? "," : "").append("perm:").append(i);
+		}
+		String permissions = builder.toString();
+		int iterations = 200;
+		long[] times = new long[2];
+		for (int round = 0; round < 2; round++) {
+			long start = System.nanoTime();
+			for (int n = 0; n < iterations; n++) {
+				String result;
+				if (round == 0) {
+					result = permissions;
+					for (int i = 0; i < 20; i++) {
+						result = TextUtils.addValue(result, "new:" + i);
+						result = TextUtils.removeValue(result, "perm:" + (i * 7));
+					}
+				} else {
+					ValueListEditor editor = ValueListEditor.of(permissions);
+					for (int i = 0; i < 20; i++) {
+						editor.add("new:" + i).remove("perm:" + (i * 7));
+					}
+					result = editor.build();
+				}
+				checkValue(1000, TextUtils.getSize(result), "edited size");
+			}
+			times[round] = System.nanoTime() - start;
+		}
+		System.out.println("40 edits on 1000 item list: static " + times[0] / iterations / 1000 + "us/op, editor " + times[1] / iterations / 1000 + "us/op");
+		System.out.println("editor checks passed: " + count);
+	}
+
+	private void testValueSets() {
+		// 散列索引与逐项扫描的结果一致(包括顺序及重复值)
+		String[] separators = {",", "; ", "<>", ",,"};
+		int count = 0;
+		for (String separator : separators) {
+			for (String list : randomLists()) {
+				for (int i = 0; i < 10; i++) {
+					String values = random.nextInt(5) == 0 ? list : randomList(separator, 1 + random.nextInt(i < 5 ? 4 : 40));
+					if (random.nextInt(4) == 0) {
+						values += separator;
+					}
+					TextUtils.setValueSetThreshold(Integer.MAX_VALUE);
+					Object[] expected = setAll(list, values, separator);
+					TextUtils.setValueSetThreshold(0);
+					Object[] actual = setAll(list, values, separator);
+					for (int j = 0; j < expected.length; j++) {
+						checkValue(expected[j], actual[j], list + " | " + values + " [" + separator + "] " + j);
+						count ++;
+					}
+				}
+			}
+		}
+		TextUtils.setValueSetThreshold(0);
+		checkValue("a,c,a", TextUtils.removeAll("a,b,a,c,a", "a,b"), "removeAll duplicates");
+		checkValue("b,b,a", TextUtils.retainAll("b,x,b,a", "a,b"), "retainAll order");
+		checkValue("a,b,c,c", TextUtils.addAll("a,b", "b,c,c"), "addAll duplicates");
+		TextUtils.setValueSetThreshold(TextUtils.DEFAULT_VALUE_SET_THRESHOLD);
+		// 不同项数下逐项扫描与散列索引的耗时, 用于确定阈值
+		for (int size : new int[]{20, 200, 2000}) {
+			StringBuilder line = new StringBuilder(size + " item list, scan/hash ns per op:");
+			String list = idList(0, size);
+			for (int m : new int[]{1, 2, 4, 8, 16, 64, 256}) {
+				String values = idList(size / 2, m);
+				long scan = timeValueSets(list, values, Integer.MAX_VALUE);
+				long hash = timeValueSets(list, values, 0);
+				line.append(' ').append(m).append(':').append(scan).append('/').append(hash);
+			}
+			System.out.println(line);
+		}
+		System.out.println("value set checks passed: " + count);
+	}
+
+	private void testStreams() {
+		// 与 asList 的各项一致, 拆分后按顺序合并的结果不变
+		int count = 0;
+		for (String separator : new String[]{",", "; ", "<>", ",,"}) {
+			List<String> lists = randomLists();
+			lists.add(randomList(separator, 3000));
+			for (String list : lists) {
+				List<String> expected = TextUtils.asList(list, separator);
+				checkValue(expected, toStrings(TextUtils.stream(list, separator)), list);
+				checkValue(expected, splitAll(TextUtils.stream(list, separator).spliterator()), list + " split");
+				checkValue(expected, TextUtils.stream(list, separator).parallel().map(CharSequence::toString).collect(Collectors.toList()), list + " parallel");
+				count += 3;
+			}
+		}
+		checkValue(Arrays.asList("a", "b", "c"), toStrings(TextUtils.stream("abc", "")), "empty separator");
+		checkValue(0L, TextUtils.stream(null).count(), "null list");
+		// 片段按内容比较
+		List<CharSequence> slices = TextUtils.stream("a,bc,a,,bc,").collect(Collectors.toList());
+		checkValue(slices.get(0), slices.get(2), "slice equals");
+		checkValue(slices.get(1).hashCode(), slices.get(4).hashCode(), "slice hashCode");
+		checkValue("bc".hashCode(), slices.get(1).hashCode(), "slice string hashCode");
+		checkValue(false, slices.get(0).equals(slices.get(1)), "slice not equals");
+		checkValue(slices.get(3), slices.get(5), "empty slice equals");
+		checkValue(3, new HashSet<>(slices).size(), "slice set");
+		String[][] separatorsList = {{"=", ";", ","}, {"=", ";", ""}, {":", "|", ", "}, {"", ";", ","}, {"=", "", ","}};
+		for (String[] separators : separatorsList) {
+			for (int i = 0; i < 200; i++) {
+				String map = randomMap(separators, 1 + random.nextInt(i < 190 ? 40 : 2000));
+				ValueMap valueMap = ValueMap.parse(map, separators[0], separators[1], separators[2]);
+				List<Map.Entry<CharSequence, CharSequence>> entries = TextUtils.streamMap(map, separators[0], separators[1], separators[2]).collect(Collectors.toList());
+				Set<String> keys = new HashSet<>();
+				for (Map.Entry<CharSequence, CharSequence> entry : entries) {
+					String key = entry.getKey().toString();
+					checkValue(true, valueMap.containsKey(key), map + " key " + key);
+					if (keys.add(key)) {
+						// 第一次出现的 key 与按 key 取值一致
+						checkValue(valueMap.getValue(key), entry.getValue().toString(), map + " value of " + key);
+					}
+					count ++;
+				}
+				List<String> expected = entries.stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.toList());
+				List<String> split = splitAll(TextUtils.streamMap(map, separators[0], separators[1], separators[2]).map(e -> e.getKey() + "=" + e.getValue()).spliterator());
+				checkValue(expected, split, map + " split");
+			}
+		}
+		checkValue(Arrays.asList("k1:v1", "k2:v1", "k3:v3"), TextUtils.streamMap("k1,k2=v1;k3=v3", ",").map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.toList()), "streamMap");
+		// 百万项的值列表
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 1_000_000; i++) {
+			builder.append(i > 0 ? "," : "").append("user:").append(i);
+		}
+		String users = builder.toString();
+		long expectedLength = users.length() - 999_999L;
+		long[] times = new long[3];
+		for (int round = 0; round < 4; round++) {
+			long start = System.nanoTime();
+			checkValue(expectedLength, TextUtils.asList(users).stream().mapToLong(String::length).sum(), "asList");
+			long asList = System.nanoTime();
+			checkValue(expectedLength, TextUtils.stream(users).mapToLong(CharSequence::length).sum(), "stream");
+			long sequential = System.nanoTime();
+			checkValue(expectedLength, TextUtils.stream(users).parallel().mapToLong(CharSequence::length).sum(), "parallel");
+			long parallel = System.nanoTime();
+			times[0] = asList - start;
+			times[1] = sequential - asList;
+			times[2] = parallel - sequential;
+		}
+		System.out.println("1000000 item list: asList " + times[0] / 1000_000 + "ms, stream " + times[1] / 1000_000 + "ms, parallel stream " + times[2] / 1000_000 + "ms");
+		System.out.println("stream checks passed: " + count);
+	}
+
+	private void testMatchers() {
+		// 按模式串查找与逐项扫描一致
+		int count = 0;
+		for (String separator : new String[]{",", "; ", "||", "<>", ",,", ""}) {
+			for (String list : randomLists()) {
+				for (int i = 0; i < 20; i++) {
+					String value = random.nextInt(10) == 0 ? randomItem() + separator + randomItem() : randomItem();
+					ValueMatcher matcher = ValueMatcher.of(value, separator);
+					for (int t = 0; t < 2; t++) {
+						TextUtils.setValueListCacheThreshold(t == 0 ? Integer.MAX_VALUE : 0);
+						for (int mode = 0; mode < 4; mode++) {
+							boolean valueIndexOfList = (mode & 1) != 0;
+							boolean startsLike = (mode & 2) != 0;
+							checkValue(TextUtils.indexOf(list, value, valueIndexOfList, startsLike, separator),
+									TextUtils.indexOf(list, matcher, valueIndexOfList, startsLike), list + " [" + separator + "] " + value + " " + mode);
+							count ++;
+						}
+					}
+				}
+			}
+		}
+		TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		checkValue(1, TextUtils.indexOfValue("token-a||token-b", ValueMatcher.of("token-b", "||")), "indexOfValue");
+		checkValue(9, TextUtils.indexOf("token-a||token-b", ValueMatcher.of("token-b", "||"), false, false), "indexOf");
+		checkValue(false, TextUtils.containsValue("token-a||token-bc", ValueMatcher.of("token-b", "||")), "containsValue");
+		checkValue(1, TextUtils.indexOfPrefix("token-a||token-bc", ValueMatcher.of("token-b", "||")), "indexOfPrefix");
+		checkValue(-1, TextUtils.indexOfValue("a,b", (ValueMatcher) null), "null matcher");
+		// 长分隔符及长值的重复查找: 随机 token 及前缀相同的 URL
+		List<String> tokens = new ArrayList<>();
+		List<String> urls = new ArrayList<>();
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+		for (int i = 0; i < 500; i++) {
+			StringBuilder token = new StringBuilder();
+			for (int j = 0; j < 40; j++) {
+				token.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			tokens.add(token.toString());
+			urls.add("https://cdn.example.com/assets/images/" + i + "/thumbnail.png");
+		}
+		timeMatcher("500 token list", String.join("||", tokens), tokens.get(480));
+		timeMatcher("500 url list", String.join("||", urls), urls.get(480));
+		System.out.println("matcher checks passed: " + count);
+	}
+
+	private void timeMatcher(String name, String list, String target) {
+		ValueMatcher matcher = ValueMatcher.of(target, "||");
+		TextUtils.setValueListCacheThreshold(Integer.MAX_VALUE);
+		try {
+			int iterations = 20000;
+			long[] times = new long[2];
+			for (int round = 0; round < 4; round++) {
+				long start = System.nanoTime();
+				for (int i = 0; i < iterations; i++) {
+					checkValue(480, TextUtils.indexOfValue(list, target, "||"), "scan");
+				}
+				long scan = System.nanoTime();
+				for (int i = 0; i < iterations; i++) {
+					checkValue(true, TextUtils.containsValue(list, matcher), "matcher");
+				}
+				times[0] = scan - start;
+				times[1] = System.nanoTime() - scan;
+			}
+			System.out.println(name + " lookups: scan " + times[0] / iterations + "ns/op, matcher " + times[1] / iterations + "ns/op");
+		} finally {
+			TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		}
+	}
+
+	private List<String> toStrings(Stream<CharSequence> stream) {
+		return stream.map(CharSequence::toString).collect(Collectors.toList());
+	}
+
+	/**
+	 * 尽可能拆分后按顺序合并各部分
+	 */
+	private <T> List<String> splitAll(Spliterator<T> spliterator) {
+		List<String> result = new ArrayList<>();
+		Spliterator<T> prefix = spliterator.trySplit();
+		if (prefix != null) {
+			result.addAll(splitAll(prefix));
+		}
+		if (prefix != null && random.nextBoolean()) {
+			result.addAll(splitAll(spliterator));
+		} else {
+			spliterator.forEachRemaining(item -> result.add(item.toString()));
+		}
+		return result;
+	}
+
+	private Object[] setAll(String list, String values, String separator) {
+		return new Object[]{TextUtils.containsAll(list, values, separator), TextUtils.containsAny(list, values, separator),
+				TextUtils.removeAll(list, values, separator), TextUtils.retainAll(list, values, separator),
+				TextUtils.retainAll(values, list, separator), TextUtils.addAll(list, values, separator)};
+	}
+
+	private String idList(int from, int size) {
+		StringBuilder list = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				list.append(',');
+			}
+			list.append("group:").append(from + i);
+		}
+		return list.toString();
+	}
+
+	private long timeValueSets(String list, String values, int threshold) {
+		TextUtils.setValueSetThreshold(threshold);
+		try {
+			int iterations = Math.max(20, 2_000_000 / (list.length() + values.length() * 4));
+			long time = 0;
+			for (int round = 0; round < 2; round++) {
+				// 第一轮预热
+				int found = 0;
+				long start = System.nanoTime();
+				for (int i = 0; i < iterations; i++) {
+					if (TextUtils.containsAll(list, values)) {
+						found ++;
+					}
+					found += TextUtils.retainAll(list, values).length();
+					found += TextUtils.removeAll(list, values).length();
+				}
+				time = System.nanoTime() - start;
+				checkValue(true, found > 0, "found");
+			}
+			return time / iterations;
+		} finally {
+			TextUtils.setValueSetThreshold(TextUtils.DEFAULT_VALUE_SET_THRESHOLD);
+		}
+	}
+
+	private Object[] queryAll(String list) {
+		return new Object[]{TextUtils.getSize(list), TextUtils.getValue(list, 1), TextUtils.getValue(list, -2),
+				TextUtils.getValues(list, 1, 3), TextUtils.getValues(list, -1, -3), TextUtils.containsValue(list, "ab"),
+				TextUtils.indexOfValue(list, "b"), TextUtils.indexOfValue(list, "a", false, ","), TextUtils.indexOfPrefix(list, "c"),
+				TextUtils.getSize(list, ";"), TextUtils.indexOfValue(list, "ab", ";"), TextUtils.containsValue(list, "a,b")};
+	}
+
+	private Object[] queryAll(String list, String separator) {
+		int size = TextUtils.getSize(list, separator);
+		List<Object> results = new ArrayList<>();
+		results.add(size);
+		for (int i = -size - 1; i <= size; i++) {
+			// 逐项扫描时首尾重叠的分隔符从后向前查找可能越界, 异常类型也需一致
+			int offset = i;
+			results.add(queryOrError(() -> TextUtils.getValue(list, offset, separator)));
+			results.add(queryOrError(() -> TextUtils.getValues(list, offset, 2, separator)));
+		}
+		results.add(TextUtils.indexOfValue(list, "a", separator));
+		results.add(TextUtils.indexOfValue(list, "a", false, separator));
+		results.add(TextUtils.containsValue(list, "b", separator));
+		results.add(TextUtils.indexOfPrefix(list, "a", separator));
+		return results.toArray();
+	}
+
+	private Object queryOrError(java.util.function.Supplier<Object> query) {
+		try {
+			return query.get();
+		} catch (RuntimeException e) {
+			return e.getClass().getName();
+		}
+	}
+
+	private long timeQueries(String permissions, int iterations, int threshold) {
+		TextUtils.setValueListCacheThreshold(threshold);
+		try {
+			int found = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				if (TextUtils.containsValue(permissions, "perm:" + (i % 600))) {
+					found ++;
+				}
+				found += TextUtils.getValue(permissions, i % 500).length();
+			}
+			long time = System.nanoTime() - start;
+			checkValue(true, found > 0, "found");
+			return time;
+		} finally {
+			TextUtils.setValueListCacheThreshold(TextUtils.DEFAULT_VALUE_LIST_CACHE_THRESHOLD);
+		}
+	}
+
+	private void checkValue(Object expected, Object actual, String name) {
+		if (!Objects.equals(expected, actual)) {
+			throw new IllegalStateException(name + " mismatch: expected " + expected + ", actual " + actual);
+		}
+	}
+}